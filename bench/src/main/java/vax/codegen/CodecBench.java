@@ -0,0 +1,101 @@
+package vax.codegen;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+import vax.common.Vax;
+import vax.common.units.Binary;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * generated binary codecs of a typical entity, against the json fallback of {@code $toJson()} with
+ * {@link JsonObject#toBuffer()}.
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBench {
+    enum Status {NEW, PAID, SENT, DONE}
+
+    @Vax
+    @Vax.Binary
+    public interface Address {
+        String city();
+
+        String street();
+
+        int zip();
+    }
+
+    @Vax
+    @Vax.Binary
+    public interface Order {
+        long id();
+
+        UUID user();
+
+        String name();
+
+        int count();
+
+        double amount();
+
+        Instant created();
+
+        Integer discount();
+
+        Status status();
+
+        long[] tags();
+
+        Address address();
+    }
+
+    CodecBenchOrderBinary order;
+    Buffer binary;
+    Buffer json;
+
+    @Setup
+    public void setup() {
+        order = new CodecBenchOrderBinary(1L << 40, UUID.randomUUID(), "a typical order of some items", 3, 199.99,
+                                          Instant.ofEpochSecond(1741600000L, 123456789), null, Status.PAID,
+                                          new long[]{7, 11, 1L << 33},
+                                          new CodecBenchAddressBinary("Shanghai", "No.1 Century Avenue", 200120));
+        binary = encodeBinary();
+        json = encodeJson();
+    }
+
+    @Benchmark
+    public Buffer encodeBinary() {
+        var b = Binary.of(128, false);
+        CodecBenchOrderBinary.encode(b, order);
+        return b.$raw();
+    }
+
+    @Benchmark
+    public Object decodeBinary() {
+        return CodecBenchOrderBinary.decode(Binary.of(binary, false));
+    }
+
+    @Benchmark
+    public Buffer encodeJson() {
+        return order.$toJson().toBuffer();
+    }
+
+    /**
+     * into a JsonObject only, not yet the typed value.
+     */
+    @Benchmark
+    public Object decodeJson() {
+        return new JsonObject(json);
+    }
+}
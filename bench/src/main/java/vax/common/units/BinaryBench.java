@@ -0,0 +1,83 @@
+package vax.common.units;
+
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * decodes {@value #N} values of each codec, by the atomic cursor ({@code shared}) or the plain one.
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(BinaryBench.N)
+public class BinaryBench {
+    static final int N = 1024;
+
+    @Param({"true", "false"})
+    boolean shared;
+
+    Buffer varint;
+    Buffer zigzag;
+    Buffer text;
+    Buffer binary;
+
+    @Setup
+    public void setup() {
+        var r = new Random(42);
+        var v = Binary.of(N * 5, false);
+        var z = Binary.of(N * 10, false);
+        var t = Binary.of(N * 16, false);
+        var b = Binary.of(N * 20, false);
+        for (int i = 0; i < N; i++) {
+            //!! sizes of 1 to 5 bytes
+            v.$v32(r.nextInt() >>> r.nextInt(32));
+            z.$z64(r.nextLong() >> r.nextInt(64));
+            t.text("name-" + r.nextInt(100000));
+            var x = new byte[16];
+            r.nextBytes(x);
+            b.binary(x);
+        }
+        varint = v.$raw();
+        zigzag = z.$raw();
+        text = t.$raw();
+        binary = b.$raw();
+    }
+
+    @Benchmark
+    public long varint() {
+        var b = Binary.of(varint, shared);
+        long s = 0;
+        for (int i = 0; i < N; i++) s += b.$v32();
+        return s;
+    }
+
+    @Benchmark
+    public long zigzag() {
+        var b = Binary.of(zigzag, shared);
+        long s = 0;
+        for (int i = 0; i < N; i++) s += b.$z64();
+        return s;
+    }
+
+    @Benchmark
+    public void text(Blackhole h) {
+        var b = Binary.of(text, shared);
+        for (int i = 0; i < N; i++) h.consume(b.text());
+    }
+
+    @Benchmark
+    public void binary(Blackhole h) {
+        var b = Binary.of(binary, shared);
+        for (int i = 0; i < N; i++) h.consume(b.binary());
+    }
+}
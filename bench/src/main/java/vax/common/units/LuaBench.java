@@ -0,0 +1,163 @@
+package vax.common.units;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static vax.common.units.Lua.*;
+
+/**
+ * runs closures assembled by hand, as compiled by luac 5.4.
+ * <p>
+ * instructions of each operation, the MMBIN skipped by arithmetic and the EXTRA_ARG consumed by NEWTABLE
+ * are not counted:
+ * <ul>
+ *     <li>fib(20): 120,402</li>
+ *     <li>table(1000): 5,011</li>
+ *     <li>concat(100): 506</li>
+ * </ul>
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LuaBench {
+    //region assembler
+    static int abc(OP o, int a, int b, int c, int k) {
+        return o.ordinal() | a << 7 | k << 15 | b << 16 | c << 24;
+    }
+
+    static int abx(OP o, int a, int bx) {
+        return o.ordinal() | a << 7 | bx << 15;
+    }
+
+    static int asbx(OP o, int a, int sbx) {
+        return abx(o, a, sbx + 0xFFFF);
+    }
+
+    /**
+     * @return the signed argument sB or sC
+     */
+    static int s(int v) {
+        return v + 0x7F;
+    }
+
+    static Prototype proto(int params, int max, LValue[] k, int[] code, Prototype[] p, UpValueDesc... u) {
+        return new Prototype(k, code, p, null, null, u, null, 0, 0, params, 0, max);
+    }
+
+    static LClosure closure(Prototype p) {
+        return new LClosure(p, new UpValue[0], null);
+    }
+    //endregion
+
+    /**
+     * <pre>{@code
+     * local function fib(n) if n < 2 then return n end return fib(n - 1) + fib(n - 2) end
+     * return fib(...)
+     * }</pre>
+     */
+    static final LClosure FIB = closure(proto(1, 4, new LValue[0], new int[]{
+            abx(OP.CLOSURE, 1, 0),
+            abc(OP.MOVE, 2, 1, 0, 0),
+            abc(OP.MOVE, 3, 0, 0, 0),
+            abc(OP.CALL, 2, 2, 2, 0),
+            abc(OP.RETURN1, 2, 0, 0, 0)}, new Prototype[]{proto(1, 4, new LValue[0], new int[]{
+            abc(OP.LTI, 0, s(2), 0, 1),
+            abc(OP.RETURN1, 0, 0, 0, 0),
+            abc(OP.GETUPVAL, 1, 0, 0, 0),
+            abc(OP.ADDI, 2, 0, s(-1), 0),
+            abc(OP.MMBINI, 0, 0, 0, 0),
+            abc(OP.CALL, 1, 2, 2, 0),
+            abc(OP.GETUPVAL, 2, 0, 0, 0),
+            abc(OP.ADDI, 3, 0, s(-2), 0),
+            abc(OP.MMBINI, 0, 0, 0, 0),
+            abc(OP.CALL, 2, 2, 2, 0),
+            abc(OP.ADD, 1, 1, 2, 0),
+            abc(OP.MMBIN, 1, 2, 6, 0),
+            abc(OP.RETURN1, 1, 0, 0, 0)}, new Prototype[0], new UpValueDesc(null, true, (short) 1))}));
+
+    /**
+     * <pre>{@code
+     * local function table(n)
+     *   local t = {}
+     *   for i = 1, n do t[i] = i end
+     *   local s = 0
+     *   for i = 1, #t do s = s + t[i] end
+     *   return s
+     * end
+     * }</pre>
+     */
+    static final LClosure TABLE = closure(proto(1, 8, new LValue[0], new int[]{
+            abc(OP.NEWTABLE, 1, 0, 0, 0),
+            abx(OP.EXTRA_ARG, 0, 0),
+            asbx(OP.LOADI, 2, 1),
+            abc(OP.MOVE, 3, 0, 0, 0),
+            asbx(OP.LOADI, 4, 1),
+            abx(OP.FORPREP, 2, 1),
+            abc(OP.SETTABLE, 1, 5, 5, 0),
+            abx(OP.FORLOOP, 2, 2),
+            asbx(OP.LOADI, 2, 0),
+            asbx(OP.LOADI, 3, 1),
+            abc(OP.LEN, 4, 1, 0, 0),
+            asbx(OP.LOADI, 5, 1),
+            abx(OP.FORPREP, 3, 3),
+            abc(OP.GETTABLE, 7, 1, 6, 0),
+            abc(OP.ADD, 2, 2, 7, 0),
+            abc(OP.MMBIN, 2, 7, 6, 0),
+            abx(OP.FORLOOP, 3, 4),
+            abc(OP.RETURN1, 2, 0, 0, 0)}, new Prototype[0]));
+
+    /**
+     * <pre>{@code
+     * local function concat(n) local s = "" for i = 1, n do s = s .. "x" end return s end
+     * }</pre>
+     */
+    static final LClosure CONCAT = closure(proto(1, 8, new LValue[]{LString.of(""), LString.of("x")}, new int[]{
+            abx(OP.LOADK, 1, 0),
+            asbx(OP.LOADI, 2, 1),
+            abc(OP.MOVE, 3, 0, 0, 0),
+            asbx(OP.LOADI, 4, 1),
+            abx(OP.FORPREP, 2, 4),
+            abc(OP.MOVE, 6, 1, 0, 0),
+            abx(OP.LOADK, 7, 1),
+            abc(OP.CONCAT, 6, 2, 0, 0),
+            abc(OP.MOVE, 1, 6, 0, 0),
+            abx(OP.FORLOOP, 2, 5),
+            abc(OP.RETURN1, 1, 0, 0, 0)}, new Prototype[0]));
+
+    final LValue fib = LNumber.of(20);
+    final LValue table = LNumber.of(1000);
+    final LValue concat = LNumber.of(100);
+
+    @Setup
+    public void setup() {
+        check(LNumber.of(6765), fib());
+        check(LNumber.of(500500), table());
+        check(LString.of("x".repeat(100)), concat());
+    }
+
+    static void check(LValue expected, LValue actual) {
+        if (!expected.equals(actual)) throw new IllegalStateException("expected " + expected + " but " + actual);
+    }
+
+    @Benchmark
+    public LValue fib() {
+        return FIB.call(fib)[0];
+    }
+
+    @Benchmark
+    public LValue table() {
+        return TABLE.call(table)[0];
+    }
+
+    @Benchmark
+    public LValue concat() {
+        return CONCAT.call(concat)[0];
+    }
+}
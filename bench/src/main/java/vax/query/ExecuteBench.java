@@ -0,0 +1,92 @@
+package vax.query;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.jdbcclient.JDBCPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * deferred statements executed by {@link State.Executor.Pooled} on a file sqlite database through {@link JDBCPool}.
+ * <p>
+ * {@link #any} reads {@value #ROWS} rows of each operation, rows/sec is its throughput times {@value #ROWS}.
+ * run with {@code -bm sample} for the latency percentiles.
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+@org.openjdk.jmh.annotations.State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ExecuteBench {
+    static final int USERS = 10_000;
+    static final int ROWS = 100;
+
+    final Lite.Users users = new Lite.Users();
+    Vertx vertx;
+    JDBCPool pool;
+    Lite lite;
+    Path db;
+
+    static <T> T await(Future<T> f) {
+        return f.toCompletionStage().toCompletableFuture().join();
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        db = Files.createTempFile("vax-bench", ".db");
+        vertx = Vertx.vertx();
+        pool = JDBCPool.pool(vertx, new JsonObject()
+                .put("url", "jdbc:sqlite:" + db)
+                .put("driver_class", "org.sqlite.JDBC")
+                .put("max_pool_size", 4));
+        lite = new Lite(256, State.Executor.of(pool));
+        await(pool.query("CREATE TABLE users (id INTEGER PRIMARY KEY, name TEXT, age INTEGER)").execute());
+        await(pool.query("CREATE INDEX users_age ON users (age)").execute());
+        var rows = new ArrayList<JsonObject>(USERS);
+        for (long i = 0; i < USERS; i++)
+            rows.add(new JsonObject().put("id", i).put("name", "user" + i).put("age", (int) (i % 100)));
+        await(lite.state(users).putRaw(rows.get(0), rows.subList(1, USERS).toArray(JsonObject[]::new)));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        await(pool.close());
+        await(vertx.close());
+        Files.deleteIfExists(db);
+    }
+
+    /**
+     * a page of {@value #ROWS} users mapped into JsonObject.
+     */
+    @Benchmark
+    public List<?> any() {
+        var age = ThreadLocalRandom.current().nextInt(90);
+        var s = lite.state(users);
+        s.filter(x -> users.age.gte(Lite.p(age)));
+        s.limit(ROWS);
+        return await(s.any());
+    }
+
+    /**
+     * one user by primary key.
+     */
+    @Benchmark
+    public Object one() {
+        var id = ThreadLocalRandom.current().nextLong(USERS);
+        var s = lite.state(users);
+        s.filter(x -> users.id.eq(Lite.p(id)));
+        return await(s.one());
+    }
+}
@@ -0,0 +1,84 @@
+package vax.query;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static vax.query.Lite.p;
+
+/**
+ * renders a 4-way join with 20 predicates, the plan cache is disabled.
+ * <p>
+ * {@link #render} measures {@link Dialect.Builder} only, {@link #statement} also builds the statement and
+ * simplifies its conditions. run with {@code -prof gc} for the allocation rate.
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBench {
+    final Lite lite = new Lite(0, null);
+    final Lite.Users users = new Lite.Users();
+    final Lite.Orders orders = new Lite.Orders();
+    final Lite.Items items = new Lite.Items();
+    final Lite.Products products = new Lite.Products();
+    State.Status prepared;
+
+    State query() {
+        var s = lite.state(users);
+        s.join(Expr.JoinMode.INNER, lite.state(orders), x -> users.id.eq(orders.user));
+        s.join(Expr.JoinMode.INNER, lite.state(items), x -> items.order.eq(orders.id).and(items.count.gt(p(0))));
+        s.join(Expr.JoinMode.LEFT, lite.state(products), x -> products.id.eq(items.product));
+        s.filter(x -> users.age.gte(p(18)).and(users.age.lt(p(65)))
+                                .and(users.name.neq("admin"))
+                                .and(users.id.neq(p(0L)))
+                                .and(orders.amount.between(p(10), p(1000)))
+                                .and(orders.state.in(List.of("paid", "sent", "done")))
+                                .and(orders.amount.gt(p(5)).or(orders.id.lt(p(100L))))
+                                .and(orders.user.gte(p(1L)))
+                                .and(items.count.lte(p(10)))
+                                .and(items.product.in(List.of(1L, 2L, 3L, 4L)))
+                                .and(products.price.gt(p(1)))
+                                .and(products.price.lt(p(500)))
+                                .and(products.name.exists())
+                                .and(users.age.neq(p(30)).or(products.price.gte(p(100))))
+                                .and(orders.state.neq("void")));
+        s.sort(x -> List.of(new Expr.Sorter(orders.amount, true), new Expr.Sorter(users.id, false)));
+        s.limit(50);
+        return s;
+    }
+
+    @Setup
+    public void setup() {
+        var s = query();
+        s.deferredAny();
+        prepared = s.status();
+    }
+
+    /**
+     * the builder of a prepared status.
+     */
+    @Benchmark
+    public String render() {
+        var b = lite.build(prepared);
+        try {
+            return b.sql();
+        } finally {
+            b.release();
+        }
+    }
+
+    /**
+     * builds, simplifies and renders a new statement.
+     */
+    @Benchmark
+    public Object statement() {
+        return query().deferredAny();
+    }
+}
@@ -0,0 +1,338 @@
+package vax.codegen;
+
+import com.google.auto.service.AutoService;
+import com.squareup.javapoet.*;
+import lombok.SneakyThrows;
+import vax.common.Vax;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generate a Binary backend type for each interface annotated with {@link Vax.Binary}.<br/>
+ * Properties are the abstract accessors (no parameter, not void, not starts with '$') of the interface.
+ * The generated {@code <Type>Binary} implements the interface and {@code Data.Binary}, with straight-line codec
+ * over {@code vax.common.units.Binary} in declaration order of properties (super interfaces first):
+ * <ul>
+ *     <li>int, short, char as zig-zag var int; long as zig-zag var long; byte, boolean, float, double as is</li>
+ *     <li>String as {@code text()}, byte[] as {@code binary()}, enum as zig-zag ordinal (-1 for null),
+ *     an unknown ordinal is rejected by IllegalArgumentException</li>
+ *     <li>int[], long[], double[] as packed arrays</li>
+ *     <li>boxed primitives, UUID, Instant, arrays and nested {@link Vax.Binary} types with a presence flag</li>
+ * </ul>
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+@AutoService(Processor.class)
+public class BinaryProcessor implements Processor {
+    static final ClassName BINARY = ClassName.get("vax.common.units", "Binary");
+    static final ClassName DATA_BINARY = ClassName.get("vax.common.trait", "Data", "Binary");
+    static final ClassName BUFFER = ClassName.get("io.vertx.core.buffer", "Buffer");
+    static final ClassName JSON_OBJECT = ClassName.get("io.vertx.core.json", "JsonObject");
+    static final ClassName JSON_ARRAY = ClassName.get("io.vertx.core.json", "JsonArray");
+    static final ClassName ARRAYS = ClassName.get("java.util", "Arrays");
+
+    enum Kind {
+        BOOL("$b"), I8("$i8"), I16("$z32"), CHAR("$z32"), I32("$z32"), I64("$z64"), F32("$f32"), F64("$f64"),
+        TEXT("text"), BYTES("binary"), ENUM(null), UUID(null), INSTANT(null),
+        I32S("$z32s"), I64S("$z64s"), F64S("$f64s"), NESTED(null);
+        final String codec;
+
+        Kind(String codec) {
+            this.codec = codec;
+        }
+    }
+
+    /**
+     * @param boxed nullable boxed primitive
+     */
+    record Property(String name, TypeMirror type, Kind kind, boolean boxed) {
+        boolean flagged() {
+            return boxed || kind == Kind.UUID || kind == Kind.INSTANT || kind == Kind.NESTED
+                   || kind == Kind.I32S || kind == Kind.I64S || kind == Kind.F64S;
+        }
+    }
+
+    @Override
+    public Set<Class<? extends Annotation>> accepted() {
+        return Set.of(Vax.Binary.class);
+    }
+
+    @Override
+    public boolean handle(boolean skip, Util util, Set<? extends TypeElement> types) {
+        for (var t : util.types(util.roundEnv().getElementsAnnotatedWith(Vax.Binary.class))) {
+            if (t.getAnnotation(Vax.class) == null) {
+                util.warn(t, "@Vax.Binary without @Vax is ignored: {}", t);
+                continue;
+            }
+            if (t.getKind() != ElementKind.INTERFACE) {
+                util.error(t, "@Vax.Binary only allow for interface: {}", t);
+                continue;
+            }
+            generate(util, t);
+        }
+        return skip;
+    }
+
+    static ClassName binaryName(TypeElement t) {
+        var n = ClassName.get(t);
+        return ClassName.get(n.packageName(), String.join("", n.simpleNames()) + "Binary");
+    }
+
+    /**
+     * @return properties in declaration order: super interfaces first (in order of the extends clause),
+     * then the methods of the type. a redeclared property keeps its first position.
+     */
+    List<Property> properties(Util util, TypeElement type) {
+        var members = new HashMap<String, ExecutableElement>();
+        for (var m : util.methods(util.getAllMembers(type))) {
+            if (!m.getModifiers().contains(Modifier.ABSTRACT) || !m.getParameters().isEmpty()) continue;
+            var name = m.getSimpleName().toString();
+            if (name.startsWith("$") || m.getReturnType().getKind() == TypeKind.VOID) continue;
+            var owner = (TypeElement) m.getEnclosingElement();
+            if (owner.getQualifiedName().contentEquals("java.lang.Object")) continue;
+            members.put(name, m);
+        }
+        var order = new LinkedHashSet<String>();
+        declared(util, type, order);
+        var r = new ArrayList<Property>();
+        for (var name : order) {
+            var m = members.get(name);
+            if (m == null) continue;
+            var p = property(util, name, m.getReturnType());
+            if (p == null) {
+                util.error(m, "unsupported property type {} of {}", m.getReturnType(), type);
+                return null;
+            }
+            r.add(p);
+        }
+        return r;
+    }
+
+    /**
+     * collect names of declared methods, depth first on super interfaces.
+     */
+    static void declared(Util util, TypeElement type, Set<String> order) {
+        for (var i : type.getInterfaces()) util.asTypeElement(i).ifPresent(e -> declared(util, e, order));
+        for (var m : util.methods(type.getEnclosedElements())) order.add(m.getSimpleName().toString());
+    }
+
+    static Property property(Util util, String name, TypeMirror t) {
+        switch (t.getKind()) {
+            case BOOLEAN: return new Property(name, t, Kind.BOOL, false);
+            case BYTE: return new Property(name, t, Kind.I8, false);
+            case SHORT: return new Property(name, t, Kind.I16, false);
+            case CHAR: return new Property(name, t, Kind.CHAR, false);
+            case INT: return new Property(name, t, Kind.I32, false);
+            case LONG: return new Property(name, t, Kind.I64, false);
+            case FLOAT: return new Property(name, t, Kind.F32, false);
+            case DOUBLE: return new Property(name, t, Kind.F64, false);
+            case ARRAY: {
+                var c = ((ArrayType) t).getComponentType().getKind();
+                return switch (c) {
+                    case BYTE -> new Property(name, t, Kind.BYTES, false);
+                    case INT -> new Property(name, t, Kind.I32S, false);
+                    case LONG -> new Property(name, t, Kind.I64S, false);
+                    case DOUBLE -> new Property(name, t, Kind.F64S, false);
+                    default -> null;
+                };
+            }
+            case DECLARED: {
+                var e = util.asTypeElement(t).orElse(null);
+                if (e == null) return null;
+                if (e.getKind() == ElementKind.ENUM) return new Property(name, t, Kind.ENUM, false);
+                if (e.getAnnotation(Vax.Binary.class) != null && e.getKind() == ElementKind.INTERFACE)
+                    return new Property(name, t, Kind.NESTED, false);
+                var qn = e.getQualifiedName().toString();
+                return switch (qn) {
+                    case "java.lang.String" -> new Property(name, t, Kind.TEXT, false);
+                    case "java.util.UUID" -> new Property(name, t, Kind.UUID, false);
+                    case "java.time.Instant" -> new Property(name, t, Kind.INSTANT, false);
+                    default -> {
+                        try {
+                            var p = property(util, name, util.unboxedType(t));
+                            yield p == null ? null : new Property(name, t, p.kind, true);
+                        } catch (IllegalArgumentException x) {
+                            yield null;
+                        }
+                    }
+                };
+            }
+            default: return null;
+        }
+    }
+
+    @SneakyThrows
+    void generate(Util util, TypeElement type) {
+        var props = properties(util, type);
+        if (props == null) return;
+        var iface = ClassName.get(type);
+        var name = binaryName(type);
+        var spec = TypeSpec.classBuilder(name)
+                           .addJavadoc("Binary backend of {@link $T}, generated by {@code $L}.\n", iface,
+                                       BinaryProcessor.class.getSimpleName())
+                           .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                           .addSuperinterface(iface)
+                           .addSuperinterface(DATA_BINARY)
+                           //!! Data.Binary is inherited as a member type named Binary
+                           .alwaysQualify(BINARY.simpleName());
+        var all = MethodSpec.constructorBuilder().addModifiers(Modifier.PUBLIC);
+        var of = MethodSpec.methodBuilder("of")
+                           .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                           .addParameter(iface, "v")
+                           .returns(name);
+        var args = CodeBlock.builder();
+        var encode = MethodSpec.methodBuilder("encode")
+                               .addJavadoc("write properties of value in declaration order.\n")
+                               .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                               .addParameter(BINARY, "b")
+                               .addParameter(iface, "v")
+                               .returns(BINARY);
+        var read = MethodSpec.methodBuilder("read")
+                             .addParameter(BINARY, "b");
+        var json = CodeBlock.builder().add("return new $T()", JSON_OBJECT);
+        for (var p : props) {
+            var t = TypeName.get(p.type);
+            spec.addField(t, p.name, Modifier.PRIVATE);
+            //!! values() clones the constants on each call
+            if (p.kind == Kind.ENUM)
+                spec.addField(FieldSpec.builder(ArrayTypeName.of(t), p.name + "$values",
+                                                Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                                       .initializer("$T.values()", t)
+                                       .build());
+            spec.addMethod(MethodSpec.methodBuilder(p.name)
+                                     .addAnnotation(Override.class)
+                                     .addModifiers(Modifier.PUBLIC)
+                                     .returns(t)
+                                     .addStatement("return $L", p.name)
+                                     .build());
+            all.addParameter(t, p.name).addStatement("this.$L = $L", p.name, p.name);
+            if (!args.isEmpty()) args.add(", ");
+            args.add("v.$L()", p.name);
+            write(encode, p);
+            read(read, p);
+            json.add("\n.put($S, $L)", p.name, json(p));
+        }
+        encode.addStatement("return b");
+        of.addStatement("return v instanceof $T x ? x : new $T($L)", name, name, args.build());
+        spec.addMethod(MethodSpec.constructorBuilder()
+                                 .addJavadoc("for {@code ClusterSerializable}\n")
+                                 .addModifiers(Modifier.PUBLIC)
+                                 .build());
+        if (!props.isEmpty()) spec.addMethod(all.build());
+        spec.addMethod(of.build())
+            .addMethod(encode.build())
+            .addMethod(MethodSpec.methodBuilder("decode")
+                                 .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                                 .addParameter(BINARY, "b")
+                                 .returns(name)
+                                 .addStatement("var v = new $T()", name)
+                                 .addStatement("v.read(b)")
+                                 .addStatement("return v")
+                                 .build())
+            .addMethod(read.build())
+            .addMethod(MethodSpec.methodBuilder("writeToBuffer")
+                                 .addAnnotation(Override.class)
+                                 .addModifiers(Modifier.PUBLIC)
+                                 .addParameter(BUFFER, "buffer")
+                                 .addStatement("encode($T.of(buffer, false), this)", BINARY)
+                                 .build())
+            .addMethod(MethodSpec.methodBuilder("readFromBuffer")
+                                 .addAnnotation(Override.class)
+                                 .addModifiers(Modifier.PUBLIC)
+                                 .addParameter(int.class, "pos")
+                                 .addParameter(BUFFER, "buffer")
+                                 .returns(int.class)
+                                 .addStatement("var b = $T.of(buffer.slice(pos, buffer.length()), false)", BINARY)
+                                 .addStatement("read(b)")
+                                 .addStatement("return pos + b.pos()")
+                                 .build())
+            .addMethod(MethodSpec.methodBuilder("$toJson")
+                                 .addAnnotation(Override.class)
+                                 .addModifiers(Modifier.PUBLIC)
+                                 .returns(JSON_OBJECT)
+                                 .addStatement(json.build())
+                                 .build())
+            .addMethod(MethodSpec.methodBuilder("toString")
+                                 .addAnnotation(Override.class)
+                                 .addModifiers(Modifier.PUBLIC)
+                                 .returns(String.class)
+                                 .addStatement("return $$toJson().encode()")
+                                 .build())
+            .addOriginatingElement(type);
+        JavaFile.builder(name.packageName(), spec.build())
+                .skipJavaLangImports(true)
+                .build()
+                .writeTo(util.filer());
+        if (util.debug()) util.info(type, "generated {}", name);
+    }
+
+    static void write(MethodSpec.Builder m, Property p) {
+        var v = "v." + p.name + "()";
+        if (p.flagged()) {
+            m.addStatement("var $L$$ = $L", p.name, v);
+            m.addStatement("b.$$b($L$$ != null)", p.name);
+            m.beginControlFlow("if ($L$$ != null)", p.name);
+            v = p.name + "$";
+        }
+        switch (p.kind) {
+            case I8 -> m.addStatement("b.$$i8($L)", v);
+            case I16, CHAR -> m.addStatement("b.$$z32($L)", v);
+            case ENUM -> m.addStatement("b.$$z32($L == null ? -1 : $L.ordinal())", v, v);
+            case UUID -> m.addStatement("b.$$i64($L.getMostSignificantBits()).$$i64($L.getLeastSignificantBits())", v, v);
+            case INSTANT -> m.addStatement("b.$$z64($L.getEpochSecond()).$$v32($L.getNano())", v, v);
+            case NESTED -> m.addStatement("$T.encode(b, $L)", nested(p), v);
+            default -> m.addStatement("b.$L($L)", p.kind.codec, v);
+        }
+        if (p.flagged()) m.endControlFlow();
+    }
+
+    static void read(MethodSpec.Builder m, Property p) {
+        if (p.kind == Kind.ENUM) {
+            m.addStatement("var $L$$ = b.$$z32()", p.name);
+            m.beginControlFlow("if ($L$$ < -1 || $L$$ >= $L$$values.length)", p.name, p.name, p.name)
+             .addStatement("throw new IllegalArgumentException($S + $L$$)",
+                           "unknown ordinal of " + TypeName.get(p.type) + ": ", p.name)
+             .endControlFlow();
+            m.addStatement("this.$L = $L$$ < 0 ? null : $L$$values[$L$$]", p.name, p.name, p.name, p.name);
+            return;
+        }
+        var r = switch (p.kind) {
+            case I16 -> CodeBlock.of("(short) b.$$z32()");
+            case CHAR -> CodeBlock.of("(char) b.$$z32()");
+            case UUID -> CodeBlock.of("new $T(b.$$i64(), b.$$i64())", TypeName.get(p.type));
+            case INSTANT -> CodeBlock.of("$T.ofEpochSecond(b.$$z64(), b.$$v32())", TypeName.get(p.type));
+            case NESTED -> CodeBlock.of("$T.decode(b)", nested(p));
+            default -> CodeBlock.of("b.$L()", p.kind.codec);
+        };
+        if (p.flagged()) m.addStatement("this.$L = b.$$b() ? $L : null", p.name, r);
+        else m.addStatement("this.$L = $L", p.name, r);
+    }
+
+    static CodeBlock json(Property p) {
+        return switch (p.kind) {
+            case CHAR -> p.boxed ? CodeBlock.of("$L == null ? null : String.valueOf($L)", p.name, p.name)
+                                 : CodeBlock.of("String.valueOf($L)", p.name);
+            case ENUM -> CodeBlock.of("$L == null ? null : $L.name()", p.name, p.name);
+            case UUID -> CodeBlock.of("$L == null ? null : $L.toString()", p.name, p.name);
+            case NESTED -> CodeBlock.of("$L == null ? null : $L.of($L).$$toJson()", p.name, nested(p), p.name);
+            case I32S, I64S, F64S ->
+                    CodeBlock.of("$L == null ? null : new $T($T.stream($L).boxed().toList())", p.name, JSON_ARRAY, ARRAYS, p.name);
+            default -> CodeBlock.of("$L", p.name);
+        };
+    }
+
+    static ClassName nested(Property p) {
+        return binaryName((TypeElement) ((DeclaredType) p.type).asElement());
+    }
+}
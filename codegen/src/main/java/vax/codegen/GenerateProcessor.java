@@ -37,7 +37,7 @@ public class GenerateProcessor extends AbstractProcessor {
         return SourceVersion.latestSupported();
     }
 
-    final List<Processor> apt = ServiceLoader.load(Processor.class)
+    final List<Processor> apt = ServiceLoader.load(Processor.class, GenerateProcessor.class.getClassLoader())
                                              .stream().map(ServiceLoader.Provider::get)
                                              .distinct()
                                              .sorted(Comparator.comparing(Processor::order))
@@ -0,0 +1,222 @@
+package vax.codegen;
+
+import com.google.auto.service.AutoService;
+import com.squareup.javapoet.*;
+import lombok.SneakyThrows;
+import vax.common.Vax;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import java.lang.annotation.Annotation;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Generate a monomorphic Row mapper for each Storage annotated with {@link Vax.Mapper}.<br/>
+ * Columns are the {@code Storage.Field} members of the storage (inherited included),
+ * each record component of the entity is read from the member with same name by a direct typed getter.
+ * The column index of a member is resolved once by its name in {@code $order()} (the {@code fieldNames()})
+ * of the storage instance, which is the order of selected columns.
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+@AutoService(Processor.class)
+public class MapperProcessor implements Processor {
+    static final String STORAGE = "vax.query.Storage";
+    static final String FIELD = "vax.query.Storage.Field";
+    static final ClassName ROW = ClassName.get("io.vertx.sqlclient", "Row");
+    /**
+     * typed getters of Row, by qualified name of value type.
+     */
+    static final Map<String, String> GETTERS = Map.ofEntries(
+            Map.entry("java.lang.Boolean", "getBoolean"),
+            Map.entry("java.lang.Short", "getShort"),
+            Map.entry("java.lang.Integer", "getInteger"),
+            Map.entry("java.lang.Long", "getLong"),
+            Map.entry("java.lang.Float", "getFloat"),
+            Map.entry("java.lang.Double", "getDouble"),
+            Map.entry("java.lang.String", "getString"),
+            Map.entry("java.math.BigDecimal", "getBigDecimal"),
+            Map.entry("java.util.UUID", "getUUID"),
+            Map.entry("java.time.LocalDate", "getLocalDate"),
+            Map.entry("java.time.LocalTime", "getLocalTime"),
+            Map.entry("java.time.LocalDateTime", "getLocalDateTime"),
+            Map.entry("java.time.OffsetTime", "getOffsetTime"),
+            Map.entry("java.time.OffsetDateTime", "getOffsetDateTime"),
+            Map.entry("io.vertx.core.buffer.Buffer", "getBuffer"),
+            Map.entry("io.vertx.core.json.JsonObject", "getJsonObject"),
+            Map.entry("io.vertx.core.json.JsonArray", "getJsonArray")
+                                                              );
+
+    @Override
+    public Set<Class<? extends Annotation>> accepted() {
+        return Set.of(Vax.Mapper.class);
+    }
+
+    @Override
+    public boolean handle(boolean skip, Util util, Set<? extends TypeElement> types) {
+        for (var t : util.types(util.roundEnv().getElementsAnnotatedWith(Vax.Mapper.class))) {
+            if (t.getAnnotation(Vax.class) == null) {
+                util.warn(t, "@Vax.Mapper without @Vax is ignored: {}", t);
+                continue;
+            }
+            generate(util, t);
+        }
+        return skip;
+    }
+
+    @SneakyThrows
+    void generate(Util util, TypeElement storage) {
+        var base = util.getTypeElement(STORAGE);
+        var field = util.getTypeElement(FIELD);
+        if (base == null || field == null) {
+            util.error(storage, "vax-query is not in classpath: {}", storage);
+            return;
+        }
+        var entity = argument(util, storage.asType(), base);
+        var record = entity == null ? null : util.asTypeElement(entity).orElse(null);
+        if (record == null || record.getKind() != ElementKind.RECORD) {
+            util.error(storage, "entity of {} should be a record: {}", storage, entity);
+            return;
+        }
+        var columns = new LinkedHashMap<String, TypeMirror>();
+        var holder = (DeclaredType) storage.asType();
+        for (var t = storage; t != null && !t.equals(base); t = superclass(util, t)) {
+            for (var f : ElementFilter.fieldsIn(t.getEnclosedElements())) {
+                if (f.getModifiers().contains(Modifier.STATIC)) continue;
+                var v = argument(util, util.asMemberOf(holder, f), field);
+                if (v == null) continue;
+                if (f.getModifiers().contains(Modifier.PRIVATE)) {
+                    util.error(f, "column {} of {} should not be private", f.getSimpleName(), storage);
+                    return;
+                }
+                columns.putIfAbsent(f.getSimpleName().toString(), v);
+            }
+        }
+        var entityName = ClassName.get(record);
+        var storageName = ClassName.get(storage);
+        var name = ClassName.get(storageName.packageName(), String.join("", storageName.simpleNames()) + "Mapper");
+        var type = TypeSpec.classBuilder(name)
+                           .addJavadoc("Row mapper of {@link $T}, generated by {@code $L}.\n", storageName,
+                                       MapperProcessor.class.getSimpleName())
+                           .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                           .addSuperinterface(ParameterizedTypeName.get(ClassName.get(Function.class), ROW, entityName));
+        var ctor = MethodSpec.constructorBuilder()
+                             .addModifiers(Modifier.PUBLIC)
+                             .addParameter(storageName, "storage")
+                             .addStatement("var order = storage.$$order()");
+        var body = CodeBlock.builder();
+        var args = CodeBlock.builder();
+        var components = record.getRecordComponents();
+        for (int i = 0; i < components.size(); i++) {
+            var c = components.get(i);
+            var n = c.getSimpleName().toString();
+            var v = columns.get(n);
+            if (v == null) {
+                util.error(c, "missing column {} of {} in {}", n, record, storage);
+                return;
+            }
+            if (!util.isAssignable(v, c.asType())) {
+                util.error(c, "column {} of {} is {} not assignable to {}", n, storage, v, c.asType());
+                return;
+            }
+            type.addField(int.class, "c" + i, Modifier.PRIVATE, Modifier.FINAL);
+            ctor.addStatement("this.c$L = column(order, storage.$L.name)", i, n);
+            read(util, c, body, "v" + i, "c" + i, v, c.asType());
+            if (!args.isEmpty()) args.add(", ");
+            args.add("v$L", i);
+        }
+        body.addStatement("return new $T($L)", entityName, args.build());
+        type.addMethod(ctor.build())
+            .addMethod(MethodSpec.methodBuilder("column")
+                                 .addModifiers(Modifier.STATIC)
+                                 .addParameter(ParameterizedTypeName.get(List.class, String.class), "order")
+                                 .addParameter(String.class, "name")
+                                 .returns(int.class)
+                                 .addStatement("var i = order.indexOf(name)")
+                                 .addStatement("if (i < 0) throw new $T($S + name)", IllegalStateException.class,
+                                               "missing column in fieldNames: ")
+                                 .addStatement("return i")
+                                 .build())
+            .addMethod(MethodSpec.methodBuilder("apply")
+                                 .addAnnotation(Override.class)
+                                 .addModifiers(Modifier.PUBLIC)
+                                 .addParameter(ROW, "row")
+                                 .returns(entityName)
+                                 .addCode(body.build())
+                                 .build());
+        type.addOriginatingElement(storage);
+        JavaFile.builder(name.packageName(), type.build())
+                .skipJavaLangImports(true)
+                .build()
+                .writeTo(util.filer());
+        if (util.debug()) util.info(storage, "generated {}", name);
+    }
+
+    /**
+     * render read of one column into a local variable.
+     *
+     * @param at the record component
+     * @param i  the expression of column index
+     * @param v  the column value type
+     * @param c  the target component type
+     */
+    static void read(Util util, Element at, CodeBlock.Builder b, String local, String i, TypeMirror v, TypeMirror c) {
+        var qn = util.asTypeElement(v).map(x -> x.getQualifiedName().toString()).orElse("");
+        var getter = GETTERS.get(qn);
+        if (c.getKind().isPrimitive()) {
+            if (getter == null) {
+                util.error(at, "unsupported primitive column type {}", v);
+                return;
+            }
+            b.addStatement("var $L$$ = row.$L($L)", local, getter, i);
+            b.addStatement("$T $L = $L$$ == null ? $L : $L$$", c, local, local, zero(c.getKind()), local);
+        } else if (getter != null) {
+            b.addStatement("var $L = row.$L($L)", local, getter, i);
+        } else if (v.getKind() == TypeKind.ARRAY && util.isSameType(v, util.getArrayType(util.getPrimitiveType(TypeKind.BYTE)))) {
+            b.addStatement("var $L$$ = row.getBuffer($L)", local, i);
+            b.addStatement("var $L = $L$$ == null ? null : $L$$.getBytes()", local, local, local);
+        } else if (qn.equals("java.time.Instant")) {
+            b.addStatement("var $L$$ = row.getOffsetDateTime($L)", local, i);
+            b.addStatement("var $L = $L$$ == null ? null : $L$$.toInstant()", local, local, local);
+        } else {
+            b.addStatement("var $L = row.get($T.class, $L)", local, TypeName.get(util.erasure(v)), i);
+        }
+    }
+
+    static String zero(TypeKind k) {
+        return switch (k) {
+            case BOOLEAN -> "false";
+            case LONG -> "0L";
+            case FLOAT -> "0F";
+            case DOUBLE -> "0D";
+            case CHAR -> "'\\0'";
+            default -> "0";
+        };
+    }
+
+    static TypeElement superclass(Util util, TypeElement t) {
+        return util.asTypeElement(t.getSuperclass()).orElse(null);
+    }
+
+    /**
+     * @return the first type argument of type as a subtype of generic, null if not a subtype.
+     */
+    static TypeMirror argument(Util util, TypeMirror type, TypeElement generic) {
+        if (type instanceof DeclaredType dt && dt.asElement().equals(generic)) {
+            return dt.getTypeArguments().isEmpty() ? null : dt.getTypeArguments().get(0);
+        }
+        for (var s : util.directSupertypes(type)) {
+            var a = argument(util, s, generic);
+            if (a != null) return a;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,130 @@
+package vax.codegen;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import vax.common.units.Binary;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * compile samples with the processor, then round-trip the generated types.
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+class BinaryProcessorTest {
+    static final String SAMPLE = """
+            package sample;
+
+            import vax.common.Vax;
+
+            public interface Sample {
+                interface Named {
+                    String name();
+                }
+
+                interface Sized {
+                    int size();
+
+                    //!! redeclared by Point, keeps the position here
+                    long id();
+                }
+
+                enum Color {RED, GREEN}
+
+                @Vax
+                @Vax.Binary
+                interface Point extends Named, Sized {
+                    long id();
+
+                    double x();
+
+                    Integer z();
+
+                    Color color();
+
+                    int[] tags();
+
+                    default String $label() {
+                        return name() + ":" + id();
+                    }
+                }
+            }
+            """;
+
+    static JavaFileObject source(String name, String code) {
+        return new SimpleJavaFileObject(URI.create("string:///" + name.replace('.', '/') + ".java"),
+                                        JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+    static ClassLoader compile(Path out, JavaFileObject... sources) {
+        var javac = ToolProvider.getSystemJavaCompiler();
+        var diagnostics = new DiagnosticCollector<JavaFileObject>();
+        var task = javac.getTask(null, null, diagnostics,
+                                 List.of("-d", out.toString(), "-s", out.toString(),
+                                         "-classpath", System.getProperty("java.class.path")),
+                                 null, List.of(sources));
+        task.setProcessors(List.of(new GenerateProcessor()));
+        assertTrue(task.call(), () -> diagnostics.getDiagnostics().toString());
+        return new URLClassLoader(new URL[]{toURL(out)}, BinaryProcessorTest.class.getClassLoader());
+    }
+
+    static URL toURL(Path p) {
+        try {
+            return p.toUri().toURL();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void roundTrip(@TempDir Path out) throws Exception {
+        var loader = compile(out, source("sample.Sample", SAMPLE));
+        var type = loader.loadClass("sample.SamplePointBinary");
+        var color = loader.loadClass("sample.Sample$Color");
+        var ctor = type.getConstructor(String.class, int.class, long.class, double.class, Integer.class, color,
+                                       int[].class);
+        var v = ctor.newInstance("p", 3, 1L << 40, 1.5, null, color.getEnumConstants()[1], new int[]{1, -2, 3});
+        var json = (JsonObject) type.getMethod("$toJson").invoke(v);
+        assertEquals(List.of("name", "size", "id", "x", "z", "color", "tags"), List.copyOf(json.fieldNames()));
+
+        var b = Binary.of(64, false);
+        var iface = loader.loadClass("sample.Sample$Point");
+        type.getMethod("encode", Binary.class, iface).invoke(null, b, v);
+        var decoded = type.getMethod("decode", Binary.class).invoke(null, Binary.of(b.$raw(), false));
+        assertEquals(json, type.getMethod("$toJson").invoke(decoded));
+        assertArrayEquals(new int[]{1, -2, 3}, (int[]) type.getMethod("tags").invoke(decoded));
+        assertNull(type.getMethod("z").invoke(decoded));
+    }
+
+    @Test
+    void unknownOrdinal(@TempDir Path out) throws Exception {
+        var loader = compile(out, source("sample.Sample", SAMPLE));
+        var type = loader.loadClass("sample.SamplePointBinary");
+        var decode = type.getMethod("decode", Binary.class);
+        for (var ordinal : new int[]{2, -2}) {
+            var b = Binary.of(64, false).text("p").$z32(3).$z64(1).$f64(1.5).$b(false).$z32(ordinal).$b(false);
+            var e = assertThrows(InvocationTargetException.class, () -> decode.invoke(null, b));
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        }
+        var b = Binary.of(64, false).text("p").$z32(3).$z64(1).$f64(1.5).$b(false).$z32(-1).$b(false);
+        assertNull(type.getMethod("color").invoke(decode.invoke(null, b)));
+    }
+}
@@ -0,0 +1,185 @@
+package vax.codegen;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.impl.ArrayTuple;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static vax.codegen.BinaryProcessorTest.source;
+
+/**
+ * compile a sample storage with the processor, then map rows by the generated mapper.
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+class MapperProcessorTest {
+    //!! Storage.Field is only extensible in its package
+    static final String COLUMN = """
+            package vax.query;
+
+            public class Column<T> extends Storage.Field<T, Column<T>> {
+                public Column(String name) {
+                    this.name = name;
+                }
+
+                @Override
+                Column<T> _me() {
+                    return this;
+                }
+            }
+            """;
+    static final String BASE = """
+            package sample;
+
+            import vax.query.Column;
+            import vax.query.Storage;
+
+            public abstract class Base<T, S extends Base<T, ?>> extends Storage<T, S> {
+                public Column<Long> id = new Column<>("id");
+            }
+            """;
+    static final String ITEM = """
+            package sample;
+
+            import java.time.Instant;
+
+            public record Item(long id, String name, int count, byte[] data, Instant at, Integer age) {}
+            """;
+    static final String STORAGE = """
+            package sample;
+
+            import io.vertx.sqlclient.Row;
+            import vax.common.Vax;
+            import vax.query.Column;
+            import vax.query.Model;
+            import vax.query.Storage;
+
+            import java.time.Instant;
+            import java.util.List;
+            import java.util.Map;
+            import java.util.function.Function;
+
+            @Vax
+            @Vax.Mapper
+            public class ItemStorage extends Base<Item, ItemStorage> {
+                public Column<String> name = new Column<>("name");
+                Column<Integer> count = new Column<>("count");
+                public Column<byte[]> data = new Column<>("data");
+                public Column<Instant> at = new Column<>("at");
+                public Column<Integer> age = new Column<>("age");
+                private final List<String> order;
+
+                public ItemStorage(List<String> order) {
+                    this.order = order;
+                }
+
+                @Override
+                protected ItemStorage _me() {
+                    return this;
+                }
+
+                @Override
+                protected Storage.Field<Item, ?> field(String name) {
+                    return null;
+                }
+
+                @Override
+                protected List<String> fieldNames() {
+                    return order;
+                }
+
+                @Override
+                protected Map<String, Model.Field<?>> fields() {
+                    return Map.of("id", id, "name", name, "count", count, "data", data, "at", at, "age", age);
+                }
+
+                @Override
+                public Function<Row, Item> $mapper() {
+                    return new ItemStorageMapper(this);
+                }
+            }
+            """;
+    static final List<String> ORDER = List.of("age", "at", "data", "count", "name", "id");
+
+    static class TestRow extends ArrayTuple implements Row {
+        final List<String> names;
+
+        TestRow(List<String> names, Object... values) {
+            super(Arrays.asList(values));
+            this.names = names;
+        }
+
+        @Override
+        public String getColumnName(int pos) {
+            return names.get(pos);
+        }
+
+        @Override
+        public int getColumnIndex(String name) {
+            return names.indexOf(name);
+        }
+    }
+
+    static ClassLoader compile(Path out) {
+        return BinaryProcessorTest.compile(out, source("vax.query.Column", COLUMN), source("sample.Base", BASE),
+                                           source("sample.Item", ITEM), source("sample.ItemStorage", STORAGE));
+    }
+
+    @SuppressWarnings("unchecked")
+    static Function<Row, Object> mapper(ClassLoader loader, List<String> order) throws Exception {
+        var storage = loader.loadClass("sample.ItemStorage").getConstructor(List.class).newInstance(order);
+        return (Function<Row, Object>) storage.getClass().getMethod("$mapper").invoke(storage);
+    }
+
+    static Object get(Object item, String component) throws Exception {
+        return item.getClass().getMethod(component).invoke(item);
+    }
+
+    @Test
+    void map(@TempDir Path out) throws Exception {
+        var loader = compile(out);
+        var m = mapper(loader, ORDER);
+        assertEquals("ItemStorageMapper", m.getClass().getSimpleName());
+        var at = OffsetDateTime.of(2025, 3, 10, 8, 0, 0, 0, ZoneOffset.ofHours(8));
+        var item = m.apply(new TestRow(ORDER, 7, at, Buffer.buffer(new byte[]{1, 2}), 3, "a", 42L));
+        assertEquals(42L, get(item, "id"));
+        assertEquals("a", get(item, "name"));
+        assertEquals(3, get(item, "count"));
+        assertArrayEquals(new byte[]{1, 2}, (byte[]) get(item, "data"));
+        assertEquals(Instant.parse("2025-03-10T00:00:00Z"), get(item, "at"));
+        assertEquals(7, get(item, "age"));
+    }
+
+    @Test
+    void nulls(@TempDir Path out) throws Exception {
+        var loader = compile(out);
+        var item = mapper(loader, ORDER).apply(new TestRow(ORDER, null, null, null, null, null, null));
+        //!! primitive components default to zero
+        assertEquals(0L, get(item, "id"));
+        assertEquals(0, get(item, "count"));
+        assertNull(get(item, "name"));
+        assertNull(get(item, "data"));
+        assertNull(get(item, "at"));
+        assertNull(get(item, "age"));
+    }
+
+    @Test
+    void missingColumn(@TempDir Path out) throws Exception {
+        var loader = compile(out);
+        var e = assertThrows(InvocationTargetException.class, () -> mapper(loader, List.of("id", "name")));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertTrue(e.getCause().getMessage().endsWith("count"), e.getCause().getMessage());
+    }
+}
@@ -30,6 +30,14 @@ public @interface Vax {
     @interface Pojo {
     }
 
+    /**
+     * generate a monomorphic Row mapper for a Storage type, the entity type must be a record.
+     */
+    @Retention(RetentionPolicy.CLASS)
+    @Target(ElementType.TYPE)
+    @interface Mapper {
+    }
+
     /**
      * generate event-bus proxy, only allow for XDomain.
      */
@@ -1,15 +1,22 @@
 package vax.common.units;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Future;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.WriteStream;
 import org.jetbrains.annotations.Nullable;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -27,7 +34,7 @@ import java.util.function.Function;
  * @author Zen.Liu
  * @since 2024-10-13
  */
-public sealed interface Binary extends Buffer permits Binary.Impl {
+public sealed interface Binary extends Buffer permits Binary.Delegated {
     static Binary of(Buffer buffer) {
         return buffer instanceof Binary b ? b : new Impl(buffer);
     }
@@ -44,12 +51,61 @@ public sealed interface Binary extends Buffer permits Binary.Impl {
         return new Impl(Buffer.buffer());
     }
 
-    Buffer $raw();
+    /**
+     * @param shared false for a plain (non atomic) read position, which must be confined to one thread.
+     */
+    static Binary of(Buffer buffer, boolean shared) {
+        if (shared) return of(buffer);
+        if (buffer instanceof Plain b) return b;
+        return buffer instanceof Binary b ? new Plain(b.$raw(), b.pos()) : new Plain(buffer, 0);
+    }
+
+    /**
+     * @see #of(Buffer, boolean)
+     */
+    static Binary of(byte[] buffer, boolean shared) {
+        return shared ? of(buffer) : new Plain(Buffer.buffer(buffer), 0);
+    }
+
+    /**
+     * @see #of(Buffer, boolean)
+     */
+    static Binary of(int capacity, boolean shared) {
+        return shared ? of(capacity) : new Plain(Buffer.buffer(capacity), 0);
+    }
+
+    /**
+     * @param capacity the initial capacity
+     * @return a pooled direct buffer
+     * @see Pooled
+     */
+    static Pooled pooled(int capacity) {
+        return new Pooled(PooledByteBufAllocator.DEFAULT.directBuffer(capacity));
+    }
+
+    static Pooled pooled() {
+        return pooled(256);
+    }
 
     /**
-     * @return internal read position
+     * @param parts the parts joined in order without copy
+     * @see Composite
      */
-    AtomicInteger $p();
+    static Composite composite(Buffer... parts) {
+        //!! never consolidate: exceeding maxNumComponents copies all parts into one buffer
+        var c = new Composite(Unpooled.compositeBuffer(Integer.MAX_VALUE));
+        for (var p : parts) c.add(p);
+        return c;
+    }
+
+    /**
+     * @return the underlying buffer of a Binary, vert.x buffers only accept their own implementation.
+     */
+    static Buffer raw(Buffer b) {
+        return b instanceof Binary x ? x.$raw() : b;
+    }
+
+    Buffer $raw();
 
     /**
      * @param n amount of bytes will be read.
@@ -66,469 +122,520 @@ public sealed interface Binary extends Buffer permits Binary.Impl {
 
     int pos();
 
-    record Impl(Buffer $raw, AtomicInteger $p) implements Binary {
-        Impl(Buffer $raw) {
-            this($raw, new AtomicInteger());
+    /**
+     * all buffer operations delegated to {@link #$raw()}, implementations only manage the read position.
+     */
+    sealed interface Delegated extends Binary permits Impl, Plain, Pooled, Composite {
+        @Override
+        default JsonObject toJsonObject() {
+            return $raw().toJsonObject();
         }
 
         @Override
-        public int pos() {
-            return $p.get();
+        default JsonArray toJsonArray() {
+            return $raw().toJsonArray();
         }
 
         @Override
-        public int $pos(int n) {
-            return $p.getAndAdd(n);
+        default Object toJsonValue() {
+            return $raw().toJsonValue();
         }
 
         @Override
-        public String toString() {
-            return $raw.toString();
+        @Deprecated
+        default Object toJson() {
+            return $raw().toJson();
         }
 
         @Override
-        public String toString(String enc) {
-            return $raw.toString(enc);
+        default byte getByte(int pos) {
+            return $raw().getByte(pos);
         }
 
         @Override
-        public String toString(Charset enc) {
-            return $raw.toString(enc);
+        default short getUnsignedByte(int pos) {
+            return $raw().getUnsignedByte(pos);
         }
 
         @Override
-        public JsonObject toJsonObject() {
-            return $raw.toJsonObject();
+        default int getInt(int pos) {
+            return $raw().getInt(pos);
         }
 
         @Override
-        public JsonArray toJsonArray() {
-            return $raw.toJsonArray();
+        default int getIntLE(int pos) {
+            return $raw().getIntLE(pos);
         }
 
         @Override
-        public Object toJsonValue() {
-            return $raw.toJsonValue();
+        default long getUnsignedInt(int pos) {
+            return $raw().getUnsignedInt(pos);
         }
 
         @Override
-        @Deprecated
-        public Object toJson() {
-            return $raw.toJson();
+        default long getUnsignedIntLE(int pos) {
+            return $raw().getUnsignedIntLE(pos);
+        }
+
+        @Override
+        default long getLong(int pos) {
+            return $raw().getLong(pos);
         }
 
         @Override
-        public byte getByte(int pos) {
-            return $raw.getByte(pos);
+        default long getLongLE(int pos) {
+            return $raw().getLongLE(pos);
         }
 
         @Override
-        public short getUnsignedByte(int pos) {
-            return $raw.getUnsignedByte(pos);
+        default double getDouble(int pos) {
+            return $raw().getDouble(pos);
         }
 
         @Override
-        public int getInt(int pos) {
-            return $raw.getInt(pos);
+        default float getFloat(int pos) {
+            return $raw().getFloat(pos);
         }
 
         @Override
-        public int getIntLE(int pos) {
-            return $raw.getIntLE(pos);
+        default short getShort(int pos) {
+            return $raw().getShort(pos);
         }
 
         @Override
-        public long getUnsignedInt(int pos) {
-            return $raw.getUnsignedInt(pos);
+        default short getShortLE(int pos) {
+            return $raw().getShortLE(pos);
         }
 
         @Override
-        public long getUnsignedIntLE(int pos) {
-            return $raw.getUnsignedIntLE(pos);
+        default int getUnsignedShort(int pos) {
+            return $raw().getUnsignedShort(pos);
         }
 
         @Override
-        public long getLong(int pos) {
-            return $raw.getLong(pos);
+        default int getUnsignedShortLE(int pos) {
+            return $raw().getUnsignedShortLE(pos);
         }
 
         @Override
-        public long getLongLE(int pos) {
-            return $raw.getLongLE(pos);
+        default int getMedium(int pos) {
+            return $raw().getMedium(pos);
         }
 
         @Override
-        public double getDouble(int pos) {
-            return $raw.getDouble(pos);
+        default int getMediumLE(int pos) {
+            return $raw().getMediumLE(pos);
         }
 
         @Override
-        public float getFloat(int pos) {
-            return $raw.getFloat(pos);
+        default int getUnsignedMedium(int pos) {
+            return $raw().getUnsignedMedium(pos);
         }
 
         @Override
-        public short getShort(int pos) {
-            return $raw.getShort(pos);
+        default int getUnsignedMediumLE(int pos) {
+            return $raw().getUnsignedMediumLE(pos);
         }
 
         @Override
-        public short getShortLE(int pos) {
-            return $raw.getShortLE(pos);
+        default byte[] getBytes() {
+            return $raw().getBytes();
         }
 
         @Override
-        public int getUnsignedShort(int pos) {
-            return $raw.getUnsignedShort(pos);
+        default byte[] getBytes(int start, int end) {
+            return $raw().getBytes(start, end);
         }
 
         @Override
-        public int getUnsignedShortLE(int pos) {
-            return $raw.getUnsignedShortLE(pos);
+        default Binary getBytes(byte[] dst) {
+            $raw().getBytes(dst);
+            return this;
         }
 
         @Override
-        public int getMedium(int pos) {
-            return $raw.getMedium(pos);
+        default Binary getBytes(byte[] dst, int dstIndex) {
+            $raw().getBytes(dst, dstIndex);
+            return this;
         }
 
         @Override
-        public int getMediumLE(int pos) {
-            return $raw.getMediumLE(pos);
+        default Binary getBytes(int start, int end, byte[] dst) {
+            $raw().getBytes(start, end, dst);
+            return this;
         }
 
         @Override
-        public int getUnsignedMedium(int pos) {
-            return $raw.getUnsignedMedium(pos);
+        default Binary getBytes(int start, int end, byte[] dst, int dstIndex) {
+            $raw().getBytes(start, end, dst, dstIndex);
+            return this;
         }
 
         @Override
-        public int getUnsignedMediumLE(int pos) {
-            return $raw.getUnsignedMediumLE(pos);
+        default Buffer getBuffer(int start, int end) {
+            return $raw().getBuffer(start, end);
         }
 
         @Override
-        public byte[] getBytes() {
-            return $raw.getBytes();
+        default String getString(int start, int end, String enc) {
+            return $raw().getString(start, end, enc);
         }
 
         @Override
-        public byte[] getBytes(int start, int end) {
-            return $raw.getBytes(start, end);
+        default String getString(int start, int end) {
+            return $raw().getString(start, end);
         }
 
         @Override
-        public Binary getBytes(byte[] dst) {
-            $raw.getBytes(dst);
+        default Binary appendBuffer(Buffer buff) {
+            $raw().appendBuffer(raw(buff));
             return this;
         }
 
         @Override
-        public Binary getBytes(byte[] dst, int dstIndex) {
-            $raw.getBytes(dst, dstIndex);
+        default Binary appendBuffer(Buffer buff, int offset, int len) {
+            $raw().appendBuffer(raw(buff), offset, len);
             return this;
         }
 
         @Override
-        public Binary getBytes(int start, int end, byte[] dst) {
-            $raw.getBytes(start, end, dst);
+        default Binary appendBytes(byte[] bytes) {
+            $raw().appendBytes(bytes);
             return this;
         }
 
         @Override
-        public Binary getBytes(int start, int end, byte[] dst, int dstIndex) {
-            $raw.getBytes(start, end, dst, dstIndex);
+        default Binary appendBytes(byte[] bytes, int offset, int len) {
+            $raw().appendBytes(bytes, offset, len);
             return this;
         }
 
         @Override
-        public Buffer getBuffer(int start, int end) {
-            return $raw.getBuffer(start, end);
+        default Binary appendByte(byte b) {
+            $raw().appendByte(b);
+            return this;
         }
 
         @Override
-        public String getString(int start, int end, String enc) {
-            return $raw.getString(start, end, enc);
+        default Binary appendUnsignedByte(short b) {
+            $raw().appendUnsignedByte(b);
+            return this;
         }
 
         @Override
-        public String getString(int start, int end) {
-            return $raw.getString(start, end);
+        default Binary appendInt(int i) {
+            $raw().appendInt(i);
+            return this;
         }
 
         @Override
-        public Binary appendBuffer(Buffer buff) {
-            $raw.appendBuffer(buff);
+        default Binary appendIntLE(int i) {
+            $raw().appendIntLE(i);
             return this;
         }
 
         @Override
-        public Binary appendBuffer(Buffer buff, int offset, int len) {
-            $raw.appendBuffer(buff, offset, len);
+        default Binary appendUnsignedInt(long i) {
+            $raw().appendUnsignedInt(i);
             return this;
         }
 
         @Override
-        public Binary appendBytes(byte[] bytes) {
-            $raw.appendBytes(bytes);
+        default Binary appendUnsignedIntLE(long i) {
+            $raw().appendUnsignedIntLE(i);
             return this;
         }
 
         @Override
-        public Binary appendBytes(byte[] bytes, int offset, int len) {
-            $raw.appendBytes(bytes, offset, len);
+        default Binary appendMedium(int i) {
+            $raw().appendMedium(i);
             return this;
         }
 
         @Override
-        public Binary appendByte(byte b) {
-            $raw.appendByte(b);
+        default Binary appendMediumLE(int i) {
+            $raw().appendMediumLE(i);
             return this;
         }
 
         @Override
-        public Binary appendUnsignedByte(short b) {
-            $raw.appendUnsignedByte(b);
+        default Binary appendLong(long l) {
+            $raw().appendLong(l);
             return this;
         }
 
         @Override
-        public Binary appendInt(int i) {
-            $raw.appendInt(i);
+        default Binary appendLongLE(long l) {
+            $raw().appendLongLE(l);
             return this;
         }
 
         @Override
-        public Binary appendIntLE(int i) {
-            $raw.appendIntLE(i);
+        default Binary appendShort(short s) {
+            $raw().appendShort(s);
             return this;
         }
 
         @Override
-        public Binary appendUnsignedInt(long i) {
-            $raw.appendUnsignedInt(i);
+        default Binary appendShortLE(short s) {
+            $raw().appendShortLE(s);
             return this;
         }
 
         @Override
-        public Binary appendUnsignedIntLE(long i) {
-            $raw.appendUnsignedIntLE(i);
+        default Binary appendUnsignedShort(int s) {
+            $raw().appendUnsignedShort(s);
             return this;
         }
 
         @Override
-        public Binary appendMedium(int i) {
-            $raw.appendMedium(i);
+        default Binary appendUnsignedShortLE(int s) {
+            $raw().appendUnsignedShortLE(s);
             return this;
         }
 
         @Override
-        public Binary appendMediumLE(int i) {
-            $raw.appendMediumLE(i);
+        default Binary appendFloat(float f) {
+            $raw().appendFloat(f);
             return this;
         }
 
         @Override
-        public Binary appendLong(long l) {
-            $raw.appendLong(l);
+        default Binary appendDouble(double d) {
+            $raw().appendDouble(d);
             return this;
         }
 
         @Override
-        public Binary appendLongLE(long l) {
-            $raw.appendLongLE(l);
+        default Binary appendString(String str, String enc) {
+            $raw().appendString(str, enc);
             return this;
         }
 
         @Override
-        public Binary appendShort(short s) {
-            $raw.appendShort(s);
+        default Binary appendString(String str) {
+            $raw().appendString(str);
             return this;
         }
 
         @Override
-        public Binary appendShortLE(short s) {
-            $raw.appendShortLE(s);
+        default Binary setByte(int pos, byte b) {
+            $raw().setByte(pos, b);
             return this;
         }
 
         @Override
-        public Binary appendUnsignedShort(int s) {
-            $raw.appendUnsignedShort(s);
+        default Binary setUnsignedByte(int pos, short b) {
+            $raw().setUnsignedByte(pos, b);
             return this;
         }
 
         @Override
-        public Binary appendUnsignedShortLE(int s) {
-            $raw.appendUnsignedShortLE(s);
+        default Binary setInt(int pos, int i) {
+            $raw().setInt(pos, i);
             return this;
         }
 
         @Override
-        public Binary appendFloat(float f) {
-            $raw.appendFloat(f);
+        default Binary setIntLE(int pos, int i) {
+            $raw().setIntLE(pos, i);
             return this;
         }
 
         @Override
-        public Binary appendDouble(double d) {
-            $raw.appendDouble(d);
+        default Binary setUnsignedInt(int pos, long i) {
+            $raw().setUnsignedInt(pos, i);
             return this;
         }
 
         @Override
-        public Binary appendString(String str, String enc) {
-            $raw.appendString(str, enc);
+        default Binary setUnsignedIntLE(int pos, long i) {
+            $raw().setUnsignedIntLE(pos, i);
             return this;
         }
 
         @Override
-        public Binary appendString(String str) {
-            $raw.appendString(str);
+        default Binary setMedium(int pos, int i) {
+            $raw().setMedium(pos, i);
             return this;
         }
 
         @Override
-        public Binary setByte(int pos, byte b) {
-            $raw.setByte(pos, b);
+        default Binary setMediumLE(int pos, int i) {
+            $raw().setMediumLE(pos, i);
             return this;
         }
 
         @Override
-        public Binary setUnsignedByte(int pos, short b) {
-            $raw.setUnsignedByte(pos, b);
+        default Binary setLong(int pos, long l) {
+            $raw().setLong(pos, l);
             return this;
         }
 
         @Override
-        public Binary setInt(int pos, int i) {
-            $raw.setInt(pos, i);
+        default Binary setLongLE(int pos, long l) {
+            $raw().setLongLE(pos, l);
             return this;
         }
 
         @Override
-        public Binary setIntLE(int pos, int i) {
-            $raw.setIntLE(pos, i);
+        default Binary setDouble(int pos, double d) {
+            $raw().setDouble(pos, d);
             return this;
         }
 
         @Override
-        public Binary setUnsignedInt(int pos, long i) {
-            $raw.setUnsignedInt(pos, i);
+        default Binary setFloat(int pos, float f) {
+            $raw().setFloat(pos, f);
             return this;
         }
 
         @Override
-        public Binary setUnsignedIntLE(int pos, long i) {
-            $raw.setUnsignedIntLE(pos, i);
+        default Binary setShort(int pos, short s) {
+            $raw().setShort(pos, s);
             return this;
         }
 
         @Override
-        public Binary setMedium(int pos, int i) {
-            $raw.setMedium(pos, i);
+        default Binary setShortLE(int pos, short s) {
+            $raw().setShortLE(pos, s);
             return this;
         }
 
         @Override
-        public Binary setMediumLE(int pos, int i) {
-            $raw.setMediumLE(pos, i);
+        default Binary setUnsignedShort(int pos, int s) {
+            $raw().setUnsignedShort(pos, s);
             return this;
         }
 
         @Override
-        public Binary setLong(int pos, long l) {
-            $raw.setLong(pos, l);
+        default Binary setUnsignedShortLE(int pos, int s) {
+            $raw().setUnsignedShortLE(pos, s);
             return this;
         }
 
         @Override
-        public Binary setLongLE(int pos, long l) {
-            $raw.setLongLE(pos, l);
+        default Binary setBuffer(int pos, Buffer b) {
+            $raw().setBuffer(pos, raw(b));
             return this;
         }
 
         @Override
-        public Binary setDouble(int pos, double d) {
-            $raw.setDouble(pos, d);
+        default Binary setBuffer(int pos, Buffer b, int offset, int len) {
+            $raw().setBuffer(pos, raw(b), offset, len);
             return this;
         }
 
         @Override
-        public Binary setFloat(int pos, float f) {
-            $raw.setFloat(pos, f);
+        default Binary setBytes(int pos, ByteBuffer b) {
+            $raw().setBytes(pos, b);
             return this;
         }
 
         @Override
-        public Binary setShort(int pos, short s) {
-            $raw.setShort(pos, s);
+        default Binary setBytes(int pos, byte[] b) {
+            $raw().setBytes(pos, b);
             return this;
         }
 
         @Override
-        public Binary setShortLE(int pos, short s) {
-            $raw.setShortLE(pos, s);
+        default Binary setBytes(int pos, byte[] b, int offset, int len) {
+            $raw().setBytes(pos, b, offset, len);
             return this;
         }
 
         @Override
-        public Binary setUnsignedShort(int pos, int s) {
-            $raw.setUnsignedShort(pos, s);
+        default Binary setString(int pos, String str) {
+            $raw().setString(pos, str);
             return this;
         }
 
         @Override
-        public Binary setUnsignedShortLE(int pos, int s) {
-            $raw.setUnsignedShortLE(pos, s);
+        default Binary setString(int pos, String str, String enc) {
+            $raw().setString(pos, str, enc);
             return this;
         }
 
         @Override
-        public Binary setBuffer(int pos, Buffer b) {
-            $raw.setBuffer(pos, b);
-            return this;
+        default int length() {
+            return $raw().length();
         }
 
         @Override
-        public Binary setBuffer(int pos, Buffer b, int offset, int len) {
-            $raw.setBuffer(pos, b, offset, len);
-            return this;
+        @Deprecated
+        default ByteBuf getByteBuf() {
+            return $raw().getByteBuf();
         }
 
         @Override
-        public Binary setBytes(int pos, ByteBuffer b) {
-            $raw.setBytes(pos, b);
-            return this;
+        default void writeToBuffer(Buffer buffer) {
+            $raw().writeToBuffer(raw(buffer));
         }
 
         @Override
-        public Binary setBytes(int pos, byte[] b) {
-            $raw.setBytes(pos, b);
-            return this;
+        default int readFromBuffer(int pos, Buffer buffer) {
+            return $raw().readFromBuffer(pos, raw(buffer));
         }
 
         @Override
-        public Binary setBytes(int pos, byte[] b, int offset, int len) {
-            $raw.setBytes(pos, b, offset, len);
-            return this;
+        default String toString(String enc) {
+            return $raw().toString(enc);
         }
 
         @Override
-        public Binary setString(int pos, String str) {
-            $raw.setString(pos, str);
-            return this;
+        default String toString(Charset enc) {
+            return $raw().toString(enc);
+        }
+    }
+
+    /**
+     * thread safe read position by {@link AtomicInteger}.
+     */
+    record Impl(Buffer $raw, AtomicInteger $p) implements Delegated {
+        Impl(Buffer $raw) {
+            this($raw, new AtomicInteger());
         }
 
         @Override
-        public Binary setString(int pos, String str, String enc) {
-            $raw.setString(pos, str, enc);
-            return this;
+        public int pos() {
+            return $p.get();
         }
 
         @Override
-        public int length() {
-            return $raw.length();
+        public int $pos(int n) {
+            return $p.getAndAdd(n);
+        }
+
+        /**
+         * decode at a snapshot of position, then claim the read bytes by CAS:
+         * a peek followed by {@link #$pos(int)} races with other readers.
+         */
+        @Override
+        public int $v32() {
+            while (true) {
+                var p = $p.get();
+                var r = new Plain($raw, p);
+                var v = r.$v32();
+                if ($p.compareAndSet(p, r.pos())) return v;
+            }
+        }
+
+        /**
+         * @see #$v32()
+         */
+        @Override
+        public long $v64() {
+            while (true) {
+                var p = $p.get();
+                var r = new Plain($raw, p);
+                var v = r.$v64();
+                if ($p.compareAndSet(p, r.pos())) return v;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return $raw.toString();
         }
 
         @Override
@@ -545,24 +652,211 @@ public sealed interface Binary extends Buffer permits Binary.Impl {
         public Binary slice(int start, int end) {
             return new Impl($raw.slice(start, end));
         }
+    }
+
+    /**
+     * plain int read position, for codecs confined to one thread (eg: an event loop).
+     */
+    final class Plain implements Delegated {
+        private final Buffer $raw;
+        private int p;
+
+        Plain(Buffer $raw, int p) {
+            this.$raw = $raw;
+            this.p = p;
+        }
 
         @Override
-        @Deprecated
-        public ByteBuf getByteBuf() {
-            return $raw.getByteBuf();
+        public Buffer $raw() {
+            return $raw;
+        }
+
+        @Override
+        public int pos() {
+            return p;
+        }
+
+        @Override
+        public int $pos(int n) {
+            var x = p;
+            p = x + n;
+            return x;
+        }
+
+        @Override
+        public String toString() {
+            return $raw.toString();
+        }
+
+        @Override
+        public Binary copy() {
+            return new Plain($raw.copy(), 0);
+        }
+
+        @Override
+        public Binary slice() {
+            return new Plain($raw.slice(), 0);
+        }
+
+        @Override
+        public Binary slice(int start, int end) {
+            return new Plain($raw.slice(start, end), 0);
+        }
+    }
+
+    /**
+     * pooled direct buffer with plain int read position, which must be released exactly once.
+     * <ul>
+     *     <li>{@link #slice()} shares the memory, it's only valid before release.</li>
+     *     <li>{@link #copy()} is another pooled buffer, which should be released too.</li>
+     *     <li>{@link #$raw()} wraps the pooled buffer without copy, Vert.x writes it without release.</li>
+     *     <li>leaks are reported by netty leak detector, enable paranoid level with
+     *     {@code -Dio.netty.leakDetection.level=paranoid} in tests.</li>
+     * </ul>
+     */
+    final class Pooled implements Delegated, AutoCloseable {
+        private final ByteBuf buf;
+        private final Buffer $raw;
+        private int p;
+        /**
+         * {@link #writeTo(WriteStream)} releases on the thread completes the write.
+         */
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Pooled(ByteBuf buf) {
+            this.buf = buf;
+            this.$raw = Buffer.buffer(buf);
+        }
+
+        @Override
+        public Buffer $raw() {
+            return $raw;
+        }
+
+        @Override
+        public int pos() {
+            return p;
+        }
+
+        @Override
+        public int $pos(int n) {
+            var x = p;
+            p = x + n;
+            return x;
+        }
+
+        /**
+         * return the buffer to pool, duplicated release is ignored.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) buf.release();
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+
+        /**
+         * write to stream without copy, then release.
+         */
+        public Future<Void> writeTo(WriteStream<Buffer> stream) {
+            return stream.write($raw).onComplete(x -> release());
         }
 
         @Override
-        public void writeToBuffer(Buffer buffer) {
-            $raw.writeToBuffer(buffer);
+        public String toString() {
+            return $raw.toString();
         }
 
         @Override
-        public int readFromBuffer(int pos, Buffer buffer) {
-            return $raw.readFromBuffer(pos, buffer);
+        public Binary copy() {
+            return new Pooled(buf.copy());
+        }
+
+        @Override
+        public Binary slice() {
+            return new Plain($raw.slice(), 0);
+        }
+
+        @Override
+        public Binary slice(int start, int end) {
+            return new Plain($raw.slice(start, end), 0);
         }
     }
 
+    /**
+     * composite of buffers with plain int read position, reads see one logical stream across parts.
+     * <ul>
+     *     <li>{@link #add(Buffer)} joins a part without copy, parts share memory and should not be modified.</li>
+     *     <li>appends of other methods are copied into the last part (or a new part).</li>
+     *     <li>{@link #$raw()} is written by Vert.x as a gathering write, without copy.</li>
+     *     <li>parts are not retained, pooled parts must be released after the composite is written.</li>
+     * </ul>
+     */
+    final class Composite implements Delegated {
+        private final CompositeByteBuf buf;
+        private final Buffer $raw;
+        private int p;
+
+        Composite(CompositeByteBuf buf) {
+            this.buf = buf;
+            this.$raw = Buffer.buffer(buf);
+        }
+
+        /**
+         * join a part at the end without copy.
+         */
+        @SuppressWarnings("deprecation")
+        public Composite add(Buffer part) {
+            if (part.length() > 0) buf.addComponent(true, raw(part).getByteBuf());
+            return this;
+        }
+
+        /**
+         * @return count of parts
+         */
+        public int parts() {
+            return buf.numComponents();
+        }
+
+        @Override
+        public Buffer $raw() {
+            return $raw;
+        }
+
+        @Override
+        public int pos() {
+            return p;
+        }
+
+        @Override
+        public int $pos(int n) {
+            var x = p;
+            p = x + n;
+            return x;
+        }
+
+        @Override
+        public String toString() {
+            return $raw.toString();
+        }
+
+        @Override
+        public Binary copy() {
+            return new Plain($raw.copy(), 0);
+        }
+
+        @Override
+        public Binary slice() {
+            return new Plain($raw.slice(), 0);
+        }
+
+        @Override
+        public Binary slice(int start, int end) {
+            return new Plain($raw.slice(start, end), 0);
+        }
+    }
 
     //region Fluent
     @Override
@@ -804,9 +1098,131 @@ public sealed interface Binary extends Buffer permits Binary.Impl {
     }
 
     /**
-     * read var int
+     * read var int, decode from one peeked long when 8 bytes readable.
+     * The peek is not atomic with the position update, {@link Impl} claims the bytes by CAS.
      */
     default int $v32() {
+        var p = pos();
+        if (length() - p < 8) return v32();
+        var x = getLongLE(p);
+        var stop = ~x & VAR_STOP;
+        if (stop == 0) return v32();
+        $pos((Long.numberOfTrailingZeros(stop) >>> 3) + 1);
+        return (int) gather(x & (stop ^ (stop - 1)));
+    }
+
+    /**
+     * write var int by at most two appends.
+     */
+    default Binary $v32(int n) {
+        if ((n & ~0x7F) == 0) return appendByte((byte) n);
+        return varint(spread(n & 0xFFFFFFFFL), varSize(n));
+    }
+
+
+    /**
+     * read var long int, decode from one peeked long when 8 bytes readable.
+     * The peek is not atomic with the position update, {@link Impl} claims the bytes by CAS.
+     */
+    default long $v64() {
+        var p = pos();
+        if (length() - p < 8) return v64();
+        var x = getLongLE(p);
+        var stop = ~x & VAR_STOP;
+        if (stop != 0) {
+            $pos((Long.numberOfTrailingZeros(stop) >>> 3) + 1);
+            return gather(x & (stop ^ (stop - 1)));
+        }
+        var v = gather(x);
+        var b8 = getByte(p + 8);
+        if (b8 >= 0) {
+            $pos(9);
+            return v | (long) b8 << 56;
+        }
+        $pos(10);
+        return v | (b8 & 0x7FL) << 56 | (long) getByte(p + 9) << 63;
+    }
+
+    /**
+     * write var long int by at most two appends.
+     */
+    default Binary $v64(long n) {
+        if ((n & ~0x7FL) == 0) return appendByte((byte) n);
+        var size = varSize(n);
+        if (size <= 8) return varint(spread(n), size);
+        appendLongLE(spread(n) | VAR_STOP);
+        if (size == 9) return appendByte((byte) (n >>> 56));
+        return appendShortLE((short) ((n >>> 56) & 0x7F | 0x80 | (n >>> 63) << 8));
+    }
+
+    //region varint
+    /**
+     * continuation bits of 8 bytes.
+     */
+    long VAR_STOP = 0x8080808080808080L;
+
+    /**
+     * @return encoded size of var int, from 1 to 5
+     */
+    static int varSize(int n) {
+        return (31 - Integer.numberOfLeadingZeros(n | 1)) / 7 + 1;
+    }
+
+    /**
+     * @return encoded size of var long int, from 1 to 10
+     */
+    static int varSize(long n) {
+        return (63 - Long.numberOfLeadingZeros(n | 1)) / 7 + 1;
+    }
+
+    /**
+     * @return the low 56 bits as 8 groups of 7 bits, each group in one byte without continuation bit.
+     */
+    static long spread(long v) {
+        return v & 0x7FL
+               | v << 1 & 0x7F00L
+               | v << 2 & 0x7F0000L
+               | v << 3 & 0x7F000000L
+               | v << 4 & 0x7F00000000L
+               | v << 5 & 0x7F0000000000L
+               | v << 6 & 0x7F000000000000L
+               | v << 7 & 0x7F00000000000000L;
+    }
+
+    /**
+     * @return the reverse of {@link #spread(long)}, continuation bits are ignored.
+     */
+    static long gather(long x) {
+        return x & 0x7FL
+               | x >>> 1 & 0x3F80L
+               | x >>> 2 & 0x1FC000L
+               | x >>> 3 & 0xFE00000L
+               | x >>> 4 & 0x7F0000000L
+               | x >>> 5 & 0x3F800000000L
+               | x >>> 6 & 0x1FC0000000000L
+               | x >>> 7 & 0xFE000000000000L;
+    }
+
+    /**
+     * append the first size (2 to 8) bytes of spread value, with continuation bits except the last.
+     */
+    private Binary varint(long x, int size) {
+        x |= VAR_STOP & ((1L << ((size - 1) << 3)) - 1);
+        return switch (size) {
+            case 2 -> appendShortLE((short) x);
+            case 3 -> appendMediumLE((int) x);
+            case 4 -> appendIntLE((int) x);
+            case 5 -> appendIntLE((int) x).appendByte((byte) (x >>> 32));
+            case 6 -> appendIntLE((int) x).appendShortLE((short) (x >>> 32));
+            case 7 -> appendIntLE((int) x).appendMediumLE((int) (x >>> 32));
+            default -> appendLongLE(x);
+        };
+    }
+
+    /**
+     * read var int byte by byte, near the end of buffer.
+     */
+    private int v32() {
         var result = 0;
         var shift = 0;
         var by = $i8();
@@ -819,19 +1235,10 @@ public sealed interface Binary extends Buffer permits Binary.Impl {
         return result;
     }
 
-    default Binary $v32(int n) {
-        while ((n & ~0x7F) != 0) {
-            $i8(((byte) ((n & 0x7F) | 0x80)));
-            n >>>= 7;
-        }
-        return $i8((byte) n); //!Last
-    }
-
-
     /**
-     * read var long int
+     * read var long int byte by byte, near the end of buffer.
      */
-    default long $v64() {
+    private long v64() {
         var result = 0L;
         var shift = 0L;
         var by = $i8();
@@ -843,21 +1250,14 @@ public sealed interface Binary extends Buffer permits Binary.Impl {
         }
         return result;
     }
-
-    default Binary $v64(long n) {
-        while ((n & ~0x7FL) != 0) {
-            $i8(((byte) ((n & 0x7FL) | 0x80L)));
-            n >>>= 7;
-        }
-        return $i8((byte) n); //!Last
-    }
+    //endregion
 
     /**
      * read zig-zag var int
      */
     default int $z32() {
         var v = $v32();
-        return (v >> 1) ^ -(v & 1);
+        return (v >>> 1) ^ -(v & 1);
     }
 
     default Binary $z32(int v) {
@@ -870,7 +1270,7 @@ public sealed interface Binary extends Buffer permits Binary.Impl {
      */
     default long $z64() {
         var v = $v64();
-        return (v >> 1L) ^ -(v & 1L);
+        return (v >>> 1) ^ -(v & 1L);
     }
 
     default Binary $z64(long v) {
@@ -917,6 +1317,207 @@ public sealed interface Binary extends Buffer permits Binary.Impl {
     }
     //endregion
 
+    //region array
+
+    /**
+     * write var int array with size, encoded in one append.
+     */
+    default Binary $v32s(int[] v) {
+        var n = 0;
+        for (var x : v) n += varSize(x);
+        var b = new byte[n];
+        var at = 0;
+        for (var x : v) at = put(b, at, x & 0xFFFFFFFFL);
+        return $v32(v.length).appendBytes(b);
+    }
+
+    default int[] $v32s() {
+        var v = new int[count(1)];
+        for (int i = 0; i < v.length; i++) v[i] = $v32();
+        return v;
+    }
+
+    /**
+     * write var long int array with size, encoded in one append.
+     */
+    default Binary $v64s(long[] v) {
+        var n = 0;
+        for (var x : v) n += varSize(x);
+        var b = new byte[n];
+        var at = 0;
+        for (var x : v) at = put(b, at, x);
+        return $v32(v.length).appendBytes(b);
+    }
+
+    default long[] $v64s() {
+        var v = new long[count(1)];
+        for (int i = 0; i < v.length; i++) v[i] = $v64();
+        return v;
+    }
+
+    /**
+     * write zig-zag var int array with size, encoded in one append.
+     */
+    default Binary $z32s(int[] v) {
+        var n = 0;
+        for (var x : v) n += varSize((x << 1) ^ (x >> 31));
+        var b = new byte[n];
+        var at = 0;
+        for (var x : v) at = put(b, at, ((x << 1) ^ (x >> 31)) & 0xFFFFFFFFL);
+        return $v32(v.length).appendBytes(b);
+    }
+
+    default int[] $z32s() {
+        var v = new int[count(1)];
+        for (int i = 0; i < v.length; i++) v[i] = $z32();
+        return v;
+    }
+
+    /**
+     * write zig-zag var long int array with size, encoded in one append.
+     */
+    default Binary $z64s(long[] v) {
+        var n = 0;
+        for (var x : v) n += varSize((x << 1) ^ (x >> 63));
+        var b = new byte[n];
+        var at = 0;
+        for (var x : v) at = put(b, at, (x << 1) ^ (x >> 63));
+        return $v32(v.length).appendBytes(b);
+    }
+
+    default long[] $z64s() {
+        var v = new long[count(1)];
+        for (int i = 0; i < v.length; i++) v[i] = $z64();
+        return v;
+    }
+
+    /**
+     * write delta encoded long array with size: the first as zig-zag, then differences as var long.
+     * ascending sorted arrays (eg: ids, timestamps) have small differences.
+     */
+    default Binary $d64s(long[] v) {
+        var n = 0;
+        var last = 0L;
+        for (int i = 0; i < v.length; i++) {
+            var d = v[i] - last;
+            n += varSize(i == 0 ? (d << 1) ^ (d >> 63) : d);
+            last = v[i];
+        }
+        var b = new byte[n];
+        var at = 0;
+        last = 0L;
+        for (int i = 0; i < v.length; i++) {
+            var d = v[i] - last;
+            at = put(b, at, i == 0 ? (d << 1) ^ (d >> 63) : d);
+            last = v[i];
+        }
+        return $v32(v.length).appendBytes(b);
+    }
+
+    default long[] $d64s() {
+        var v = new long[count(1)];
+        if (v.length == 0) return v;
+        v[0] = $z64();
+        for (int i = 1; i < v.length; i++) v[i] = v[i - 1] + $v64();
+        return v;
+    }
+
+    /**
+     * write int array with size, as little endian in bulk.
+     */
+    default Binary $i32s(int[] v) {
+        var b = ByteBuffer.allocate(v.length << 2).order(ByteOrder.LITTLE_ENDIAN);
+        b.asIntBuffer().put(v);
+        return $v32(v.length).appendBytes(b.array());
+    }
+
+    default int[] $i32s() {
+        var v = new int[count(4)];
+        bulk(v.length << 2).asIntBuffer().get(v);
+        return v;
+    }
+
+    /**
+     * write long array with size, as little endian in bulk.
+     */
+    default Binary $i64s(long[] v) {
+        var b = ByteBuffer.allocate(v.length << 3).order(ByteOrder.LITTLE_ENDIAN);
+        b.asLongBuffer().put(v);
+        return $v32(v.length).appendBytes(b.array());
+    }
+
+    default long[] $i64s() {
+        var v = new long[count(8)];
+        bulk(v.length << 3).asLongBuffer().get(v);
+        return v;
+    }
+
+    /**
+     * write float array with size, as little endian in bulk.
+     */
+    default Binary $f32s(float[] v) {
+        var b = ByteBuffer.allocate(v.length << 2).order(ByteOrder.LITTLE_ENDIAN);
+        b.asFloatBuffer().put(v);
+        return $v32(v.length).appendBytes(b.array());
+    }
+
+    default float[] $f32s() {
+        var v = new float[count(4)];
+        bulk(v.length << 2).asFloatBuffer().get(v);
+        return v;
+    }
+
+    /**
+     * write double array with size, as little endian in bulk.
+     */
+    default Binary $f64s(double[] v) {
+        var b = ByteBuffer.allocate(v.length << 3).order(ByteOrder.LITTLE_ENDIAN);
+        b.asDoubleBuffer().put(v);
+        return $v32(v.length).appendBytes(b.array());
+    }
+
+    default double[] $f64s() {
+        var v = new double[count(8)];
+        bulk(v.length << 3).asDoubleBuffer().get(v);
+        return v;
+    }
+
+    /**
+     * read size of array, checked with readable bytes before allocation.
+     *
+     * @param width the min encoded bytes of one element
+     */
+    private int count(int width) {
+        var n = $v32();
+        if (n < 0 || (long) n * width > length() - pos())
+            throw new IllegalStateException("invalid array size " + n + " with " + (length() - pos()) + " bytes");
+        return n;
+    }
+
+    /**
+     * @return little endian view of next n bytes, without copy if possible.
+     */
+    @SuppressWarnings("deprecation")
+    private ByteBuffer bulk(int n) {
+        var p = $pos(n);
+        return $raw().getByteBuf().nioBuffer(p, n).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * put var long int into bytes.
+     *
+     * @return the next position
+     */
+    private static int put(byte[] b, int at, long v) {
+        while ((v & ~0x7FL) != 0) {
+            b[at++] = (byte) (v & 0x7F | 0x80);
+            v >>>= 7;
+        }
+        b[at++] = (byte) v;
+        return at;
+    }
+    //endregion
+
     /**
      * @return peek a byte
      */
@@ -0,0 +1,345 @@
+package vax.common.units;
+
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Resumable decoder of var int size prefixed frames, fed by chunks of a stream (eg: {@code NetSocket}).
+ * <ul>
+ *     <li>frames are emitted as soon as completed, the size prefix may span chunks.</li>
+ *     <li>chunks are kept as is until consumed, a frame in one chunk is a slice of it,
+ *     a frame spans chunks is a composite of slices, no partial data is copied.</li>
+ *     <li>frames are {@link Binary} with plain read position, and share memory with chunks.</li>
+ *     <li>a size prefix over the max fails the decoder before any body is buffered.</li>
+ * </ul>
+ * Not thread safe, should be confined to the context of the stream.
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+public final class Frames implements Handler<Buffer> {
+    private final int max;
+    private final Handler<Binary> handler;
+    private final ArrayDeque<Buffer> chunks = new ArrayDeque<>();
+    /**
+     * read offset of the first chunk
+     */
+    private int head;
+    /**
+     * unconsumed bytes of all chunks
+     */
+    private int available;
+    /**
+     * size of current frame, -1 while reading the size prefix.
+     */
+    private int size = -1;
+    //region partial size prefix
+    private int value;
+    private int shift;
+    //endregion
+    /**
+     * set by a malformed or oversize size prefix, then all input is rejected.
+     */
+    private boolean failed;
+
+    /**
+     * @param max     the max size of one frame
+     * @param handler the handler of completed frames
+     */
+    public Frames(int max, Handler<Binary> handler) {
+        assert max > 0 : "max size must positive";
+        this.max = max;
+        this.handler = handler;
+    }
+
+    /**
+     * @return the size prefix of a frame, to write before the body without copy.
+     */
+    public static Buffer header(int size) {
+        assert size >= 0 : "size must not negative";
+        return Binary.of(5, false).$v32(size).$raw();
+    }
+
+    /**
+     * @return unconsumed bytes
+     */
+    public int available() {
+        return available;
+    }
+
+    /**
+     * @throws IllegalStateException if a size prefix is malformed or exceeds the max,
+     *                               the decoder is failed and rejects further chunks.
+     */
+    @Override
+    public void handle(Buffer chunk) {
+        if (failed) throw new IllegalStateException("frames decoder failed");
+        if (chunk.length() == 0) return;
+        chunks.add(Binary.raw(chunk));
+        available += chunk.length();
+        while (true) {
+            if (size < 0 && !prefix()) return;
+            if (available < size) return;
+            var frame = take(size);
+            size = -1;
+            handler.handle(frame);
+        }
+    }
+
+    /**
+     * @return true if size prefix is completed
+     */
+    private boolean prefix() {
+        while (available > 0) {
+            var b = chunks.getFirst().getByte(head);
+            skip(1);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                var n = value;
+                value = 0;
+                shift = 0;
+                if (n < 0 || n > max) throw fail("frame size " + (n & 0xFFFFFFFFL) + " exceeds " + max);
+                size = n;
+                return true;
+            }
+            shift += 7;
+            if (shift > 28) throw fail("malformed frame size");
+        }
+        return false;
+    }
+
+    /**
+     * drop buffered chunks, the stream can't be resynchronized.
+     */
+    private IllegalStateException fail(String message) {
+        failed = true;
+        chunks.clear();
+        head = 0;
+        available = 0;
+        return new IllegalStateException(message);
+    }
+
+    private void skip(int n) {
+        head += n;
+        available -= n;
+        while (!chunks.isEmpty() && head >= chunks.getFirst().length()) {
+            head -= chunks.removeFirst().length();
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private Binary take(int n) {
+        if (n == 0) return Binary.of(Buffer.buffer(), false);
+        var first = chunks.getFirst();
+        if (first.length() - head >= n) {
+            var f = first.slice(head, head + n);
+            skip(n);
+            return Binary.of(f, false);
+        }
+        //!! not released: components are slices of chunks owned by the stream
+        CompositeByteBuf c = Unpooled.compositeBuffer(chunks.size());
+        var remain = n;
+        while (remain > 0) {
+            var x = chunks.getFirst();
+            var k = Math.min(x.length() - head, remain);
+            c.addComponent(true, x.getByteBuf().slice(head, k));
+            skip(k);
+            remain -= k;
+        }
+        return Binary.of(Buffer.buffer(c), false);
+    }
+
+    /**
+     * Optional compression and checksum of frame payloads.<br/>
+     * Format of an encoded payload, the trailing checksum is CRC32C (little endian) of the original payload:
+     * <pre>{@code
+     * [MAGIC: 3 bytes] [VERSION] [flags] [original size: var int, only if DEFLATE] [payload] [crc32c: 4 bytes]
+     * }</pre>
+     * Payloads not less than the threshold are compressed by raw deflate (with the preset dictionary if any),
+     * and are sent as is if compression not saves.
+     * <ul>
+     *     <li>{@link #decode(Buffer)} accepts legacy payloads: a payload not starts with {@link #MAGIC}
+     *     and a known {@link #VERSION} is returned as is.</li>
+     *     <li>a payload with a recognized head is never passed through: unknown flags, a dictionary mismatch,
+     *     a malformed or oversize size, a malformed body or a checksum mismatch is an error.</li>
+     *     <li>the original size is checked against the max before allocating.</li>
+     *     <li>legacy peers can't read encoded payloads, an encoder should only be enabled after all peers upgraded.</li>
+     *     <li>peers must use the same dictionary.</li>
+     * </ul>
+     * Deflater and Inflater are reused per thread.
+     */
+    public static final class Codec {
+        /**
+         * leading bytes of an encoded payload, 0xF5 never starts a UTF-8 text.
+         */
+        static final byte[] MAGIC = {(byte) 0xF5, 'V', 'X'};
+        public static final int VERSION = 1;
+        public static final int DEFLATE = 0x01;
+        public static final int DICTIONARY = 0x02;
+        /**
+         * size of magic, version and flags.
+         */
+        static final int HEAD = MAGIC.length + 2;
+
+        private final int max;
+        private final int threshold;
+        private final byte @Nullable [] dictionary;
+        private final ThreadLocal<Deflater> deflater;
+        private final ThreadLocal<Inflater> inflater;
+
+        /**
+         * @param max        the max size of a decoded payload, eg: the max of {@link Frames}
+         * @param threshold  the min size of payload to compress
+         * @param level      the deflate level
+         * @param dictionary the preset dictionary, eg: common keys and values of payloads.
+         */
+        public Codec(int max, int threshold, int level, byte @Nullable [] dictionary) {
+            assert max > 0 : "max size must positive";
+            this.max = max;
+            this.threshold = threshold;
+            this.dictionary = dictionary;
+            this.deflater = ThreadLocal.withInitial(() -> new Deflater(level, true));
+            this.inflater = ThreadLocal.withInitial(() -> new Inflater(true));
+        }
+
+        public Codec(int max) {
+            this(max, 1024, Deflater.BEST_SPEED, null);
+        }
+
+        @SuppressWarnings("deprecation")
+        static ByteBuffer nio(Buffer b) {
+            return Binary.raw(b).getByteBuf().nioBuffer();
+        }
+
+        static int crc(ByteBuffer b) {
+            var c = new CRC32C();
+            c.update(b.duplicate());
+            return (int) c.getValue();
+        }
+
+        /**
+         * @return the encoded payload
+         */
+        public Buffer encode(Buffer payload) {
+            var src = nio(payload);
+            var n = src.remaining();
+            var crc = crc(src);
+            if (n >= threshold) {
+                var out = deflate(src, n);
+                if (out != null) {
+                    var b = Binary.of(out.length + HEAD + 9, false)
+                                  .appendBytes(MAGIC)
+                                  .$i8((byte) VERSION)
+                                  .$i8((byte) (DEFLATE | (dictionary != null ? DICTIONARY : 0)))
+                                  .$v32(n)
+                                  .appendBytes(out)
+                                  .appendIntLE(crc);
+                    return b.$raw();
+                }
+            }
+            return Binary.of(n + HEAD + 4, false)
+                         .appendBytes(MAGIC)
+                         .$i8((byte) VERSION)
+                         .$i8((byte) 0)
+                         .appendBuffer(payload)
+                         .appendIntLE(crc)
+                         .$raw();
+        }
+
+        /**
+         * @return compressed bytes, null if not smaller than original.
+         */
+        private byte @Nullable [] deflate(ByteBuffer src, int n) {
+            var d = deflater.get();
+            d.reset();
+            if (dictionary != null) d.setDictionary(dictionary);
+            d.setInput(src.duplicate());
+            d.finish();
+            var out = new byte[n];
+            var size = 0;
+            while (!d.finished()) {
+                if (size == out.length) return null;
+                size += d.deflate(out, size, out.length - size);
+            }
+            return size >= n ? null : Arrays.copyOf(out, size);
+        }
+
+        /**
+         * @return the original payload, or a legacy payload as is.
+         * @throws IllegalStateException if a payload with a recognized head is corrupted
+         */
+        public Buffer decode(Buffer encoded) {
+            var raw = Binary.raw(encoded);
+            var n = raw.length();
+            if (n < MAGIC.length + 1) return raw;
+            for (var i = 0; i < MAGIC.length; i++) if (raw.getByte(i) != MAGIC[i]) return raw;
+            if (raw.getUnsignedByte(MAGIC.length) != VERSION) return raw;
+            if (n < HEAD + 4) throw new IllegalStateException("truncated frame payload");
+            var flags = raw.getUnsignedByte(MAGIC.length + 1);
+            if ((flags & ~(DEFLATE | DICTIONARY)) != 0)
+                throw new IllegalStateException("unknown flags of frame payload: " + flags);
+            var crc = raw.getIntLE(n - 4);
+            if ((flags & DEFLATE) == 0) {
+                var body = raw.slice(HEAD, n - 4);
+                if (crc(nio(body)) != crc) throw new IllegalStateException("checksum mismatch of frame payload");
+                return body;
+            }
+            var dict = (flags & DICTIONARY) != 0;
+            if (dict != (dictionary != null))
+                throw new IllegalStateException(dict ? "dictionary required by compressed frame"
+                                                     : "compressed frame without dictionary");
+            var b = Binary.of(raw.slice(HEAD, n - 4), false);
+            var size = size(b);
+            if (size < 0) throw new IllegalStateException("malformed size of compressed frame");
+            if (size > max) throw new IllegalStateException("compressed frame size " + size + " exceeds " + max);
+            var out = inflate(nio(b.$raw()).position(b.pos()), size, dict);
+            if (crc(ByteBuffer.wrap(out)) != crc) throw new IllegalStateException("checksum mismatch of compressed frame");
+            return Buffer.buffer(out);
+        }
+
+        /**
+         * @return the original size, -1 if malformed.
+         */
+        private static int size(Binary b) {
+            var v = 0;
+            for (var shift = 0; shift <= 28; shift += 7) {
+                if (b.pos() >= b.length()) return -1;
+                var x = b.$i8();
+                v |= (x & 0x7F) << shift;
+                if (x >= 0) return v;
+            }
+            return -1;
+        }
+
+        private byte[] inflate(ByteBuffer src, int size, boolean dict) {
+            var f = inflater.get();
+            f.reset();
+            if (dict) f.setDictionary(dictionary);
+            f.setInput(src);
+            var out = new byte[size];
+            try {
+                var at = 0;
+                while (at < size && !f.finished()) {
+                    var k = f.inflate(out, at, size - at);
+                    if (k == 0 && (f.needsInput() || f.needsDictionary())) break;
+                    at += k;
+                }
+                if (at != size) throw new IllegalStateException("truncated compressed frame");
+                return out;
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("malformed compressed frame", e);
+            }
+        }
+    }
+}
@@ -1,13 +1,12 @@
 package vax.common.units;
 
-import io.netty.util.collection.IntObjectMap;
 import org.intellij.lang.annotations.MagicConstant;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Objects;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -225,56 +224,62 @@ public interface Lua {
         }
 
         default LValue add(LValue r) {
-            throw new UnsupportedOperationException("");
+            return apply(OP_ADD, r);
         }
 
         default LValue sub(LValue r) {
-            throw new UnsupportedOperationException("");
+            return apply(OP_SUB, r);
         }
 
         default LValue mul(LValue r) {
-            throw new UnsupportedOperationException("");
+            return apply(OP_MUL, r);
         }
 
         default LValue pow(LValue r) {
-            throw new UnsupportedOperationException("");
+            return apply(OP_POW, r);
         }
 
         default LValue mod(LValue r) {
-            throw new UnsupportedOperationException("");
+            return apply(OP_MOD, r);
         }
 
         default LValue idiv(LValue r) {
-            throw new UnsupportedOperationException("");
+            return apply(OP_IDIV, r);
         }
 
 
         default LValue div(LValue r) {
-            throw new UnsupportedOperationException("");
+            return apply(OP_DIV, r);
         }
 
         default LValue bAnd(LValue r) {
-            throw new UnsupportedOperationException("");
+            return apply(OP_BAND, r);
         }
 
         default LValue bOr(LValue r) {
-            throw new UnsupportedOperationException("");
+            return apply(OP_BOR, r);
         }
 
         default LValue bXor(LValue r) {
-            throw new UnsupportedOperationException("");
+            return apply(OP_BXOR, r);
         }
 
         default LValue bNot() {
-            throw new UnsupportedOperationException("");
+            return apply(OP_BNOT, this);
+        }
+
+        private LValue apply(int op, LValue r) {
+            var v = arith(op, this, r);
+            if (v == null) throw new LError("attempt to perform arithmetic on a " + r.typeName() + " value");
+            return v;
         }
 
         default LValue shl(LValue r) {
-            throw new UnsupportedOperationException("");
+            return apply(OP_SHL, r);
         }
 
         default LValue shr(LValue r) {
-            throw new UnsupportedOperationException("");
+            return apply(OP_SHR, r);
         }
 
         static LNumber of(double v) {
@@ -305,39 +310,39 @@ public interface Lua {
         }
 
         public boolean eq(int r) {
-            throw new UnsupportedOperationException("");
+            return v == r;
         }
 
         public int compare(int r) {
-            throw new UnsupportedOperationException("");
+            return Integer.compare(v, r);
         }
 
         public LValue add(int r) {
-            throw new UnsupportedOperationException("");
+            return LNumber.of(v + r);
         }
 
         public LValue bAnd(int r) {
-            throw new UnsupportedOperationException("");
+            return LNumber.of(v & r);
         }
 
         public LValue bOr(int r) {
-            throw new UnsupportedOperationException("");
+            return LNumber.of(v | r);
         }
 
         public LValue bXor(int r) {
-            throw new UnsupportedOperationException("");
+            return LNumber.of(v ^ r);
         }
 
         public LValue bNot() {
-            throw new UnsupportedOperationException("");
+            return LNumber.of(~v);
         }
 
         public LValue shr(int r) {
-            throw new UnsupportedOperationException("");
+            return LNumber.of(shift(v, -r));
         }
 
         public LValue shl(int r) {
-            throw new UnsupportedOperationException("");
+            return LNumber.of(shift(v, r));
         }
     }
 
@@ -352,21 +357,43 @@ public interface Lua {
         public byte type() {
             return T_STRING;
         }
+
+        @Override
+        public LValue len() {
+            return LNumber.of(v.length());
+        }
     }
 
+    /**
+     * Table of two parts, sized like PUC Lua:
+     * <ul>
+     *     <li>array part: values of integer keys 1..n in a dense array.</li>
+     *     <li>hash part: other keys in open addressing slots (linear probing, fibonacci hashing),
+     *     a removed entry keeps its key as a tombstone until next rehash.</li>
+     * </ul>
+     * Sizes are computed on rehash, which is triggered by an insertion into a full hash part:
+     * the array part is the largest power of 2 more than half used, the rest keys go to the hash part.
+     * Absent values are null in both parts. Not thread safe.
+     */
     class LTable implements LValue {
-        protected IntObjectMap<LValue> v;
-        protected volatile int[] index;
-        protected volatile String[] name;
-
-        public LTable(int size, int v) {
+        private static final LValue[] EMPTY = new LValue[0];
+        private LValue[] array = EMPTY;
+        private LValue @Nullable [] keys;
+        private LValue @Nullable [] values;
+        /**
+         * used slots of hash part, tombstones included.
+         */
+        private int used;
+        private int shift;
 
-        }
+        public LTable() {}
 
-        public LTable(IntObjectMap<LValue> v, int[] index, String[] name) {
-            this.v = v;
-            this.index = index;
-            this.name = name;
+        /**
+         * @param narray size of array part
+         * @param nhash  expected count of other keys
+         */
+        public LTable(int narray, int nhash) {
+            resize(narray, nhash);
         }
 
         @Override
@@ -374,34 +401,253 @@ public interface Lua {
             return T_TABLE;
         }
 
-        public IntObjectMap<LValue> v() {return v;}
-
-        public int[] index() {return index;}
-
-        public String[] name() {return name;}
+        @Override
+        public LValue get(LValue key) {
+            if (key instanceof LInteger i) return get(i.v);
+            if (key instanceof LDouble d && d.v == (int) d.v) return get((int) d.v);
+            var x = find(key);
+            return x < 0 || values[x] == null ? NIL : values[x];
+        }
+
+        public LValue get(int key) {
+            var a = array;
+            if (Integer.compareUnsigned(key - 1, a.length) < 0) {
+                var v = a[key - 1];
+                return v == null ? NIL : v;
+            }
+            var x = find(key);
+            return x < 0 || values[x] == null ? NIL : values[x];
+        }
 
         @Override
-        public boolean equals(Object obj) {
-            if (obj == this) return true;
-            if (obj == null) return false;
-            return obj instanceof LTable that && Objects.equals(this.v, that.v) &&
-                    Arrays.equals(this.index, that.index) &&
-                    Arrays.equals(this.name, that.name);
+        public void set(LValue key, LValue value) {
+            if (key instanceof LInteger i) {
+                set(i.v, value);
+                return;
+            }
+            if (key instanceof LDouble d) {
+                if (d.v == (int) d.v) {
+                    set((int) d.v, value);
+                    return;
+                }
+                if (Double.isNaN(d.v)) throw new LError("table index is NaN");
+            }
+            if (LValue.isNil(key)) throw new LError("table index is nil");
+            var v = LValue.isNil(value) ? null : value;
+            var x = find(key);
+            if (x >= 0) values[x] = v;
+            else if (v != null) insert(key, v);
+        }
+
+        public void set(int key, LValue value) {
+            var v = LValue.isNil(value) ? null : value;
+            var a = array;
+            if (Integer.compareUnsigned(key - 1, a.length) < 0) {
+                a[key - 1] = v;
+                return;
+            }
+            var x = find(key);
+            if (x >= 0) values[x] = v;
+            else if (v != null) insert(LNumber.of(key), v);
         }
 
         @Override
-        public int hashCode() {
-            return Objects.hash(v, Arrays.hashCode(index), Arrays.hashCode(name));
+        public LValue len() {
+            return LNumber.of(border());
+        }
+
+        /**
+         * @return a border: an index n that t[n] is not nil (or n is 0) and t[n+1] is nil.
+         */
+        public int border() {
+            var a = array;
+            var n = a.length;
+            if (n > 0 && a[n - 1] == null) {
+                //!! binary search in array part: a[i-1] is not nil (or i is 0), a[j-1] is nil
+                int i = 0, j = n;
+                while (j - i > 1) {
+                    var m = (i + j) >>> 1;
+                    if (a[m - 1] == null) j = m;
+                    else i = m;
+                }
+                return i;
+            }
+            if (keys == null || LValue.isNil(get(n + 1))) return n;
+            //!! unbound search in hash part: t[i] is not nil, t[j] is nil
+            long i = n + 1, j = i * 2;
+            while (!LValue.isNil(get((int) j))) {
+                i = j;
+                if (j > Integer.MAX_VALUE / 2) {
+                    var k = (int) i;
+                    while (k < Integer.MAX_VALUE && !LValue.isNil(get(k + 1))) k++;
+                    return k;
+                }
+                j *= 2;
+            }
+            while (j - i > 1) {
+                var m = (i + j) >>> 1;
+                if (LValue.isNil(get((int) m))) j = m;
+                else i = m;
+            }
+            return (int) i;
+        }
+
+        //region hash part
+        private static int hash(LValue k) {
+            if (k instanceof LInteger i) return i.v;
+            if (k instanceof LNumber || k instanceof LString || k instanceof LBoolean) return k.hashCode();
+            return System.identityHashCode(k);
+        }
+
+        private int slot(int hash) {
+            return (hash * 0x9E3779B9) >>> shift;
+        }
+
+        /**
+         * @return the slot of key, -1 if absent.
+         */
+        private int find(LValue key) {
+            var ks = keys;
+            if (ks == null) return -1;
+            var mask = ks.length - 1;
+            for (var x = slot(hash(key)); ; x = (x + 1) & mask) {
+                var k = ks[x];
+                if (k == null) return -1;
+                if (rawEquals(k, key)) return x;
+            }
+        }
+
+        private int find(int key) {
+            var ks = keys;
+            if (ks == null) return -1;
+            var mask = ks.length - 1;
+            for (var x = slot(key); ; x = (x + 1) & mask) {
+                var k = ks[x];
+                if (k == null) return -1;
+                if (k instanceof LInteger i && i.v == key) return x;
+            }
         }
 
+        /**
+         * insert an absent key, rehash if the hash part is full.
+         */
+        private void insert(LValue key, LValue v) {
+            var ks = keys;
+            if (ks != null) {
+                var mask = ks.length - 1;
+                for (var x = slot(hash(key)); ; x = (x + 1) & mask) {
+                    if (ks[x] == null) {
+                        if ((used + 1) * 4 > ks.length * 3) break;
+                        ks[x] = key;
+                        values[x] = v;
+                        used++;
+                        return;
+                    }
+                    if (values[x] == null) {
+                        //!! reuse a tombstone: the key is known absent
+                        ks[x] = key;
+                        values[x] = v;
+                        return;
+                    }
+                }
+            }
+            rehash(key);
+            if (key instanceof LInteger i && Integer.compareUnsigned(i.v - 1, array.length) < 0) array[i.v - 1] = v;
+            else insert(key, v);
+        }
+
+        /**
+         * compute new sizes by all keys and the extra key to insert.
+         */
+        private void rehash(LValue extra) {
+            //!! nums[i]: count of integer keys in (2^(i-1), 2^i]
+            var nums = new int[32];
+            var ints = 0;
+            var a = array;
+            for (var x = 0; x < a.length; x++) {
+                if (a[x] == null) continue;
+                nums[ceilLog2(x + 1)]++;
+                ints++;
+            }
+            var total = ints;
+            var ks = keys;
+            if (ks != null) {
+                for (var x = 0; x < ks.length; x++) {
+                    if (ks[x] == null || values[x] == null) continue;
+                    total++;
+                    if (count(ks[x], nums)) ints++;
+                }
+            }
+            total++;
+            if (count(extra, nums)) ints++;
+            int twotoi = 1, sum = 0, optimal = 0, na = 0;
+            for (var i = 0; twotoi > 0 && ints > twotoi / 2; i++, twotoi <<= 1) {
+                sum += nums[i];
+                if (sum > twotoi / 2) {
+                    optimal = twotoi;
+                    na = sum;
+                }
+            }
+            resize(optimal, total - na);
+        }
+
+        private static boolean count(LValue k, int[] nums) {
+            if (!(k instanceof LInteger i) || i.v <= 0) return false;
+            nums[ceilLog2(i.v)]++;
+            return true;
+        }
+
+        private static int ceilLog2(int k) {
+            return 32 - Integer.numberOfLeadingZeros(k - 1);
+        }
+
+        private void resize(int narray, int nhash) {
+            var oa = array;
+            var ok = keys;
+            var ov = values;
+            array = narray == 0 ? EMPTY : Arrays.copyOf(oa, narray);
+            if (nhash == 0) {
+                keys = null;
+                values = null;
+            } else {
+                var cap = 4;
+                while (cap * 3 < nhash * 4) cap <<= 1;
+                keys = new LValue[cap];
+                values = new LValue[cap];
+                shift = 32 - Integer.numberOfTrailingZeros(cap);
+            }
+            used = 0;
+            for (var x = narray; x < oa.length; x++) {
+                if (oa[x] != null) put(LNumber.of(x + 1), oa[x]);
+            }
+            if (ok == null) return;
+            for (var x = 0; x < ok.length; x++) {
+                var k = ok[x];
+                var v = ov[x];
+                if (k == null || v == null) continue;
+                if (k instanceof LInteger i && Integer.compareUnsigned(i.v - 1, narray) < 0) array[i.v - 1] = v;
+                else put(k, v);
+            }
+        }
+
+        /**
+         * put while resizing: the key is absent and there is room.
+         */
+        private void put(LValue key, LValue v) {
+            var ks = keys;
+            var mask = ks.length - 1;
+            var x = slot(hash(key));
+            while (ks[x] != null) x = (x + 1) & mask;
+            ks[x] = key;
+            values[x] = v;
+            used++;
+        }
+        //endregion
+
         @Override
         public String toString() {
-            return "LTable[" +
-                    "v=" + v + ", " +
-                    "index=" + Arrays.toString(index) + ", " +
-                    "name=" + Arrays.toString(name) + ']';
+            return "LTable[array=" + array.length + ", hash=" + (keys == null ? 0 : keys.length) + ']';
         }
-
     }
 
     record LUserData(Object v) implements LValue {
@@ -458,6 +704,43 @@ public interface Lua {
         }
 
         boolean isClosure();
+
+        /**
+         * call with arguments at {@code stack[func+1 .. func+nargs]}.
+         *
+         * @return count of results, which are placed from {@code stack[func]}.
+         */
+        int invoke(CallStack stack, int func, int nargs);
+    }
+
+    /**
+     * function implemented by java, arguments and results are copied from and to the stack.
+     */
+    @FunctionalInterface
+    interface LJavaFunction extends LFunction {
+        LValue[] call(LValue[] args);
+
+        @Override
+        default boolean isClosure() {
+            return false;
+        }
+
+        @Override
+        default int invoke(CallStack stack, int func, int nargs) {
+            var s = stack.v;
+            var top = stack.top;
+            //!! nested calls from java go above the arguments
+            stack.top = Math.max(top, func + 1 + nargs);
+            LValue[] r;
+            try {
+                r = call(Arrays.copyOfRange(s, func + 1, func + 1 + nargs));
+            } finally {
+                stack.top = top;
+            }
+            stack.check(func + r.length);
+            System.arraycopy(r, 0, s, func, r.length);
+            return r.length;
+        }
     }
 
     class LError extends RuntimeException {
@@ -476,13 +759,345 @@ public interface Lua {
             return true;
         }
 
-        void eval(LValue[] stack, LValue[] args) {
-            int i, a, b, c, pc = 0, top = 0;
-            LValue o;
-            int[] code = p.code;
-            LValue[] k = p.k;
-            var ups = p.p.length > 0 ? new UpValue[stack.length] : null;
+        @Override
+        public int invoke(CallStack stack, int func, int nargs) {
+            return execute(stack, func, nargs);
+        }
+
+        /**
+         * call on the stack of current thread.
+         */
+        public LValue[] call(LValue... args) {
+            return call(CallStack.local(), args);
+        }
+
+        public LValue[] call(CallStack stack, LValue... args) {
+            var func = stack.top;
+            stack.check(func + 1 + args.length);
+            stack.v[func] = this;
+            System.arraycopy(args, 0, stack.v, func + 1, args.length);
+            try {
+                var n = execute(stack, func, args.length);
+                return Arrays.copyOfRange(stack.v, func, func + n);
+            } catch (StackOverflowError e) {
+                //!! frames are already unwound by their finally blocks
+                throw new LError("stack overflow");
+            } finally {
+                //!! release stale registers after the outermost call
+                if (stack.depth == 0) {
+                    Arrays.fill(stack.v, func, Math.max(func, stack.high), null);
+                    stack.high = func;
+                }
+            }
+        }
 
+        /**
+         * The interpreter loop. Registers of the frame are {@code s[base ..]} of the shared stack,
+         * instructions are decoded inline and dispatched by one switch.
+         * A called closure runs at the top of this frame with its arguments in place,
+         * results are moved to {@code s[func ..]}.
+         *
+         * @return count of results
+         */
+        int execute(CallStack stack, int func, int nargs) {
+            var p = this.p;
+            var s = stack.v;
+            var base = func + 1;
+            //region varargs: kept below the frame, fixed parameters are moved above them
+            var vbase = base;
+            var nvar = 0;
+            if (p.isVararg != 0 && nargs > p.numParams) {
+                nvar = nargs - p.numParams;
+                vbase = base + p.numParams;
+                base += nargs;
+                stack.check(base + p.maxStackSize);
+                System.arraycopy(s, func + 1, s, base, p.numParams);
+            } else stack.check(base + p.maxStackSize);
+            //endregion
+            for (var x = Math.min(nargs, p.numParams); x < p.numParams; x++) s[base + x] = NIL;
+            if (stack.depth >= stack.maxDepth) throw new LError("stack overflow");
+            stack.depth++;
+            var saved = stack.top;
+            stack.top = base + p.maxStackSize;
+            var code = p.code;
+            var k = p.k;
+            var u = upValues;
+            int pc = 0, top = base;
+            try {
+                while (true) {
+                    var i = code[pc++];
+                    var a = base + (i >>> 7 & 0xFF);
+                    switch (OP.CODES[i & 0x7F]) {
+                        case MOVE -> s[a] = s[base + (i >>> 16 & 0xFF)];
+                        case LOADI -> s[a] = LNumber.of((i >>> 15) - 0xFFFF);
+                        case LOADF -> s[a] = LNumber.of((double) ((i >>> 15) - 0xFFFF));
+                        case LOADK -> s[a] = k[i >>> 15];
+                        case LOADKX -> s[a] = k[code[pc++] >>> 7];
+                        case LOADFALSE -> s[a] = FALSE;
+                        case LFALSESKIP -> {
+                            s[a] = FALSE;
+                            pc++;
+                        }
+                        case LOADTRUE -> s[a] = TRUE;
+                        case LOADNIL -> Arrays.fill(s, a, a + (i >>> 16 & 0xFF) + 1, NIL);
+                        case GETUPVAL -> s[a] = u[i >>> 16 & 0xFF].value();
+                        case SETUPVAL -> u[i >>> 16 & 0xFF].value(s[a]);
+                        case GETTABUP -> s[a] = index(u[i >>> 16 & 0xFF].value(), k[i >>> 24]);
+                        case GETTABLE -> s[a] = index(s[base + (i >>> 16 & 0xFF)], s[base + (i >>> 24)]);
+                        case GETI -> s[a] = index(s[base + (i >>> 16 & 0xFF)], LNumber.of(i >>> 24));
+                        case GETFIELD -> s[a] = index(s[base + (i >>> 16 & 0xFF)], k[i >>> 24]);
+                        case SETTABUP -> newIndex(u[i >>> 7 & 0xFF].value(), k[i >>> 16 & 0xFF],
+                                                  (i & 0x8000) != 0 ? k[i >>> 24] : s[base + (i >>> 24)]);
+                        case SETTABLE -> newIndex(s[a], s[base + (i >>> 16 & 0xFF)],
+                                                  (i & 0x8000) != 0 ? k[i >>> 24] : s[base + (i >>> 24)]);
+                        case SETI -> newIndex(s[a], LNumber.of(i >>> 16 & 0xFF),
+                                              (i & 0x8000) != 0 ? k[i >>> 24] : s[base + (i >>> 24)]);
+                        case SETFIELD -> newIndex(s[a], k[i >>> 16 & 0xFF],
+                                                  (i & 0x8000) != 0 ? k[i >>> 24] : s[base + (i >>> 24)]);
+                        case NEWTABLE -> {
+                            var b = i >>> 16 & 0xFF;
+                            var c = i >>> 24;
+                            if (b > 0) b = 1 << (b - 1);
+                            if ((i & 0x8000) != 0) c += (code[pc] >>> 7) * 256;
+                            pc++;
+                            s[a] = new LTable(c, b);
+                        }
+                        case SELF -> {
+                            var o = s[base + (i >>> 16 & 0xFF)];
+                            s[a + 1] = o;
+                            s[a] = index(o, (i & 0x8000) != 0 ? k[i >>> 24] : s[base + (i >>> 24)]);
+                        }
+                        //region arithmetic: the following MMBIN is skipped on success
+                        case ADDI -> {
+                            var o = s[base + (i >>> 16 & 0xFF)];
+                            var c = (i >>> 24) - 0x7F;
+                            if (o instanceof LInteger x) {
+                                s[a] = LNumber.of(x.v + c);
+                                pc++;
+                            } else {
+                                var r = arith(OP_ADD, o, LNumber.of(c));
+                                if (r != null) {
+                                    s[a] = r;
+                                    pc++;
+                                }
+                            }
+                        }
+                        case ADDK, SUBK, MULK, MODK, POWK, DIVK, IDIVK, BANDK, BORK, BXORK -> {
+                            var r = arith((i & 0x7F) - OP.ADDK.ordinal(), s[base + (i >>> 16 & 0xFF)], k[i >>> 24]);
+                            if (r != null) {
+                                s[a] = r;
+                                pc++;
+                            }
+                        }
+                        case SHRI -> {
+                            var r = arith(OP_SHR, s[base + (i >>> 16 & 0xFF)], LNumber.of((i >>> 24) - 0x7F));
+                            if (r != null) {
+                                s[a] = r;
+                                pc++;
+                            }
+                        }
+                        case SHLI -> {
+                            var r = arith(OP_SHL, LNumber.of((i >>> 24) - 0x7F), s[base + (i >>> 16 & 0xFF)]);
+                            if (r != null) {
+                                s[a] = r;
+                                pc++;
+                            }
+                        }
+                        case ADD, SUB, MUL, MOD, POW, DIV, IDIV, BAND, BOR, BXOR, SHL, SHR -> {
+                            var r = arith((i & 0x7F) - OP.ADD.ordinal(), s[base + (i >>> 16 & 0xFF)], s[base + (i >>> 24)]);
+                            if (r != null) {
+                                s[a] = r;
+                                pc++;
+                            }
+                        }
+                        //!! no metatables: reached only when an operand is not a number
+                        case MMBIN -> throw arithmetic(s[a], s[base + (i >>> 16 & 0xFF)]);
+                        case MMBINI -> throw arithmetic(s[a], s[a]);
+                        case MMBINK -> throw arithmetic(s[a], k[i >>> 16 & 0xFF]);
+                        case UNM, BNOT -> {
+                            var o = s[base + (i >>> 16 & 0xFF)];
+                            var r = arith((i & 0x7F) == OP.UNM.ordinal() ? OP_UNM : OP_BNOT, o, o);
+                            if (r == null) throw arithmetic(o, o);
+                            s[a] = r;
+                        }
+                        //endregion
+                        case NOT -> s[a] = LValue.isFalse(s[base + (i >>> 16 & 0xFF)]) ? TRUE : FALSE;
+                        case LEN -> s[a] = length(s[base + (i >>> 16 & 0xFF)]);
+                        case CONCAT -> s[a] = join(s, a, i >>> 16 & 0xFF);
+                        case CLOSE -> stack.close(a);
+                        case TBC -> throw new LError("to-be-closed variable is not supported");
+                        case JMP -> pc += (i >>> 7) - 0xFFFFFF;
+                        //region conditions: skip the following JMP if not matched
+                        case EQ -> {
+                            if (rawEquals(s[a], s[base + (i >>> 16 & 0xFF)]) != ((i & 0x8000) != 0)) pc++;
+                        }
+                        case LT -> {
+                            if (lessThan(s[a], s[base + (i >>> 16 & 0xFF)]) != ((i & 0x8000) != 0)) pc++;
+                        }
+                        case LE -> {
+                            if (lessEqual(s[a], s[base + (i >>> 16 & 0xFF)]) != ((i & 0x8000) != 0)) pc++;
+                        }
+                        case EQK -> {
+                            if (rawEquals(s[a], k[i >>> 16 & 0xFF]) != ((i & 0x8000) != 0)) pc++;
+                        }
+                        case EQI -> {
+                            var o = s[a];
+                            if ((o instanceof LNumber && num(o) == (i >>> 16 & 0xFF) - 0x7F) != ((i & 0x8000) != 0)) pc++;
+                        }
+                        case LTI -> {
+                            if ((compared(s[a]) < (i >>> 16 & 0xFF) - 0x7F) != ((i & 0x8000) != 0)) pc++;
+                        }
+                        case LEI -> {
+                            if ((compared(s[a]) <= (i >>> 16 & 0xFF) - 0x7F) != ((i & 0x8000) != 0)) pc++;
+                        }
+                        case GTI -> {
+                            if ((compared(s[a]) > (i >>> 16 & 0xFF) - 0x7F) != ((i & 0x8000) != 0)) pc++;
+                        }
+                        case GEI -> {
+                            if ((compared(s[a]) >= (i >>> 16 & 0xFF) - 0x7F) != ((i & 0x8000) != 0)) pc++;
+                        }
+                        case TEST -> {
+                            if (LValue.isFalse(s[a]) == ((i & 0x8000) != 0)) pc++;
+                        }
+                        case TESTSET -> {
+                            var o = s[base + (i >>> 16 & 0xFF)];
+                            if (LValue.isFalse(o) == ((i & 0x8000) != 0)) pc++;
+                            else s[a] = o;
+                        }
+                        //endregion
+                        //region calls
+                        case CALL -> {
+                            var b = i >>> 16 & 0xFF;
+                            var c = i >>> 24;
+                            var n = dispatch(stack, a, b != 0 ? b - 1 : top - a - 1);
+                            if (c == 0) top = a + n;
+                            else for (var x = n; x < c - 1; x++) s[a + x] = NIL;
+                        }
+                        case TAILCALL -> {
+                            //!! not a proper tail call, the frame is kept during the call
+                            var b = i >>> 16 & 0xFF;
+                            stack.close(base);
+                            var n = dispatch(stack, a, b != 0 ? b - 1 : top - a - 1);
+                            System.arraycopy(s, a, s, func, n);
+                            return n;
+                        }
+                        case RETURN -> {
+                            var b = i >>> 16 & 0xFF;
+                            var n = b != 0 ? b - 1 : top - a;
+                            stack.close(base);
+                            System.arraycopy(s, a, s, func, n);
+                            return n;
+                        }
+                        case RETURN0 -> {
+                            stack.close(base);
+                            return 0;
+                        }
+                        case RETURN1 -> {
+                            stack.close(base);
+                            s[func] = s[a];
+                            return 1;
+                        }
+                        //endregion
+                        //region loops
+                        case FORLOOP -> {
+                            if (s[a + 1] instanceof LInteger lim) {
+                                var step = ((LInteger) s[a + 2]).v;
+                                var next = (long) ((LInteger) s[a]).v + step;
+                                if (step > 0 ? next <= lim.v : next >= lim.v) {
+                                    var v = LNumber.of((int) next);
+                                    s[a] = v;
+                                    s[a + 3] = v;
+                                    pc -= i >>> 15;
+                                }
+                            } else {
+                                var step = num(s[a + 2]);
+                                var next = num(s[a]) + step;
+                                var lim = num(s[a + 1]);
+                                if (step > 0 ? next <= lim : lim <= next) {
+                                    var v = LNumber.of(next);
+                                    s[a] = v;
+                                    s[a + 3] = v;
+                                    pc -= i >>> 15;
+                                }
+                            }
+                        }
+                        case FORPREP -> {
+                            var init = s[a];
+                            var limit = s[a + 1];
+                            var step = s[a + 2];
+                            if (!(init instanceof LNumber)) throw new LError("'for' initial value must be a number");
+                            if (!(limit instanceof LNumber)) throw new LError("'for' limit must be a number");
+                            if (!(step instanceof LNumber)) throw new LError("'for' step must be a number");
+                            //!! the limit is kept as LInteger for an integer loop, as LDouble for a float loop
+                            if (init instanceof LInteger x && step instanceof LInteger y) {
+                                if (y.v == 0) throw new LError("'for' step is zero");
+                                var lim = limit instanceof LInteger l ? l.v
+                                        : (int) (y.v > 0 ? Math.floor(num(limit)) : Math.ceil(num(limit)));
+                                if (y.v > 0 ? x.v > lim : x.v < lim) pc += (i >>> 15) + 1;
+                                else {
+                                    s[a + 1] = LNumber.of(lim);
+                                    s[a + 3] = x;
+                                }
+                            } else {
+                                var x = num(init);
+                                var l = num(limit);
+                                var y = num(step);
+                                if (y == 0) throw new LError("'for' step is zero");
+                                if (y > 0 ? x > l : x < l) pc += (i >>> 15) + 1;
+                                else {
+                                    s[a + 1] = new LDouble(l);
+                                    s[a + 3] = init;
+                                }
+                            }
+                        }
+                        case TFORPREP -> pc += i >>> 15;
+                        case TFORCALL -> {
+                            System.arraycopy(s, a, s, a + 4, 3);
+                            var n = dispatch(stack, a + 4, 2);
+                            for (var x = n; x < i >>> 24; x++) s[a + 4 + x] = NIL;
+                        }
+                        case TFORLOOP -> {
+                            if (!LValue.isNil(s[a + 4])) {
+                                s[a + 2] = s[a + 4];
+                                pc -= i >>> 15;
+                            }
+                        }
+                        //endregion
+                        case SETLIST -> {
+                            var n = i >>> 16 & 0xFF;
+                            var c = i >>> 24;
+                            if (n == 0) n = top - a - 1;
+                            if ((i & 0x8000) != 0) c += (code[pc++] >>> 7) * 256;
+                            var t = s[a].table();
+                            for (var x = 1; x <= n; x++) t.set(c + x, s[a + x]);
+                        }
+                        case CLOSURE -> {
+                            var q = p.p[i >>> 15];
+                            var d = q.upValues;
+                            var ups = new UpValue[d.length];
+                            for (var x = 0; x < d.length; x++) {
+                                ups[x] = d[x].inStack ? stack.upValue(base + d[x].index) : u[d[x].index];
+                            }
+                            s[a] = new LClosure(q, ups, globals);
+                        }
+                        case VARARG -> {
+                            var n = (i >>> 24) - 1;
+                            if (n < 0) {
+                                n = nvar;
+                                stack.check(a + n);
+                                top = a + n;
+                            }
+                            for (var x = 0; x < n; x++) s[a + x] = x < nvar ? s[vbase + x] : NIL;
+                        }
+                        //!! VARARGPREP is done on entry, EXTRA_ARG is consumed by the previous instruction
+                        case VARARGPREP, EXTRA_ARG -> {}
+                    }
+                }
+            } finally {
+                stack.close(base);
+                stack.top = saved;
+                stack.depth--;
+            }
         }
     }
 
@@ -505,7 +1120,22 @@ public interface Lua {
 
     record UpValueDesc(LString name, boolean inStack, short index) {}
 
-    record UpValue(LValue[] stack, int index) {
+    /**
+     * refers to a slot of the stack while open, holds the value after closed.
+     */
+    final class UpValue {
+        private LValue[] stack;
+        private int index;
+
+        UpValue(LValue[] stack, int index) {
+            this.stack = stack;
+            this.index = index;
+        }
+
+        public static UpValue of(LValue v) {
+            return new UpValue(new LValue[]{v}, 0);
+        }
+
         LValue value() {
             return stack[index];
         }
@@ -513,6 +1143,79 @@ public interface Lua {
         void value(LValue v) {
             stack[index] = v;
         }
+
+        void close() {
+            stack = new LValue[]{stack[index]};
+            index = 0;
+        }
+    }
+
+    /**
+     * Registers of all frames of a thread. Frames are windows of one preallocated array,
+     * which never grows, so an open up value refers to its slot directly.
+     * Not thread safe.
+     */
+    final class CallStack {
+        /**
+         * the least slots of a frame: the function and two registers (the least max stack size).
+         */
+        static final int FRAME = 3;
+        private static final ThreadLocal<CallStack> LOCAL = ThreadLocal.withInitial(() -> new CallStack(1 << 16));
+        final LValue[] v;
+        /**
+         * max depth of calls, as many frames as the registers can hold.
+         * A recursion exhausts the java thread stack first is reported as a stack overflow too.
+         */
+        final int maxDepth;
+        /**
+         * first free slot, above registers of the running frame.
+         */
+        int top;
+        /**
+         * high water mark of used slots.
+         */
+        int high;
+        int depth;
+        /**
+         * open up values, which refer to slots of this stack.
+         */
+        private final ArrayList<UpValue> open = new ArrayList<>();
+
+        public CallStack(int size) {
+            this.v = new LValue[size];
+            this.maxDepth = size / FRAME;
+        }
+
+        /**
+         * @return the stack of current thread
+         */
+        public static CallStack local() {
+            return LOCAL.get();
+        }
+
+        void check(int end) {
+            if (end > v.length) throw new LError("stack overflow");
+            if (end > high) high = end;
+        }
+
+        UpValue upValue(int index) {
+            for (var u : open) if (u.index == index) return u;
+            var u = new UpValue(v, index);
+            open.add(u);
+            return u;
+        }
+
+        /**
+         * close open up values from the slot.
+         */
+        void close(int from) {
+            if (open.isEmpty()) return;
+            open.removeIf(u -> {
+                if (u.index < from) return false;
+                u.close();
+                return true;
+            });
+        }
     }
 
     record LocalVar(LString name, int startPC, int endPC) {}
@@ -522,11 +1225,172 @@ public interface Lua {
         public PrintStream STD_OUT = System.out;
         public PrintStream STD_ERR = System.err;
 
-        public Globals(IntObjectMap<LValue> v, int[] index, String[] name) {
-            super(v, index, name);
+        public Globals() {}
+    }
+
+    //region VM
+    /**
+     * arithmetic and bitwise operations, strings are converted to numbers.
+     *
+     * @param op one of {@link #OP_ADD} ... {@link #OP_BNOT}, the right is ignored by unary operations.
+     * @return null if any operand is not a number
+     */
+    static @Nullable LNumber arith(int op, LValue l, LValue r) {
+        if (l instanceof LInteger x && r instanceof LInteger y) return arith(op, x.v, y.v);
+        var x = tonumber(l);
+        var y = tonumber(r);
+        if (x == null || y == null) return null;
+        if (x instanceof LInteger a && y instanceof LInteger b) return arith(op, a.v, b.v);
+        var a = num(x);
+        var b = num(y);
+        return switch (op) {
+            case OP_ADD -> LNumber.of(a + b);
+            case OP_SUB -> LNumber.of(a - b);
+            case OP_MUL -> LNumber.of(a * b);
+            case OP_MOD -> {
+                var m = a % b;
+                if (m > 0 ? b < 0 : m < 0 && b != m) m += b;
+                yield LNumber.of(m);
+            }
+            case OP_POW -> LNumber.of(Math.pow(a, b));
+            case OP_DIV -> LNumber.of(a / b);
+            case OP_IDIV -> LNumber.of(Math.floor(a / b));
+            case OP_UNM -> LNumber.of(-a);
+            default -> arith(op, integral(a), integral(b));
+        };
+    }
+
+    private static LNumber arith(int op, int a, int b) {
+        return switch (op) {
+            case OP_ADD -> LNumber.of(a + b);
+            case OP_SUB -> LNumber.of(a - b);
+            case OP_MUL -> LNumber.of(a * b);
+            case OP_MOD -> {
+                if (b == 0) throw new LError("attempt to perform 'n%0'");
+                yield LNumber.of(Math.floorMod(a, b));
+            }
+            case OP_POW -> LNumber.of(Math.pow(a, b));
+            case OP_DIV -> LNumber.of((double) a / b);
+            case OP_IDIV -> {
+                if (b == 0) throw new LError("attempt to perform 'n//0'");
+                yield LNumber.of(Math.floorDiv(a, b));
+            }
+            case OP_BAND -> LNumber.of(a & b);
+            case OP_BOR -> LNumber.of(a | b);
+            case OP_BXOR -> LNumber.of(a ^ b);
+            case OP_SHL -> LNumber.of(shift(a, b));
+            case OP_SHR -> LNumber.of(shift(a, -b));
+            case OP_UNM -> LNumber.of(-a);
+            case OP_BNOT -> LNumber.of(~a);
+            default -> throw new IllegalArgumentException("unknown arithmetic operation " + op);
+        };
+    }
+
+    /**
+     * logical shift, left for positive n.
+     */
+    static int shift(int x, int n) {
+        if (n <= -32 || n >= 32) return 0;
+        return n >= 0 ? x << n : x >>> -n;
+    }
+
+    static @Nullable LNumber tonumber(LValue v) {
+        if (v instanceof LNumber n) return n;
+        if (!(v instanceof LString s)) return null;
+        var t = s.v.trim();
+        //!! reject java suffixes (1d, 1f) and names (NaN, Infinity)
+        if (t.isEmpty() || Character.isLetter(t.charAt(t.length() - 1)) && !t.startsWith("0x") && !t.startsWith("0X"))
+            return null;
+        try {
+            if (t.startsWith("0x") || t.startsWith("0X")) return LNumber.of((int) Long.parseLong(t.substring(2), 16));
+            return LNumber.of(Double.parseDouble(t));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static double num(LValue v) {
+        return v instanceof LInteger i ? i.v : ((LDouble) v).v;
+    }
+
+    private static int integral(double v) {
+        var i = (int) v;
+        if (i != v) throw new LError("number has no integer representation");
+        return i;
+    }
+
+    private static LError arithmetic(LValue l, LValue r) {
+        var o = tonumber(l) == null ? l : r;
+        return new LError("attempt to perform arithmetic on a " + o.typeName() + " value");
+    }
+
+    private static boolean rawEquals(LValue l, LValue r) {
+        if (l == r) return true;
+        return (l instanceof LNumber || l instanceof LString || l instanceof LBoolean) && l.equals(r);
+    }
+
+    private static boolean lessThan(LValue l, LValue r) {
+        if (l instanceof LInteger x && r instanceof LInteger y) return x.v < y.v;
+        if (l instanceof LNumber && r instanceof LNumber) return num(l) < num(r);
+        if (l instanceof LString x && r instanceof LString y) return x.v.compareTo(y.v) < 0;
+        throw new LError("attempt to compare " + l.typeName() + " with " + r.typeName());
+    }
+
+    private static boolean lessEqual(LValue l, LValue r) {
+        if (l instanceof LInteger x && r instanceof LInteger y) return x.v <= y.v;
+        if (l instanceof LNumber && r instanceof LNumber) return num(l) <= num(r);
+        if (l instanceof LString x && r instanceof LString y) return x.v.compareTo(y.v) <= 0;
+        throw new LError("attempt to compare " + l.typeName() + " with " + r.typeName());
+    }
+
+    /**
+     * @return the number compared with an immediate
+     */
+    private static double compared(LValue v) {
+        if (v instanceof LNumber) return num(v);
+        throw new LError("attempt to compare " + v.typeName() + " with NUMBER");
+    }
+
+    private static LValue index(LValue o, LValue key) {
+        if (o instanceof LTable t) return t.get(key);
+        throw new LError("attempt to index a " + o.typeName() + " value");
+    }
+
+    private static void newIndex(LValue o, LValue key, LValue value) {
+        if (o instanceof LTable t) t.set(key, value);
+        else throw new LError("attempt to index a " + o.typeName() + " value");
+    }
+
+    private static LValue length(LValue o) {
+        if (o instanceof LString || o instanceof LTable) return o.len();
+        throw new LError("attempt to get length of a " + o.typeName() + " value");
+    }
+
+    private static LValue join(LValue[] s, int from, int n) {
+        var b = new StringBuilder();
+        for (var x = from; x < from + n; x++) {
+            var o = s[x];
+            if (o instanceof LString t) b.append(t.v);
+            else if (o instanceof LInteger t) b.append(t.v);
+            else if (o instanceof LDouble t) b.append(t.v);
+            else throw new LError("attempt to concatenate a " + o.typeName() + " value");
         }
+        return LString.of(b.toString());
     }
 
+    /**
+     * call the value at {@code stack[func]}, closures are executed directly.
+     *
+     * @return count of results
+     */
+    private static int dispatch(CallStack stack, int func, int nargs) {
+        var f = stack.v[func];
+        if (f instanceof LClosure c) return c.execute(stack, func, nargs);
+        if (f instanceof LFunction j) return j.invoke(stack, func, nargs);
+        throw new LError("attempt to call a " + f.typeName() + " value");
+    }
+    //endregion
+
     /*===========================================================================
       We assume that instructions are unsigned 32-bit integers.
       All instructions have an opcode in the first 7 bits.
@@ -557,7 +1421,7 @@ public interface Lua {
     }
 
     static int C(int i) {
-        return i >> 24 & 0xFF;
+        return i >>> 24;
     }
 
     static boolean k(int i) {
@@ -565,570 +1429,367 @@ public interface Lua {
     }
 
     static int Bx(int i) {
-        return (i >> 15) & 0x1FFFF;
+        return i >>> 15;
     }
 
     static int Ax(int i) {
-        return i >> 7 & 0x1FFFFFF;
+        return i >>> 7;
     }
 
     static int sBx(int i) {
-        return i >>> 15 & 0x1FFFF - 0xFFFF;
+        return (i >>> 15) - 0xFFFF;
     }
 
     static int sJ(int i) {
-        return i >> 7 & 0x1FFFFFF - 0xFFFFFF;
+        return (i >>> 7) - 0xFFFFFF;
     }
 
+    static int sB(int i) {
+        return (i >>> 16 & 0xFF) - 0x7F;
+    }
 
-    interface Operator {
-        default void eval(int i, LValue[] stack, LValue[] k, UpValue[] u, AtomicInteger pc, int[] code) {
-            eval(A(i), i, stack, k, u, pc, code);
-        }
-
-        void eval(int a, int i, LValue[] stack, LValue[] k, UpValue[] u, AtomicInteger pc, int[] code);
+    static int sC(int i) {
+        return (i >>> 24) - 0x7F;
     }
 
-    enum OP implements Operator {
+
+    /**
+     * opcodes of Lua 5.4, the ordinal is the opcode.
+     */
+    enum OP {
         /**
          * A B	R[A] := R[B]
          */
-        MOVE((a, i, s, k, u, p, code) ->
-                     s[a] = s[B(i)]
-        ),
+        MOVE,
         /**
          * A sBx	R[A] := sBx
          */
-        LOADI((a, i, s, k, u, p, code) ->
-                      s[a] = LValue.of(sBx(i))
-        ),
+        LOADI,
         /**
          * A sBx	R[A] := (lua_Number)sBx
          */
-        LOADF((a, i, s, k, u, p, code) ->
-                      s[a] = LValue.valueOf((double) sBx(i))
-        ),
+        LOADF,
         /**
          * A Bx	R[A] := K[Bx]
          */
-        LOADK((a, i, s, k, u, p, code) ->
-                      s[a] = k[Bx(i)]
-        ),
+        LOADK,
         /**
          * A	R[A] := K[extra arg]
          */
-        LOADKX((a, i, s, k, u, p, code) ->
-               {
-                   var x = code[p.incrementAndGet()];
-                   if (OP(x) != 82)//OP.EXTRA_ARG.ordinal()
-                       throw new LError("");
-                   s[a] = k[Ax(x)];
-               }
-        ),
+        LOADKX,
         /**
          * A	R[A] := false
          */
-        LOADFALSE((a, i, s, k, u, p, code) ->
-                          s[a] = FALSE
-        ),
+        LOADFALSE,
         /**
          * A	R[A] := false; pc++	(*)
          */
-        LFALSESKIP((a, i, s, k, u, p, code) ->
-                   {
-                       s[a] = FALSE;
-                       p.incrementAndGet();
-                   }
-        ),
+        LFALSESKIP,
         /**
          * A	R[A] := true
          */
-        LOADTRUE((a, i, s, k, u, p, code) ->
-                         s[a] = TRUE
-        ),
+        LOADTRUE,
         /**
          * A B	R[A], R[A+1], ..., R[A+B] := nil
          */
-        LOADNIL((a, i, s, k, u, p, code) ->
-                {
-                    var x = B(i);
-                    while (x > 0) {
-                        s[a++] = NIL;
-                        x--;
-                    }
-                }
-        ),
+        LOADNIL,
         /**
          * A B	R[A] := UpValue[B]
          */
-        GETUPVAL((a, i, s, k, u, p, code) ->
-                         s[a] = u[B(i)].value()
-        ),
+        GETUPVAL,
         /**
          * A B	UpValue[B] := R[A]
          */
-        SETUPVAL((a, i, s, k, u, p, code) ->
-                         u[B(i)].value(s[a])
-        ),
+        SETUPVAL,
         /**
          * A B C	R[A] := UpValue[B][K[C]:shortstring]
          */
-        GETTABUP((a, i, s, k, u, p, code) ->
-                         s[a] = u[B(i)].value().get(k[C(i)].string())
-        ),
+        GETTABUP,
         /**
          * A B C	R[A] := R[B][R[C]]
          */
-        GETTABLE((a, i, s, k, u, p, code) ->
-                         s[a] = s[B(i)].get(k[C(i)].table())
-        ),
+        GETTABLE,
         /**
          * A B C	R[A] := R[B][C]
          */
-        GETI((a, i, s, k, u, p, code) ->
-                     s[a] = s[B(i)].get(k[C(i)]).integer()
-        ),
+        GETI,
         /**
          * A B C	R[A] := R[B][K[C]:shortstring]
          */
-        GETFIELD((a, i, s, k, u, p, code) ->
-                         s[a] = s[B(i)].get(k[C(i)].string())
-        ),
+        GETFIELD,
         /**
          * A B C	UpValue[A][K[B]:shortstring] := RK(C)
          */
-        SETTABUP((a, i, s, k, u, p, code) ->
-                         u[a].value().table().set(k[B(i)].string(), k[C(i)])
-        ),
+        SETTABUP,
         /**
          * A B C	R[A][R[B]] := RK(C)
          */
-        SETTABLE((a, i, s, k, u, p, code) ->
-                         s[a].table().set(k[B(i)], k[C(i)])
-        ),
+        SETTABLE,
         /**
          * A B C	R[A][B] := RK(C)
          */
-        SETI((a, i, s, k, u, p, code) ->
-                     s[a].table().set(k[B(i)], k[C(i)].integer())
-        ),
+        SETI,
         /**
          * A B C	R[A][K[B]:shortstring] := RK(C)
          */
-        SETFIELD((a, i, s, k, u, p, code) ->
-                         s[a].table().set(k[B(i)].string(), k[C(i)])
-        ),
+        SETFIELD,
         /**
          * A B C k	R[A] := {}
          */
-        NEWTABLE((a, i, s, k, u, p, code) ->
-                 {
-                     var b = B(i);
-                     var c = C(i);
-                     if (b > 0)
-                         b = 1 << (b - 1);
-                     if (k(i)) c += Ax(p.incrementAndGet()) * (1 << 8);
-                     s[a] = new LTable(b, c);
-                 }
-        ),
+        NEWTABLE,
         /**
          * A B C	R[A+1] := R[B]; R[A] := R[B][RK(C):string]
          */
-        SELF((a, i, s, k, u, p, code) ->
-             {
-                 s[a + 1] = s[B(i)];
-                 s[a] = s[B(i)].table().get(k[C(i)].string());
-             }
-        ),
+        SELF,
         /**
          * A B sC	R[A] := R[B] + sC
          */
-        ADDI((a, i, s, k, u, p, code) ->
-                     s[a] = s[B(i)].integer().add(C(i))
-        ),
+        ADDI,
         /**
          * A B C	R[A] := R[B] + K[C]:number
          */
-        ADDK((a, i, s, k, u, p, code) ->
-                     s[a] = s[B(i)].number().add(k[C(i)].number())
-        ),
+        ADDK,
         /**
          * A B C	R[A] := R[B] - K[C]:number
          */
-        SUBK((a, i, s, k, u, p, code) ->
-                     s[a] = s[B(i)].number().sub(k[C(i)].number())
-        ),
+        SUBK,
         /**
          * A B C	R[A] := R[B] * K[C]:number
          */
-        MULK((a, i, s, k, u, p, code) ->
-                     s[a] = s[B(i)].number().mul(k[C(i)].number())
-        ),
+        MULK,
         /**
          * A B C	R[A] := R[B] % K[C]:number
          */
-        MODK((a, i, s, k, u, p, code) ->
-                     s[a] = s[B(i)].number().mod(k[C(i)].number())
-        ),
+        MODK,
         /**
          * A B C	R[A] := R[B] ^ K[C]:number
          */
-        POWK((a, i, s, k, u, p, code) ->
-                     s[a] = s[B(i)].number().pow(k[C(i)].number())
-        ),
+        POWK,
         /**
          * A B C	R[A] := R[B] / K[C]:number
          */
-        DIVK((a, i, s, k, u, p, code) ->
-                     s[a] = s[B(i)].number().div(k[C(i)].number())
-        ),
+        DIVK,
         /**
          * A B C	R[A] := R[B] // K[C]:number
          */
-        IDIVK((a, i, s, k, u, p, code) ->
-                      s[a] = s[B(i)].number().idiv(k[C(i)].number())
-        ),
+        IDIVK,
         /**
          * A B C	R[A] := R[B] & K[C]:integer
          */
-        BANDK((a, i, s, k, u, p, code) ->
-                      s[a] = s[B(i)].integer().bAnd(k[C(i)].integer().v)
-        ),
+        BANDK,
         /**
          * A B C	R[A] := R[B] | K[C]:integer
          */
-        BORK((a, i, s, k, u, p, code) ->
-                     s[a] = s[B(i)].integer().bOr(k[C(i)].integer().v)
-        ),
+        BORK,
         /**
          * A B C	R[A] := R[B] ~ K[C]:integer
          */
-        BXORK((a, i, s, k, u, p, code) ->
-                      s[a] = s[B(i)].integer().bXor(k[C(i)].integer().v)
-        ),
+        BXORK,
         /**
          * A B sC	R[A] := R[B] >> sC
          */
-        SHRI((a, i, s, k, u, p, code) ->
-                     s[a] = s[B(i)].integer().shr(C(i))
-        ),
+        SHRI,
         /**
          * A B sC	R[A] := sC << R[B]
          */
-        SHLI((a, i, s, k, u, p, code) ->
-                     s[a] = LValue.of(C(i) << s[B(i)].integer().v)
-        ),
+        SHLI,
         /**
          * A B C	R[A] := R[B] + R[C]
          */
-        ADD((a, i, s, k, u, p, code) ->
-                    s[a] = s[B(i)].number().add(s[C(i)].number())
-        ),
+        ADD,
         /**
          * A B C	R[A] := R[B] - R[C]
          */
-        SUB((a, i, s, k, u, p, code) ->
-                    s[a] = s[B(i)].number().sub(s[C(i)].number())
-        ),
+        SUB,
         /**
          * A B C	R[A] := R[B] * R[C]
          */
-        MUL((a, i, s, k, u, p, code) ->
-                    s[a] = s[B(i)].number().mul(s[C(i)].number())
-        ),
+        MUL,
         /**
          * A B C	R[A] := R[B] % R[C]
          */
-        MOD((a, i, s, k, u, p, code) ->
-                    s[a] = s[B(i)].number().mod(s[C(i)].number())
-        ),
+        MOD,
         /**
          * A B C	R[A] := R[B] ^ R[C]
          */
-        POW((a, i, s, k, u, p, code) ->
-                    s[a] = s[B(i)].number().pow(s[C(i)].number())
-        ),
+        POW,
         /**
          * A B C	R[A] := R[B] / R[C]
          */
-        DIV((a, i, s, k, u, p, code) ->
-                    s[a] = s[B(i)].number().div(s[C(i)].number())
-        ),
+        DIV,
         /**
          * A B C	R[A] := R[B] // R[C]
          */
-        IDIV((a, i, s, k, u, p, code) ->
-                     s[a] = s[B(i)].number().idiv(s[C(i)].number())
-        ),
+        IDIV,
         /**
          * A B C	R[A] := R[B] & R[C]
          */
-        BAND((a, i, s, k, u, p, code) ->
-                     s[a] = s[B(i)].number().bAnd(s[C(i)].number())
-        ),
+        BAND,
         /**
          * A B C	R[A] := R[B] | R[C]
          */
-        BOR((a, i, s, k, u, p, code) ->
-                    s[a] = s[B(i)].number().bOr(s[C(i)].number())
-        ),
+        BOR,
         /**
          * A B C	R[A] := R[B] ~ R[C]
          */
-        BXOR((a, i, s, k, u, p, code) ->
-                     s[a] = s[B(i)].number().bXor(s[C(i)].number())
-        ),
+        BXOR,
         /**
          * A B C	R[A] := R[B] << R[C]
          */
-        SHL((a, i, s, k, u, p, code) ->
-                    s[a] = s[B(i)].number().shl(s[C(i)].number())
-        ),
+        SHL,
         /**
          * A B C	R[A] := R[B] >> R[C]
          */
-        SHR((a, i, s, k, u, p, code) ->
-                    s[a] = s[B(i)].number().shr(s[C(i)].number())
-        ),
+        SHR,
         /**
          * A B C	call C metamethod over R[A] and R[B]	(*)
          */
-        MMBIN((a, i, s, k, u, p, code) -> {
-            //!! TODO
-        }),
+        MMBIN,
         /**
          * A sB C k	call C metamethod over R[A] and sB
          */
-        MMBINI((a, i, s, k, u, p, code) -> {}),
+        MMBINI,
         /**
          * A B C k		call C metamethod over R[A] and K[B]
          */
-        MMBINK((a, i, s, k, u, p, code) -> {}),
+        MMBINK,
         /**
          * A B	R[A] := -R[B]
          */
-        UNM((a, i, s, k, u, p, code) -> {}),
+        UNM,
         /**
          * A B	R[A] := ~R[B]
          */
-        BNOT((a, i, s, k, u, p, code) ->
-                     s[a] = s[B(i)].number().bNot()
-        ),
+        BNOT,
         /**
          * A B	R[A] := not R[B]
          */
-        NOT((a, i, s, k, u, p, code) ->
-                    s[a] = s[B(i)].not()
-        ),
+        NOT,
         /**
          * A B	R[A] := #R[B] (length operator)
          */
-        LEN((a, i, s, k, u, p, code) ->
-                    s[a] = s[B(i)].len()
-        ),
+        LEN,
         /**
          * A B	R[A] := R[A].. ... ..R[A + B - 1]
          */
-        CONCAT((a, i, s, k, u, p, code) ->
-               {
-                   var b = B(i);
-                   s[a] = s[a].concat(Arrays.copyOfRange(s, a, a + b));
-               }
-        ),
+        CONCAT,
         /**
          * A	close all upvalues >= R[A]
          */
-        CLOSE((a, i, s, k, u, p, code) -> {}),
+        CLOSE,
         /**
          * A	mark variable A "to be closed"
          */
-        TBC((a, i, s, k, u, p, code) -> {}),
+        TBC,
         /**
          * sJ	pc += sJ
          */
-        JMP((a, i, s, k, u, p, code) ->
-                    p.addAndGet(sJ(i))
-        ),
+        JMP,
         /**
          * A B k	if ((R[A] == R[B]) ~= k) then pc++
          */
-        EQ((a, i, s, k, u, p, code) ->
-           {
-               if (s[a].equals(s[B(i)]) == k(i)) p.incrementAndGet();
-           }
-        ),
+        EQ,
         /**
          * A B k	if ((R[A] <  R[B]) ~= k) then pc++
          */
-        LT((a, i, s, k, u, p, code) ->
-           {
-               if (s[a].compare(s[B(i)]) < 0 != k(i)) p.incrementAndGet();
-           }
-        ),
+        LT,
         /**
          * A B k	if ((R[A] <= R[B]) ~= k) then pc++
          */
-        LE((a, i, s, k, u, p, code) ->
-           {
-               if (s[a].compare(s[B(i)]) <= 0 != k(i)) p.incrementAndGet();
-           }
-        ),
+        LE,
         /**
          * A B k	if ((R[A] == K[B]) ~= k) then pc++
          */
-        EQK((a, i, s, k, u, p, code) ->
-            {
-                if (s[a].eq(k[B(i)]) != k(i)) p.incrementAndGet();
-            }
-        ),
+        EQK,
         /**
          * A sB k	if ((R[A] == sB) ~= k) then pc++
          */
-        EQI((a, i, s, k, u, p, code) ->
-            {
-                if (s[a].integer().eq(B(i)) != k(i)) p.incrementAndGet();
-            }
-        ),
+        EQI,
         /**
          * A sB k	if ((R[A] < sB) ~= k) then pc++
          */
-        LTI((a, i, s, k, u, p, code) ->
-            {
-                if (s[a].integer().compare(B(i)) < 0 != k(i)) p.incrementAndGet();
-            }
-        ),
+        LTI,
         /**
          * A sB k	if ((R[A] <= sB) ~= k) then pc++
          */
-        LEI((a, i, s, k, u, p, code) ->
-            {
-                if (s[a].integer().compare(B(i)) <= 0 != k(i)) p.incrementAndGet();
-            }
-        ),
+        LEI,
         /**
          * A sB k	if ((R[A] > sB) ~= k) then pc++
          */
-        GTI((a, i, s, k, u, p, code) ->
-            {
-                if (s[a].integer().compare(B(i)) > 0 != k(i)) p.incrementAndGet();
-            }
-        ),
+        GTI,
         /**
          * A sB k	if ((R[A] >= sB) ~= k) then pc++
          */
-        GEI((a, i, s, k, u, p, code) ->
-            {
-                if (s[a].integer().compare(B(i)) >= 0 != k(i)) p.incrementAndGet();
-            }
-        ),
+        GEI,
         /**
          * A k	if (not R[A] == k) then pc++
          */
-        TEST((a, i, s, k, u, p, code) ->
-             {
-                 if (s[a].bool().v != k(i)) p.incrementAndGet();
-             }
-        ),
+        TEST,
         /**
          * A B k	if (not R[B] == k) then pc++ else R[A] := R[B] (*)
          */
-        TESTSET((a, i, s, k, u, p, code) ->
-                {
-                    if (s[B(i)].bool().v != k(i)) p.incrementAndGet();
-                    else s[a] = s[B(i)];
-                }
-        ),
+        TESTSET,
         /**
          * A B C	R[A], ... ,R[A+C-2] := R[A](R[A+1], ... ,R[A+B-1])
          */
-        CALL((a, i, s, k, u, p, code) ->
-             {
-                 //TODO
-             }
-        ),
+        CALL,
         /**
          * A B C k	return R[A](R[A+1], ... ,R[A+B-1])
          */
-        TAILCALL((a, i, s, k, u, p, code) -> {
-            //todo
-        }),
+        TAILCALL,
         /**
          * A B C k	return R[A], ... ,R[A+B-2]	(see note)
          */
-        RETURN((a, i, s, k, u, p, code) -> {
-            //todo
-        }),
+        RETURN,
         /**
          * return
          */
-        RETURN0((a, i, s, k, u, p, code) -> {
-            p.set(-1);
-            s[s.length-1]=NONE;//TODO
-        }),
+        RETURN0,
         /**
          * A	return R[A]
          */
-        RETURN1((a, i, s, k, u, p, code) -> {
-            p.set(-1);
-            s[s.length-1]=s[a];//TODO
-        }),
+        RETURN1,
         /**
          * A Bx	update counters; if loop continues then pc-=Bx;
          */
-        FORLOOP((a, i, s, k, u, p, code) -> {
-            var b=Bx(i);
-
-        }),
+        FORLOOP,
         /**
          * A Bx	<check values and prepare counters>; if not to run then pc+=Bx+1;
          */
-        FORPREP((a, i, s, k, u, p, code) -> {}),
+        FORPREP,
         /**
          * A Bx	create upvalue for R[A + 3]; pc+=Bx
          */
-        TFORPREP((a, i, s, k, u, p, code) -> {}),
+        TFORPREP,
         /**
          * A C	R[A+4], ... ,R[A+3+C] := R[A](R[A+1], R[A+2]);
          */
-        TFORCALL((a, i, s, k, u, p, code) -> {}),
+        TFORCALL,
         /**
          * A Bx	if R[A+2] ~= nil then { R[A]=R[A+2]; pc -= Bx }
          */
-        TFORLOOP((a, i, s, k, u, p, code) -> {}),
+        TFORLOOP,
         /**
          * A B C k	R[A][C+i] := R[A+i], 1 <= i <= B
          */
-        SETLIST((a, i, s, k, u, p, code) -> {}),
+        SETLIST,
         /**
          * A Bx	R[A] := closure(KPROTO[Bx])
          */
-        CLOSURE((a, i, s, k, u, p, code) -> {}),
+        CLOSURE,
         /**
          * A C	R[A], R[A+1], ..., R[A+C-2] = vararg
          */
-        VARARG((a, i, s, k, u, p, code) -> {}),
+        VARARG,
         /**
          * A	(adjust vararg parameters)
          */
-        VARARGPREP((a, i, s, k, u, p, code) -> {}),
+        VARARGPREP,
         /**
          * Ax	extra (larger) argument for previous opcode
          */
-        EXTRA_ARG((a, i, s, k, u, p, code) -> {
-            throw new LError("invalid OP.EXTRA_ARG");
-        }),
+        EXTRA_ARG;
 
-        ;
-
-        public final Operator operator;
-
-        OP(Operator o) {
-            this.operator = o;
-        }
-
-        @Override
-        public void eval(int a, int i, LValue[] stack, LValue[] k, UpValue[] u, AtomicInteger pc, int[] code) {
-            operator.eval(a, i, stack, k, u, pc, code);
-        }
+        static final OP[] CODES = values();
     }
 }
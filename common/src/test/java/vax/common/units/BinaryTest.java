@@ -0,0 +1,224 @@
+package vax.common.units;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+class BinaryTest {
+    static final int[] INTS = {0, 1, 0x7F, 0x80, 0x3FFF, 0x4000, 0x1FFFFF, 0x200000, 0xFFFFFFF, 0x10000000,
+            Integer.MAX_VALUE, -1, -64, -65, Integer.MIN_VALUE};
+    static final long[] LONGS = {0L, 1L, 0x7FL, 0x80L, 0xFFFFFFFFL, 1L << 35, (1L << 49) - 1, 1L << 49, (1L << 56) - 1,
+            1L << 56, (1L << 63) - 1, -1L, -64L, -65L, Long.MIN_VALUE};
+
+    /**
+     * binaries of every read position implementation.
+     */
+    static Binary[] binaries() {
+        return new Binary[]{Binary.of(16, true), Binary.of(16, false), Binary.pooled(16)};
+    }
+
+    static void release(Binary b) {
+        if (b instanceof Binary.Pooled p) p.release();
+    }
+
+    @Test
+    void cursor() {
+        assertInstanceOf(Binary.Impl.class, Binary.of(16, true));
+        assertInstanceOf(Binary.Plain.class, Binary.of(16, false));
+        assertInstanceOf(Binary.Plain.class, Binary.of(new byte[0], false));
+        var impl = Binary.of(Buffer.buffer("ab"), true);
+        impl.$i8();
+        var plain = Binary.of(impl, false);
+        assertInstanceOf(Binary.Plain.class, plain);
+        assertEquals(1, plain.pos(), "keeps the read position");
+        assertSame(plain, Binary.of(plain, false));
+    }
+
+    @Test
+    void primitives() {
+        for (var b : binaries()) {
+            b.$b(true).$i8((byte) -3).$i16((short) 300).$i32(-7).$i64(1L << 40).$f32(1.5f).$f64(-2.25)
+             .text("hello").text("").text(null).binary(new byte[]{1, 2, 3}).$binary(new byte[]{4});
+            var name = b.getClass().getSimpleName();
+            assertTrue(b.$b(), name);
+            assertEquals(-3, b.$i8(), name);
+            assertEquals(300, b.$i16(), name);
+            assertEquals(-7, b.$i32(), name);
+            assertEquals(1L << 40, b.$i64(), name);
+            assertEquals(1.5f, b.$f32(), name);
+            assertEquals(-2.25, b.$f64(), name);
+            assertEquals("hello", b.text(), name);
+            assertEquals("", b.text(), name);
+            assertNull(b.text(), name);
+            assertArrayEquals(new byte[]{1, 2, 3}, b.binary(), name);
+            assertArrayEquals(new byte[]{4}, b.$binary(), name);
+            assertEquals(b.length(), b.pos(), name);
+            release(b);
+        }
+    }
+
+    @Test
+    void views() {
+        var b = Binary.of(16, false).$i32(1).$i32(2);
+        b.$i32();
+        var slice = b.slice(4, 8);
+        assertEquals(0, slice.pos());
+        assertEquals(2, slice.$i32());
+        var copy = b.copy();
+        assertEquals(0, copy.pos());
+        assertEquals(1, copy.$i32());
+        assertEquals(4, b.pos(), "views have their own position");
+    }
+
+    @Test
+    void v32() {
+        for (var b : binaries()) {
+            for (var v : INTS) b.$v32(v);
+            for (var v : INTS) assertEquals(v, b.$v32(), b.getClass().getSimpleName());
+            assertEquals(b.length(), b.pos());
+            release(b);
+        }
+    }
+
+    @Test
+    void v64() {
+        for (var b : binaries()) {
+            for (var v : LONGS) b.$v64(v);
+            for (var v : LONGS) assertEquals(v, b.$v64(), b.getClass().getSimpleName());
+            assertEquals(b.length(), b.pos());
+            release(b);
+        }
+    }
+
+    @Test
+    void varSize() {
+        for (var v : INTS) {
+            var b = Binary.of(16, false).$v32(v);
+            assertEquals(Binary.varSize(v), b.length(), () -> "size of " + v);
+        }
+        for (var v : LONGS) {
+            var b = Binary.of(16, false).$v64(v);
+            assertEquals(Binary.varSize(v), b.length(), () -> "size of " + v);
+        }
+    }
+
+    @Test
+    void zigzag() {
+        for (var b : binaries()) {
+            for (var v : INTS) b.$z32(v);
+            for (var v : LONGS) b.$z64(v);
+            for (var v : INTS) assertEquals(v, b.$z32());
+            for (var v : LONGS) assertEquals(v, b.$z64());
+            release(b);
+        }
+        assertEquals(1, Binary.of(16, false).$z32(-1).length());
+        assertEquals(1, Binary.of(16, false).$z64(-64L).length());
+    }
+
+    @Test
+    void sharedReaders() throws Exception {
+        var n = 10000;
+        var b = Binary.of(n * 5, true);
+        for (var i = 0; i < n; i++) b.$v32(i * 1000);
+        var threads = 4;
+        var read = new ConcurrentLinkedQueue<Integer>();
+        var done = new CountDownLatch(threads);
+        for (var t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    while (b.pos() < b.length()) {
+                        try {
+                            read.add(b.$v32());
+                        } catch (IndexOutOfBoundsException e) {
+                            break;
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        assertEquals(n, read.size());
+        var seen = new boolean[n];
+        for (var v : read) {
+            assertEquals(0, v % 1000, "torn var int " + v);
+            assertFalse(seen[v / 1000], "duplicated var int " + v);
+            seen[v / 1000] = true;
+        }
+    }
+
+    @Test
+    void arrays() {
+        var r = new Random(42);
+        var ints = r.ints(100).toArray();
+        var longs = r.longs(100).toArray();
+        var sorted = r.longs(100, 0, 1L << 40).sorted().toArray();
+        var floats = new float[]{0f, -1.5f, Float.NaN, Float.MAX_VALUE};
+        var doubles = r.doubles(20).toArray();
+        for (var b : binaries()) {
+            b.$v32s(ints).$v64s(longs).$z32s(ints).$z64s(longs).$d64s(sorted)
+             .$i32s(ints).$i64s(longs).$f32s(floats).$f64s(doubles)
+             .$v32s(new int[0]).$d64s(new long[0]);
+            assertArrayEquals(ints, b.$v32s());
+            assertArrayEquals(longs, b.$v64s());
+            assertArrayEquals(ints, b.$z32s());
+            assertArrayEquals(longs, b.$z64s());
+            assertArrayEquals(sorted, b.$d64s());
+            assertArrayEquals(ints, b.$i32s());
+            assertArrayEquals(longs, b.$i64s());
+            assertArrayEquals(floats, b.$f32s());
+            assertArrayEquals(doubles, b.$f64s());
+            assertEquals(0, b.$v32s().length);
+            assertEquals(0, b.$d64s().length);
+            assertEquals(b.length(), b.pos());
+            release(b);
+        }
+    }
+
+    @Test
+    void arraySize() {
+        //!! a declared size beyond the readable bytes is rejected before allocating
+        var b = Binary.of(16, false).$v32(Integer.MAX_VALUE).$i32(1);
+        assertThrows(IllegalStateException.class, b::$i64s);
+    }
+
+    @Test
+    void composite() {
+        var a = Binary.of(16, false).$v64(Long.MIN_VALUE);
+        var b = Binary.of(16, false).$v32(Integer.MIN_VALUE).$z32(-7);
+        var parts = new Buffer[40];
+        for (var i = 0; i < parts.length; i++) parts[i] = Binary.of(4, false).$v32(i).$raw();
+        var c = Binary.composite(a.$raw(), b.$raw());
+        for (var p : parts) c.add(p);
+        //!! more parts than the default max components of netty, never consolidated
+        assertEquals(42, c.parts());
+        assertEquals(Long.MIN_VALUE, c.$v64());
+        assertEquals(Integer.MIN_VALUE, c.$v32());
+        assertEquals(-7, c.$z32());
+        for (var i = 0; i < parts.length; i++) assertEquals(i, c.$v32());
+        assertEquals(c.length(), c.pos());
+    }
+
+    @Test
+    void compositeShares() {
+        var a = Binary.of(4, false).$i32(1);
+        var c = Binary.composite(a, Binary.of(4, false).$i32(2), Buffer.buffer());
+        assertEquals(2, c.parts(), "empty parts are skipped");
+        a.setInt(0, 3);
+        assertEquals(3, c.$i32(), "parts are not copied");
+        assertEquals(2, c.$i32());
+        var out = Buffer.buffer().appendBuffer(c.$raw());
+        assertEquals(8, out.length());
+        assertEquals(3, out.getInt(0));
+    }
+}
@@ -0,0 +1,175 @@
+package vax.common.units;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+class FramesTest {
+    static final int MAX = 1 << 20;
+
+    static Buffer stream(List<Buffer> frames) {
+        var b = Buffer.buffer();
+        for (var f : frames) b.appendBuffer(Frames.header(f.length())).appendBuffer(f);
+        return b;
+    }
+
+    static List<Buffer> frames() {
+        var r = new Random(7);
+        var l = new ArrayList<Buffer>();
+        for (var n : new int[]{0, 1, 127, 128, 300, 16384, 70000}) {
+            var b = new byte[n];
+            r.nextBytes(b);
+            l.add(Buffer.buffer(b));
+        }
+        return l;
+    }
+
+    @Test
+    void whole() {
+        var frames = frames();
+        var out = new ArrayList<Binary>();
+        var d = new Frames(MAX, out::add);
+        d.handle(stream(frames));
+        assertEquals(frames, out.stream().map(Binary::$raw).toList());
+        assertEquals(0, d.available());
+    }
+
+    @Test
+    void chunked() {
+        var frames = frames();
+        var all = stream(frames);
+        for (var step : new int[]{1, 2, 3, 7, 129, 4096}) {
+            var out = new ArrayList<Binary>();
+            var d = new Frames(MAX, out::add);
+            for (var at = 0; at < all.length(); at += step) d.handle(all.slice(at, Math.min(at + step, all.length())));
+            assertEquals(frames.size(), out.size(), "step " + step);
+            for (var i = 0; i < frames.size(); i++) {
+                assertEquals(frames.get(i), Buffer.buffer(out.get(i).getBytes()), "step " + step + " frame " + i);
+            }
+            assertEquals(0, d.available());
+        }
+    }
+
+    @Test
+    void partial() {
+        var out = new ArrayList<Binary>();
+        var d = new Frames(MAX, out::add);
+        var all = stream(List.of(Buffer.buffer("hello")));
+        d.handle(all.slice(0, 3));
+        assertTrue(out.isEmpty());
+        assertEquals(2, d.available());
+        d.handle(all.slice(3, all.length()));
+        assertEquals("hello", out.get(0).toString());
+    }
+
+    @Test
+    void oversize() {
+        var d = new Frames(100, f -> fail("no frame expected"));
+        assertThrows(IllegalStateException.class, () -> d.handle(Frames.header(101)));
+        assertEquals(0, d.available());
+        //!! failed: later chunks are rejected, not buffered
+        assertThrows(IllegalStateException.class, () -> d.handle(Buffer.buffer(new byte[64])));
+        assertEquals(0, d.available());
+        var m = new Frames(100, f -> fail("no frame expected"));
+        assertThrows(IllegalStateException.class,
+                     () -> m.handle(Buffer.buffer(new byte[]{-1, -1, -1, -1, -1, 1})));
+        assertThrows(IllegalStateException.class, () -> m.handle(Frames.header(1)));
+    }
+
+    static Buffer text(int n) {
+        var b = new StringBuilder();
+        while (b.length() < n) b.append("{\"id\":").append(b.length()).append(",\"name\":\"frame\"}");
+        return Buffer.buffer(b.substring(0, n));
+    }
+
+    @Test
+    void codec() {
+        var c = new Frames.Codec(MAX);
+        for (var n : new int[]{0, 1, 100, 1023, 1024, 65536}) {
+            var p = text(n);
+            var e = c.encode(p);
+            if (n >= 1024) assertTrue(e.length() < n, "compressed " + n);
+            assertEquals(p, Buffer.buffer(c.decode(e).getBytes()), "size " + n);
+        }
+        var r = new Random(3);
+        var noise = new byte[4096];
+        r.nextBytes(noise);
+        var p = Buffer.buffer(noise);
+        assertEquals(p, Buffer.buffer(c.decode(c.encode(p)).getBytes()));
+    }
+
+    @Test
+    void dictionary() {
+        var dict = "{\"id\":,\"name\":\"frame\"}".getBytes(StandardCharsets.UTF_8);
+        var c = new Frames.Codec(MAX, 64, 6, dict);
+        var p = text(4096);
+        var e = c.encode(p);
+        assertEquals(p, Buffer.buffer(c.decode(e).getBytes()));
+        //!! a peer without the dictionary can't decode it
+        var other = new Frames.Codec(MAX);
+        assertThrows(IllegalStateException.class, () -> other.decode(e));
+        assertThrows(IllegalStateException.class, () -> c.decode(other.encode(p)));
+    }
+
+    @Test
+    void legacy() {
+        var c = new Frames.Codec(MAX);
+        for (var b : new byte[][]{
+                {},
+                {(byte) 0xF5, 'V'},
+                {(byte) 0xA1, 2, 3, 4, 5, 6, 7, 8, 9, 10},
+                {(byte) 0xF5, 'V', 'Y', 1, 0, 1, 2, 3, 4},
+                {(byte) 0xF5, 'V', 'X', 2, 0, 0, 0, 0, 0},
+                "{\"legacy\":true}".getBytes(StandardCharsets.UTF_8)}) {
+            var p = Buffer.buffer(b);
+            assertEquals(p, c.decode(p));
+        }
+    }
+
+    @Test
+    void corrupted() {
+        var c = new Frames.Codec(MAX);
+        for (var b : new byte[][]{
+                {(byte) 0xF5, 'V', 'X', 1},
+                {(byte) 0xF5, 'V', 'X', 1, 0, 1, 2, 3, 4},
+                {(byte) 0xF5, 'V', 'X', 1, 4, 1, 2, 3, 4},
+                {(byte) 0xF5, 'V', 'X', 1, 1, 0x7F, 1, 2, 3, 4, 5},
+                {(byte) 0xF5, 'V', 'X', 1, 1, -1, -1, -1, -1, -1, 1, 2, 3, 4}}) {
+            var p = Buffer.buffer(b);
+            assertThrows(IllegalStateException.class, () -> c.decode(p));
+        }
+        for (var e : new Buffer[]{c.encode(text(100)), c.encode(text(4096))}) {
+            var flipped = e.copy();
+            flipped.setByte(e.length() - 1, (byte) (e.getByte(e.length() - 1) ^ 1));
+            assertThrows(IllegalStateException.class, () -> c.decode(flipped));
+            var body = e.copy();
+            body.setByte(Frames.Codec.HEAD + 3, (byte) (e.getByte(Frames.Codec.HEAD + 3) ^ 0x10));
+            assertThrows(IllegalStateException.class, () -> c.decode(body));
+        }
+    }
+
+    @Test
+    void bounded() {
+        var c = new Frames.Codec(MAX);
+        var e = c.encode(text(4096));
+        //!! the size var int right after the head claims more than max
+        var forged = Buffer.buffer()
+                           .appendBuffer(e.slice(0, Frames.Codec.HEAD))
+                           .appendBuffer(Binary.of(5, false).$v32(MAX + 1).$raw())
+                           .appendBuffer(e.slice(Frames.Codec.HEAD + Binary.varSize(4096), e.length()));
+        var x = assertThrows(IllegalStateException.class, () -> c.decode(forged));
+        assertTrue(x.getMessage().contains("exceeds"), x.getMessage());
+        var truncated = e.slice(0, e.length() / 2).copy().appendIntLE(e.getIntLE(e.length() - 4));
+        assertThrows(IllegalStateException.class, () -> c.decode(truncated));
+    }
+}
@@ -0,0 +1,176 @@
+package vax.common.units;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static vax.common.units.Lua.*;
+
+/**
+ * programs are assembled by hand, as compiled by luac 5.4.
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+class LuaTest {
+    //region assembler
+    static int abc(OP o, int a, int b, int c, int k) {
+        return o.ordinal() | a << 7 | k << 15 | b << 16 | c << 24;
+    }
+
+    static int abx(OP o, int a, int bx) {
+        return o.ordinal() | a << 7 | bx << 15;
+    }
+
+    static int asbx(OP o, int a, int sbx) {
+        return abx(o, a, sbx + 0xFFFF);
+    }
+
+    /**
+     * @return the signed argument sB or sC
+     */
+    static int s(int v) {
+        return v + 0x7F;
+    }
+
+    static Prototype proto(int params, int max, LValue[] k, int[] code, Prototype[] p, UpValueDesc... u) {
+        return new Prototype(k, code, p, null, null, u, null, 0, 0, params, 0, max);
+    }
+
+    static LClosure closure(Prototype p) {
+        return new LClosure(p, new UpValue[0], null);
+    }
+
+    /**
+     * a main chunk of one parameter: calls a recursive local function of the only prototype by the parameter.
+     */
+    static LClosure recursive(Prototype f) {
+        return closure(proto(1, 4, new LValue[0], new int[]{
+                abx(OP.CLOSURE, 1, 0),
+                abc(OP.MOVE, 2, 1, 0, 0),
+                abc(OP.MOVE, 3, 0, 0, 0),
+                abc(OP.CALL, 2, 2, 2, 0),
+                abc(OP.RETURN1, 2, 0, 0, 0)}, new Prototype[]{f}));
+    }
+    //endregion
+
+    /**
+     * <pre>{@code
+     * local function fib(n) if n < 2 then return n end return fib(n - 1) + fib(n - 2) end
+     * }</pre>
+     */
+    static final Prototype FIB = proto(1, 4, new LValue[0], new int[]{
+            abc(OP.LTI, 0, s(2), 0, 1),
+            abc(OP.RETURN1, 0, 0, 0, 0),
+            abc(OP.GETUPVAL, 1, 0, 0, 0),
+            abc(OP.ADDI, 2, 0, s(-1), 0),
+            abc(OP.MMBINI, 0, 0, 0, 0),
+            abc(OP.CALL, 1, 2, 2, 0),
+            abc(OP.GETUPVAL, 2, 0, 0, 0),
+            abc(OP.ADDI, 3, 0, s(-2), 0),
+            abc(OP.MMBINI, 0, 0, 0, 0),
+            abc(OP.CALL, 2, 2, 2, 0),
+            abc(OP.ADD, 1, 1, 2, 0),
+            abc(OP.MMBIN, 1, 2, 6, 0),
+            abc(OP.RETURN1, 1, 0, 0, 0)}, new Prototype[0], new UpValueDesc(null, true, (short) 1));
+
+    /**
+     * <pre>{@code
+     * local function depth(n) if n < 1 then return n end return depth(n - 1) + 1 end
+     * }</pre>
+     */
+    static final Prototype DEPTH = proto(1, 3, new LValue[0], new int[]{
+            abc(OP.LTI, 0, s(1), 0, 1),
+            abc(OP.RETURN1, 0, 0, 0, 0),
+            abc(OP.GETUPVAL, 1, 0, 0, 0),
+            abc(OP.ADDI, 2, 0, s(-1), 0),
+            abc(OP.MMBINI, 0, 0, 0, 0),
+            abc(OP.CALL, 1, 2, 2, 0),
+            abc(OP.ADDI, 1, 1, s(1), 0),
+            abc(OP.MMBINI, 0, 0, 0, 0),
+            abc(OP.RETURN1, 1, 0, 0, 0)}, new Prototype[0], new UpValueDesc(null, true, (short) 1));
+
+    @Test
+    void fib() {
+        var f = recursive(FIB);
+        assertEquals(LNumber.of(0), f.call(LNumber.of(0))[0]);
+        assertEquals(LNumber.of(1), f.call(LNumber.of(1))[0]);
+        assertEquals(LNumber.of(55), f.call(LNumber.of(10))[0]);
+        assertEquals(LNumber.of(75025), f.call(LNumber.of(25))[0]);
+    }
+
+    /**
+     * <pre>{@code
+     * local function sum(n) local s = 0 for i = 1, n do s = s + i end return s end
+     * }</pre>
+     */
+    @Test
+    void loop() {
+        var sum = closure(proto(1, 6, new LValue[0], new int[]{
+                asbx(OP.LOADI, 1, 0),
+                asbx(OP.LOADI, 2, 1),
+                abc(OP.MOVE, 3, 0, 0, 0),
+                asbx(OP.LOADI, 4, 1),
+                abx(OP.FORPREP, 2, 2),
+                abc(OP.ADD, 1, 1, 5, 0),
+                abc(OP.MMBIN, 1, 5, 6, 0),
+                abx(OP.FORLOOP, 2, 3),
+                abc(OP.RETURN1, 1, 0, 0, 0)}, new Prototype[0]));
+        assertEquals(LNumber.of(5050), sum.call(LNumber.of(100))[0]);
+        assertEquals(LNumber.of(0), sum.call(LNumber.of(0))[0]);
+        assertEquals(LNumber.of(55), sum.call(LNumber.of(10.5))[0]);
+        assertThrows(LError.class, () -> sum.call(LString.of("a")));
+    }
+
+    /**
+     * <pre>{@code
+     * local function join(a, b) return a .. "-" .. b end
+     * }</pre>
+     */
+    @Test
+    void concat() {
+        var join = closure(proto(2, 5, new LValue[]{LString.of("-")}, new int[]{
+                abc(OP.MOVE, 2, 0, 0, 0),
+                abx(OP.LOADK, 3, 0),
+                abc(OP.MOVE, 4, 1, 0, 0),
+                abc(OP.CONCAT, 2, 3, 0, 0),
+                abc(OP.RETURN1, 2, 0, 0, 0)}, new Prototype[0]));
+        assertEquals(LString.of("a-b"), join.call(LString.of("a"), LString.of("b"))[0]);
+        assertEquals(LString.of("x-1"), join.call(LString.of("x"), LNumber.of(1))[0]);
+        assertEquals(LString.of("2-y"), join.call(LNumber.of(2), LString.of("y"))[0]);
+        assertThrows(LError.class, () -> join.call(LString.of("a"), new LTable()));
+    }
+
+    @Test
+    void depth() throws Exception {
+        var d = recursive(DEPTH);
+        var error = new AtomicReference<Throwable>();
+        //!! a large java stack, so the depth is bounded by the registers
+        var t = new Thread(null, () -> {
+            try {
+                var stack = new CallStack(1 << 16);
+                assertEquals(LNumber.of(10000), d.call(stack, LNumber.of(10000))[0]);
+                var e = assertThrows(LError.class, () -> d.call(stack, LNumber.of(1 << 16)));
+                assertEquals("stack overflow", e.getMessage());
+                assertEquals(0, stack.depth);
+                assertEquals(0, stack.top);
+                assertEquals(LNumber.of(10), d.call(stack, LNumber.of(10))[0]);
+            } catch (Throwable e) {
+                error.set(e);
+            }
+        }, "deep", 1L << 30);
+        t.start();
+        t.join();
+        if (error.get() != null) throw new AssertionError(error.get());
+    }
+
+    @Test
+    void overflow() {
+        //!! bounded by the java stack of current thread, or the registers
+        var d = recursive(DEPTH);
+        var e = assertThrows(LError.class, () -> d.call(LNumber.of(1 << 20)));
+        assertEquals("stack overflow", e.getMessage());
+        assertEquals(LNumber.of(100), d.call(LNumber.of(100))[0]);
+    }
+}
@@ -0,0 +1,71 @@
+package vax.common.units;
+
+import io.netty.util.ResourceLeakDetector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+@SuppressWarnings("deprecation")
+class PooledTest {
+    static ResourceLeakDetector.Level level;
+
+    @BeforeAll
+    static void paranoid() {
+        level = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+    }
+
+    @AfterAll
+    static void restore() {
+        ResourceLeakDetector.setLevel(level);
+    }
+
+    @Test
+    void releaseOnce() {
+        var b = Binary.pooled(16);
+        var raw = Binary.raw(b).getByteBuf();
+        b.$i32(42);
+        assertEquals(42, b.$i32());
+        b.release();
+        b.release();
+        b.close();
+        assertEquals(0, raw.refCnt());
+    }
+
+    @Test
+    void releaseRacing() throws Exception {
+        var threads = 4;
+        var errors = new ConcurrentLinkedQueue<Throwable>();
+        for (var round = 0; round < 200; round++) {
+            var b = Binary.pooled(16);
+            var raw = Binary.raw(b).getByteBuf();
+            var barrier = new CyclicBarrier(threads);
+            var ts = new ArrayList<Thread>();
+            for (var i = 0; i < threads; i++) {
+                var t = new Thread(() -> {
+                    try {
+                        barrier.await();
+                        b.release();
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                });
+                t.start();
+                ts.add(t);
+            }
+            for (var t : ts) t.join();
+            assertEquals(0, raw.refCnt());
+        }
+        assertTrue(errors.isEmpty(), () -> "release failed: " + errors.peek());
+    }
+}
@@ -1,7 +1,10 @@
 package vax.query;
 
+import org.jetbrains.annotations.Nullable;
+
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -12,131 +15,440 @@ import java.util.Map;
 public abstract class Dialect {
     /**
      * @param mode       current build mode
-     * @param primary    the primary sequence will join with space.
-     * @param secondary  the temporary secondary sequence will join with comma.
+     * @param primary    the primary sequence, each token is separated with space.
+     * @param secondary  the temporary secondary sequence, each item is separated with comma.
      *                   This will reset and push to primary by invoke {@link #fold()} after each sub-render method called.
      *                   Or called {@link #fold }by the sub-render method.
      * @param buffer     the temporary buffer use to render complex string sequence.
      * @param parameters the parameters hold all parameter (with name as key).
      * @param holders    the holders hold all parameter placeholder (with name as key).
      * @param renders    the renders hold all final output value renders with proper order.
+     * @param sources    the sources of each argument, in the same layout of arguments.
+     * @param interned   the position of interned arguments, by param value or hold.
+     * @param intern     intern equal arguments into one placeholder or not.
      */
     public record Builder(State.MODE mode,
-                          List<CharSequence> primary,
-                          List<CharSequence> secondary,
+                          StringBuilder primary,
+                          StringBuilder secondary,
                           StringBuilder buffer,
                           Map<String, Object> parameters,
                           Map<String, Value.hold<?>> holders,
                           List<List<Object>> arguments,
-                          List<Render<?>> renders) {
-        Builder(State.MODE mode) {
+                          List<Render<?>> renders,
+                          List<List<Object>> sources,
+                          Map<Object, Integer> interned,
+                          boolean intern) {
+        /**
+         * the max capacity of char buffers to keep for reuse.
+         */
+        static final int RETAIN = 64 * 1024;
+        /**
+         * the char buffers of current thread (or event loop), null when it's leased by a builder.
+         */
+        private static final ThreadLocal<StringBuilder[]> CHARS = ThreadLocal.withInitial(
+                () -> new StringBuilder[]{new StringBuilder(256), new StringBuilder(128), new StringBuilder(64)});
+
+        Builder(State.MODE mode, boolean intern) {
+            this(mode, lease(), intern);
+        }
+
+        private Builder(State.MODE mode, StringBuilder[] chars, boolean intern) {
             this(mode,
-                 new ArrayList<>(),
-                 new ArrayList<>(),
-                 new StringBuilder(),
+                 chars[0],
+                 chars[1],
+                 chars[2],
                  new HashMap<>(),
                  new HashMap<>(),
                  new ArrayList<>(),
-                 new ArrayList<>()
+                 new ArrayList<>(),
+                 new ArrayList<>(),
+                 new HashMap<>(),
+                 intern
                 );
         }
 
+        /**
+         * nested builder (eg: for sub query) on the same thread will use fresh buffers.
+         */
+        private static StringBuilder[] lease() {
+            var c = CHARS.get();
+            if (c == null) return new StringBuilder[]{new StringBuilder(), new StringBuilder(), new StringBuilder()};
+            CHARS.set(null);
+            for (var x : c) x.setLength(0);
+            return c;
+        }
+
+        /**
+         * return the char buffers to current thread, the builder should not be used after released.
+         */
+        void release() {
+            if (CHARS.get() != null) return;
+            if (primary.capacity() > RETAIN || secondary.capacity() > RETAIN || buffer.capacity() > RETAIN) return;
+            CHARS.set(new StringBuilder[]{primary, secondary, buffer});
+        }
+
         public Builder primary(CharSequence v) {
-            primary.add(v);
+            if (!primary.isEmpty()) primary.append(' ');
+            primary.append(v);
+            return this;
+        }
+
+        /**
+         * append an item into secondary sequence.
+         */
+        public Builder secondary(CharSequence v) {
+            if (!secondary.isEmpty()) secondary.append(',');
+            secondary.append(v);
             return this;
         }
 
         public Builder fold() {
             if (secondary.isEmpty()) return this;
-            primary.add(String.join(",", secondary));
-            secondary.clear();
+            primary(secondary);
+            secondary.setLength(0);
             return this;
         }
 
         public String sql() {
-            return String.join(" ", primary);
+            return primary.toString();
+        }
+
+        /**
+         * append a positional argument into current argument row.
+         * equal non-null params (or same holds) share one position when {@link #intern()}.
+         *
+         * @param v the argument value, a {@link Value.param} or a {@link Value.hold} to be bound on execution.
+         *          only arguments from param or hold can be rebound by a cached {@link Plan}.
+         * @return the 1-based position of the argument
+         */
+        public int argument(Object v) {
+            return argument(v, intern);
+        }
+
+        /**
+         * @param intern false to always append a new position.
+         * @see #argument(Object)
+         */
+        public int argument(Object v, boolean intern) {
+            if (arguments.isEmpty()) {
+                arguments.add(new ArrayList<>());
+                sources.add(new ArrayList<>());
+            }
+            var key = !intern ? null
+                    : v instanceof Value.param<?> p ? p.value()
+                    : v instanceof Value.hold<?> ? v
+                    : null;
+            if (key != null) {
+                var n = interned.get(key);
+                if (n != null) return n;
+            }
+            var row = arguments.get(arguments.size() - 1);
+            row.add(v instanceof Value.param<?> p ? p.value() : v);
+            sources.get(sources.size() - 1).add(v);
+            if (key != null) interned.put(key, row.size());
+            return row.size();
+        }
+
+        /**
+         * append an output render of next selected column.
+         */
+        public Builder render(Render<?> r) {
+            renders.add(r);
+            return this;
         }
     }
 
+    /**
+     * the rendered plan cache, null for disabled.
+     */
+    @Nullable
+    private final Plan.Cache plans;
+
+    /**
+     * the result cache of read statements, null for disabled.
+     */
+    @Nullable
+    private final Results results;
+
+    protected Dialect() {
+        this(256);
+    }
+
+    /**
+     * @param plans the max size of rendered plan cache, zero for disable.
+     */
+    protected Dialect(int plans) {
+        this(plans, null);
+    }
+
+    /**
+     * @param plans   the max size of rendered plan cache, zero for disable.
+     * @param results the result cache, null for disable.
+     */
+    protected Dialect(int plans, @Nullable Results results) {
+        this.plans = plans > 0 ? new Plan.Cache(plans) : null;
+        this.results = results;
+    }
+
     public abstract State.Executor executor();
 
+    /**
+     * @return the instrument of rendering, should be the same one of {@link #executor()}.
+     * @see State.Executor#of(io.vertx.sqlclient.Pool, Instrument)
+     */
+    public Instrument instrument() {
+        return Instrument.NONE;
+    }
+
+    /**
+     * @return the rendered plan cache, null for disabled.
+     */
+    public @Nullable Plan.Cache plans() {
+        return plans;
+    }
+
+    /**
+     * @return the result cache, null for disabled.
+     */
+    public @Nullable Results results() {
+        return results;
+    }
+
+    /**
+     * main render entry, statements with same shape only render once.
+     *
+     * @param s status
+     * @return plan
+     * @see Plan.Shape
+     */
+    public Plan render(State.Status s) {
+        var ins = instrument();
+        if (ins == Instrument.NONE) return cached(s);
+        var start = System.nanoTime();
+        var p = cached(s);
+        ins.rendered(s.mode, p.sql(), System.nanoTime() - start);
+        return p;
+    }
+
+    private Plan cached(State.Status s) {
+        if (plans == null) return plan(s, List.of());
+        var shape = Plan.Shape.of(s);
+        return plans.plan(shape, () -> plan(s, shape.params()));
+    }
+
+    private Plan plan(State.Status s, List<Value.param<?>> params) {
+        var b = build(s);
+        try {
+            return Plan.of(b, params);
+        } finally {
+            b.release();
+        }
+    }
+
     /**
      * main build entry
      *
      * @param s status
      * @return builder
      */
-    public Builder render(State.Status s) {
-        var b = new Builder(s.mode);
-        switch (s.mode) {
-            case ONE -> renderOne(b, s);
-            case ANY -> renderAny(b, s);
-            case COUNT -> renderCount(b, s);
-            case PUT -> renderPut(b, s);
-            case DELETE -> renderDelete(b, s);
-            case INTO -> renderInto(b, s);
-            case SET -> renderSet(b, s);
+    protected Builder build(State.Status s) {
+        var b = new Builder(s.mode, intern());
+        try {
+            switch (s.mode) {
+                case ONE -> renderOne(b, s);
+                case ANY -> renderAny(b, s);
+                case COUNT -> renderCount(b, s);
+                case PUT -> renderPut(b, s);
+                case DELETE -> renderDelete(b, s);
+                case INTO -> renderInto(b, s);
+                case SET -> renderSet(b, s);
+            }
+        } catch (RuntimeException | Error e) {
+            b.release();
+            throw e;
         }
         return b;
     }
 
+    /**
+     * render a set-based update of assignments, joined stores are rendered as {@code UPDATE ... FROM},
+     * default is postgresql style:
+     * <pre>{@code
+     * UPDATE t SET a = v0, b = v1 FROM j0 JOIN j1 ON c1 WHERE (c0) AND (filter)
+     * }</pre>
+     * the first joined store must be an inner join.
+     */
     protected void renderSet(Builder b, State.Status s) {
-
+        assert s.modified != null && !s.modified.isEmpty() : "ASSERT_MODIFIED fail";
+        b.primary("UPDATE");
+        primary(b, s.primary);
+        b.primary("SET");
+        for (int i = 0; i < s.modified.size(); i++) {
+            var a = s.modified.get(i);
+            if (i > 0) b.primary(",");
+            column(b, (Model.Field<?>) a.field());
+            b.primary("=");
+            value(b, a.val());
+        }
+        Value.Bool on = null;
+        if (s.join != null && !s.join.isEmpty()) {
+            var first = s.join.get(0);
+            if (first.mode() != Expr.JoinMode.INNER)
+                throw new IllegalStateException("first joined store of update must be INNER JOIN: " + first.mode());
+            b.primary("FROM");
+            store(b, first.target());
+            for (int i = 1; i < s.join.size(); i++) {
+                var j = s.join.get(i);
+                b.primary(j.mode().name()).primary("JOIN");
+                store(b, j.target());
+                b.primary("ON");
+                condition(b, j.cond());
+            }
+            on = first.cond();
+        }
+        var seek = s.seek == null ? null : s.seek.condition();
+        if (on == null && s.filter == null && seek == null) return;
+        b.primary("WHERE");
+        var and = false;
+        for (var c : new Value.Bool[]{on, s.filter, seek}) {
+            if (c == null) continue;
+            if (and) b.primary("AND");
+            b.primary("(");
+            condition(b, c);
+            b.primary(")");
+            and = true;
+        }
     }
 
-    protected void renderInto(Builder b, State.Status s) {}
+    /**
+     * render a set-based insert of assignments:
+     * <pre>{@code
+     * INSERT INTO target ( a, b ) SELECT v0, v1 FROM t JOIN ... WHERE ... GROUP BY ... ORDER BY ... LIMIT ...
+     * }</pre>
+     * the target is the {@link Storage.Field#owner} of assigned fields.
+     */
+    protected void renderInto(Builder b, State.Status s) {
+        assert s.into != null && !s.into.isEmpty() : "ASSERT_INTO fail";
+        Storage<?, ?> target = null;
+        for (var a : s.into) {
+            if (!(a.field() instanceof Storage.Field<?, ?> f) || f.owner == null)
+                throw new IllegalStateException("assigned field of INTO must be a Storage.Field with owner: " + a.field());
+            if (target == null) target = f.owner;
+            else if (target != f.owner)
+                throw new IllegalStateException("assigned fields of INTO must have same owner: " + f.name);
+        }
+        b.primary("INSERT");
+        b.primary("INTO");
+        primary(b, target);
+        b.primary("(");
+        for (int i = 0; i < s.into.size(); i++) {
+            if (i > 0) b.primary(",");
+            column(b, (Model.Field<?>) s.into.get(i).field());
+        }
+        b.primary(")");
+        b.primary("SELECT");
+        for (int i = 0; i < s.into.size(); i++) {
+            if (i > 0) b.primary(",");
+            value(b, s.into.get(i).val());
+        }
+        b.primary("FROM");
+        primary(b, s.primary);
+        if (s.join != null) {
+            joiner(b, s.primary, s.join);
+        }
+        where(b, s);
+        grouping(b, s);
+        ordering(b, s);
+        if (s.skip != null || s.limit != null) {
+            limitation(b, s.skip, s.limit);
+        }
+    }
 
     protected void renderDelete(Builder b, State.Status s) {}
 
 
+    /**
+     * render an insert of one row, each value is a {@link Value.hold} keyed by field name.
+     * the rows of {@link State.Status#values} are bound on execution and send as one batch.
+     * all columns are listed, a row must have a key for each, so database defaults never apply.
+     *
+     * @see State.Deferred#putRaw(io.vertx.core.json.JsonObject, io.vertx.core.json.JsonObject...)
+     */
     protected void renderPut(Builder b, State.Status s) {
         b.primary("INSERT");
         b.primary("INTO");
         primary(b, s.primary);
         b.primary("(");
-        computePrimaryFields(b,s.primary);
+        computePrimaryFields(b, s.primary);
         b.fold();
+        b.primary(")");
+        b.primary("VALUES");
         b.primary("(");
-        //! todo
-        if (s.join != null) {
-            joiner(b, s.primary, s.join);
+        for (var name : s.primary.$order()) {
+            var h = new Value.hold<>(Object.class, name);
+            b.holders().put(name, h);
+            b.secondary(placeholder(b.argument(h)));
         }
+        b.fold();
+        b.primary(")");
+    }
 
-        if (s.filter != null) {
-            b.primary("WHERE");
-            condition(b, s.filter);
-        }
-        if (s.sort != null) {
-            b.primary("GROUP").primary("BY");
-            group(b, s.sort);
-        }
-        if (s.skip != null || s.limit != null) {
-            limitation(b, s.skip, s.limit);
+    /**
+     * @param n the 1-based position of argument
+     * @return the positional placeholder, default is postgresql style.
+     */
+    protected CharSequence placeholder(int n) {
+        return "$" + n;
+    }
+
+    /**
+     * @return can a positional placeholder be referenced many times, true for postgresql style.
+     * dialects with anonymous placeholder (eg: '?') must return false.
+     * @see Builder#argument(Object)
+     */
+    protected boolean intern() {
+        return true;
+    }
+
+    /**
+     * render the placeholder list of an IN list, padded to {@link Value.in#bucket(int)} with the last item.
+     * items are never interned, so the list only depends on the bucket.
+     *
+     * @return the list like {@code ($1,$2,$3,$4)}
+     */
+    protected CharSequence include(Builder b, Value.in<?> v) {
+        var n = Value.in.bucket(v.items().size());
+        var x = new StringBuilder(n * 4 + 2).append('(');
+        for (int i = 0; i < n; i++) {
+            if (i > 0) x.append(',');
+            x.append(placeholder(b.argument(v.item(i), false)));
         }
+        return x.append(')');
     }
 
     /**
+     * render field names of primary into secondary, with the order of {@link Model#$order()}.
      *
      * @param b the builder
      * @param primary the primary table
      */
     protected abstract void computePrimaryFields(Builder b, Model<?> primary);
 
+    /**
+     * count of rows, or count of groups when grouped.
+     */
     protected void renderCount(Builder b, State.Status s) {
+        var grouped = s.group != null && !s.group.isEmpty();
         b.primary("SELECT COUNT(*)");
         b.primary("FROM");
-        primary(b, s.primary);
+        if (grouped) b.primary("( SELECT 1 FROM");
+        from(b, s);
         if (s.join != null) {
             joiner(b, s.primary, s.join);
         }
-        if (s.filter != null) {
-            b.primary("WHERE");
-            condition(b, s.filter);
-        }
-        if (s.sort != null) {
-            b.primary("GROUP").primary("BY");
-            group(b, s.sort);
-        }
+        where(b, s);
+        grouping(b, s);
+        if (grouped) b.primary(") AS _g");
         if (s.skip != null || s.limit != null) {
             limitation(b, s.skip, s.limit);
         }
@@ -146,18 +458,13 @@ public abstract class Dialect {
         b.primary("SELECT");
         selection(b, s.primary, s.pick);
         b.primary("FROM");
-        primary(b, s.primary);
+        from(b, s);
         if (s.join != null) {
             joiner(b, s.primary, s.join);
         }
-        if (s.filter != null) {
-            b.primary("WHERE");
-            condition(b, s.filter);
-        }
-        if (s.sort != null) {
-            b.primary("GROUP").primary("BY");
-            group(b, s.sort);
-        }
+        where(b, s);
+        grouping(b, s);
+        ordering(b, s);
         if (s.skip != null || s.limit != null) {
             limitation(b, s.skip, s.limit);
         }
@@ -167,18 +474,13 @@ public abstract class Dialect {
         b.primary("SELECT");
         selection(b, s.primary, s.pick);
         b.primary("FROM");
-        primary(b, s.primary);
+        from(b, s);
         if (s.join != null) {
             joiner(b, s.primary, s.join);
         }
-        if (s.filter != null) {
-            b.primary("WHERE");
-            condition(b, s.filter);
-        }
-        if (s.sort != null) {
-            b.primary("GROUP").primary("BY");
-            group(b, s.sort);
-        }
+        where(b, s);
+        grouping(b, s);
+        ordering(b, s);
         if (s.skip != null || s.limit != null) {
             limitation(b, s.skip, s.limit);
         } else {
@@ -186,7 +488,117 @@ public abstract class Dialect {
         }
     }
 
-    protected abstract void group(Builder b, List<Expr.Sorter> sort);
+    /**
+     * render the primary model of a query, a {@link Model.Virtual} is rendered as derived table.
+     */
+    protected void from(Builder b, State.Status s) {
+        if (s.primary instanceof Model.Virtual<?> v) derived(b, v, s);
+        else primary(b, s.primary);
+    }
+
+    /**
+     * render a sub query as derived table {@code ( SELECT ... ) AS name},
+     * arguments of sub query are bound in the same builder.
+     *
+     * @param outer the status of outer query
+     * @see #project(Model.Virtual, State.Status)
+     */
+    protected void derived(Builder b, Model.Virtual<?> v, State.Status outer) {
+        var inner = project(v, outer);
+        //!! renders of sub query are not part of result
+        var n = b.renders().size();
+        b.primary("(");
+        renderAny(b, inner);
+        b.primary(")").primary("AS").primary(v.name());
+        b.renders().subList(n, b.renders().size()).clear();
+    }
+
+    /**
+     * projection of derived table: only columns referenced by outer query are selected by the sub query.
+     * all columns are kept when outer query selects all.
+     *
+     * @return the status of sub query to render
+     */
+    protected State.Status project(Model.Virtual<?> v, State.Status outer) {
+        var inner = v.original();
+        if (outer.pick == null && outer.mode != State.MODE.COUNT) return inner;
+        var w = new Plan.Walker();
+        w.status(outer);
+        var used = new HashSet<String>();
+        for (var d : w.derived) if (d.table().equals(v.name())) used.add(d.name());
+        var all = inner.columns();
+        if (used.size() == all.size()) return inner;
+        var columns = new ArrayList<Model.Field<?>>(Math.max(1, used.size()));
+        for (var f : all) if (used.contains(State.Status.column(f))) columns.add(f);
+        //!! at least one column, eg: SELECT COUNT(*) FROM ( SELECT a FROM t ) AS x
+        if (columns.isEmpty()) columns.add(all.get(0));
+        return inner.project(columns);
+    }
+
+    /**
+     * render GROUP BY and HAVING clause.
+     */
+    protected void grouping(Builder b, State.Status s) {
+        if (s.group != null && !s.group.isEmpty()) {
+            b.primary("GROUP").primary("BY");
+            group(b, s.group);
+        }
+        if (s.having != null) {
+            b.primary("HAVING");
+            condition(b, s.having);
+        }
+    }
+
+    /**
+     * render ORDER BY clause of sort or keyset.
+     */
+    protected void ordering(Builder b, State.Status s) {
+        var sort = s.seek != null ? s.seek.keys() : s.sort;
+        if (sort == null || sort.isEmpty()) return;
+        b.primary("ORDER").primary("BY");
+        order(b, sort);
+    }
+
+    /**
+     * render the WHERE clause of filter and keyset condition.
+     */
+    protected void where(Builder b, State.Status s) {
+        var seek = s.seek == null ? null : s.seek.condition();
+        if (s.filter == null && seek == null) return;
+        b.primary("WHERE");
+        if (s.filter != null && seek != null) {
+            b.primary("(");
+            condition(b, s.filter);
+            b.primary(")").primary("AND").primary("(");
+            seek(b, s.seek);
+            b.primary(")");
+        } else if (s.filter != null) {
+            condition(b, s.filter);
+        } else {
+            seek(b, s.seek);
+        }
+    }
+
+    /**
+     * render the keyset condition, default is the expanded form of {@link Expr.Seek#condition()}.<br/>
+     * Dialects support row value comparison should render {@code (k0,k1) > ($1,$2)} when {@link Expr.Seek#uniform()},
+     * which can be served by a composite index directly.
+     *
+     * @param seek the seek with last seen values
+     */
+    protected void seek(Builder b, Expr.Seek seek) {
+        condition(b, seek.condition());
+    }
+
+    /**
+     * render values of GROUP BY
+     */
+    protected abstract void group(Builder b, List<Value<?>> group);
+
+    /**
+     * render sorters of ORDER BY
+     */
+    protected abstract void order(Builder b, List<Expr.Sorter> sort);
 
     protected abstract void limitation(Builder b, Integer skip, Integer limit);
 
@@ -196,10 +608,36 @@ public abstract class Dialect {
 
     protected abstract void primary(Builder b, Model<?> primary);
 
+    /**
+     * render selected columns, and push the {@link Render} of each column in order.
+     *
+     * @see Builder#render(Render)
+     * @see Render#of(Model.Field)
+     */
     protected abstract void selection(Builder b, Model<?> primary, List<Model.Field<?>> pick);
 
+    /**
+     * render a placeholder of the parameter.
+     *
+     * @see Builder#argument(Object)
+     */
     protected abstract void parameter(Builder b, Value.param<?> v);
 
     protected abstract void field(Builder b, Model.Field<?> v);
 
+    /**
+     * render the unqualified column name of a field, as target of INSERT or UPDATE.
+     */
+    protected abstract void column(Builder b, Model.Field<?> v);
+
+    /**
+     * render a value expression.
+     */
+    protected abstract void value(Builder b, Value<?> v);
+
+    /**
+     * render a joined store without join condition, a table or a sub query with alias.
+     */
+    protected abstract void store(Builder b, Statement.Store<?, ?> target);
+
 }
@@ -1,5 +1,15 @@
 package vax.query;
 
+import io.vertx.core.buffer.Buffer;
+import org.jetbrains.annotations.Nullable;
+import vax.common.units.Binary;
+
+import java.math.BigDecimal;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
 /**
  * @author Zen.Liu
  * @since 2025-03-07
@@ -16,4 +26,173 @@ public interface Expr {
 
 
     record Join(JoinMode mode, Statement.Store<?, ?> target, Value.Bool cond) implements Expr {}
+
+    /**
+     * Keyset pagination: rows strictly after the last seen values of sort keys.<br/>
+     * The sort keys should be non-null and end with an unique key, else rows with equal keys may be skipped.
+     *
+     * @param keys  the sort keys
+     * @param after the last seen values of each key, empty for the first page.
+     */
+    record Seek(List<Sorter> keys, List<Value.param<?>> after) implements Expr {
+        public Seek {
+            assert after.isEmpty() || after.size() == keys.size() : "last seen values not match sort keys";
+        }
+
+        /**
+         * @throws IllegalArgumentException if the count of last seen values not match sort keys
+         */
+        public static Seek of(List<Sorter> keys, @Nullable List<?> after) {
+            if (after == null || after.isEmpty()) return new Seek(keys, List.of());
+            if (after.size() != keys.size())
+                throw new IllegalArgumentException("last seen values " + after.size() + " not match sort keys " + keys.size());
+            var p = new ArrayList<Value.param<?>>(after.size());
+            for (var v : after) p.add(new Value.param<>(v));
+            return new Seek(keys, p);
+        }
+
+        /**
+         * @return true if all keys in same direction, which can be rendered as a row value comparison.
+         */
+        public boolean uniform() {
+            for (var k : keys) if (k.desc() != keys.get(0).desc()) return false;
+            return true;
+        }
+
+        /**
+         * the lexicographic condition of {@code (k0,k1..) > (v0,v1..)}, with direction of each key:
+         * {@code k0>v0 OR (k0=v0 AND k1>v1) OR ...}
+         *
+         * @return null for first page
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Value.@Nullable Bool condition() {
+            if (after.isEmpty()) return null;
+            Value.Bool cond = null;
+            for (int i = keys.size() - 1; i >= 0; i--) {
+                var k = (Value) keys.get(i).v();
+                var v = (Value) after.get(i);
+                Value.Bool c = new Value.binary<>(k, v, keys.get(i).desc() ? Value.LT : Value.GT);
+                cond = cond == null ? c : c.or(new Value.binary<>(k, v, Value.EQ).and(cond));
+            }
+            return cond;
+        }
+
+        //region token
+        static final byte VERSION = 1;
+        static final byte NULL = 0;
+        static final byte BOOL = 1;
+        static final byte INT = 2;
+        static final byte LONG = 3;
+        static final byte FLOAT = 4;
+        static final byte DOUBLE = 5;
+        static final byte TEXT = 6;
+        static final byte DECIMAL = 7;
+        static final byte BYTES = 8;
+        static final byte UID = 9;
+        static final byte INSTANT = 10;
+        static final byte DATE = 11;
+        static final byte TIME = 12;
+        static final byte DATE_TIME = 13;
+        static final byte OFFSET_DATE_TIME = 14;
+        static final byte SHORT = 15;
+
+        /**
+         * encode last seen values of sort keys as an opaque continuation token.
+         *
+         * @param last the values of sort keys of last row in current page
+         */
+        public static Buffer token(List<?> last) {
+            var b = Binary.of(16 * last.size() + 2).$i8(VERSION).$v32(last.size());
+            for (var v : last) {
+                if (v == null) b.$i8(NULL);
+                else if (v instanceof Boolean x) b.$i8(BOOL).$b(x);
+                else if (v instanceof Short x) b.$i8(SHORT).$z32(x);
+                else if (v instanceof Integer x) b.$i8(INT).$z32(x);
+                else if (v instanceof Long x) b.$i8(LONG).$z64(x);
+                else if (v instanceof Float x) b.$i8(FLOAT).$f32(x);
+                else if (v instanceof Double x) b.$i8(DOUBLE).$f64(x);
+                else if (v instanceof CharSequence x) b.$i8(TEXT).text(x.toString());
+                else if (v instanceof BigDecimal x) b.$i8(DECIMAL).text(x.toString());
+                else if (v instanceof byte[] x) b.$i8(BYTES).$binary(x);
+                else if (v instanceof Buffer x) b.$i8(BYTES).$binary(x.getBytes());
+                else if (v instanceof UUID x) b.$i8(UID).$i64(x.getMostSignificantBits()).$i64(x.getLeastSignificantBits());
+                else if (v instanceof Instant x) b.$i8(INSTANT).$z64(x.getEpochSecond()).$v32(x.getNano());
+                else if (v instanceof LocalDate x) b.$i8(DATE).$z64(x.toEpochDay());
+                else if (v instanceof LocalTime x) b.$i8(TIME).$v64(x.toNanoOfDay());
+                else if (v instanceof LocalDateTime x) b.$i8(DATE_TIME).$z64(x.toLocalDate().toEpochDay()).$v64(x.toLocalTime().toNanoOfDay());
+                else if (v instanceof OffsetDateTime x) b.$i8(OFFSET_DATE_TIME)
+                                                         .$z64(x.toEpochSecond()).$v32(x.getNano())
+                                                         .$z32(x.getOffset().getTotalSeconds());
+                else throw new IllegalArgumentException("unsupported sort key value type " + v.getClass());
+            }
+            return b;
+        }
+
+        /**
+         * decode last seen values from a continuation token.
+         *
+         * @throws IllegalArgumentException for a malformed token
+         * @see #token(List)
+         */
+        public static List<Object> values(Buffer token) {
+            return values(token, -1);
+        }
+
+        /**
+         * decode last seen values from a continuation token of the sort keys.
+         *
+         * @param keys the count of sort keys, negative for any
+         * @throws IllegalArgumentException for a malformed token, or values not match the sort keys
+         * @see #token(List)
+         */
+        public static List<Object> values(Buffer token, int keys) {
+            //!! a token is from client, never trusted
+            try {
+                //!! a plain reader from the start, the position of token is never moved
+                return decode(Binary.of(token instanceof Binary b ? b.$raw() : token, false), keys);
+            } catch (IndexOutOfBoundsException | IllegalStateException | DateTimeException e) {
+                throw new IllegalArgumentException("invalid continuation token", e);
+            }
+        }
+
+        private static List<Object> decode(Binary b, int keys) {
+            if (b.$i8() != VERSION) throw new IllegalArgumentException("invalid continuation token");
+            var n = b.$v32();
+            //!! each value takes one byte at least
+            if (n < 0 || n > b.length() - b.pos())
+                throw new IllegalArgumentException("invalid continuation token of " + n + " values");
+            if (keys >= 0 && n != keys)
+                throw new IllegalArgumentException("continuation token of " + n + " values not match sort keys " + keys);
+            var v = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                v.add(switch (b.$i8()) {
+                    case NULL -> null;
+                    case BOOL -> b.$b();
+                    case SHORT -> (short) b.$z32();
+                    case INT -> b.$z32();
+                    case LONG -> b.$z64();
+                    case FLOAT -> b.$f32();
+                    case DOUBLE -> b.$f64();
+                    case TEXT -> b.text();
+                    case DECIMAL -> new BigDecimal(b.text());
+                    case BYTES -> b.$binary();
+                    case UID -> new UUID(b.$i64(), b.$i64());
+                    case INSTANT -> Instant.ofEpochSecond(b.$z64(), b.$v32());
+                    case DATE -> LocalDate.ofEpochDay(b.$z64());
+                    case TIME -> LocalTime.ofNanoOfDay(b.$v64());
+                    case DATE_TIME -> LocalDateTime.of(LocalDate.ofEpochDay(b.$z64()), LocalTime.ofNanoOfDay(b.$v64()));
+                    case OFFSET_DATE_TIME -> {
+                        var s = b.$z64();
+                        var nano = b.$v32();
+                        yield OffsetDateTime.ofInstant(Instant.ofEpochSecond(s, nano), ZoneOffset.ofTotalSeconds(b.$z32()));
+                    }
+                    default -> throw new IllegalArgumentException("invalid continuation token");
+                });
+            }
+            if (b.pos() != b.length()) throw new IllegalArgumentException("invalid continuation token");
+            return v;
+        }
+        //endregion
+    }
 }
@@ -0,0 +1,212 @@
+package vax.query;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.sqlclient.Row;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collector;
+
+/**
+ * Instrumentation SPI of querier. Statements are identified by shape, which is the rendered sql:
+ * all statements of one {@link Plan.Shape} have the same sql.
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ * @see Dialect#instrument()
+ * @see State.Executor#of(io.vertx.sqlclient.Pool, Instrument)
+ */
+public interface Instrument {
+    /**
+     * @param mode  the mode
+     * @param shape the rendered sql
+     * @param nanos time of render (include lookup of plan cache)
+     */
+    default void rendered(State.MODE mode, String shape, long nanos) {}
+
+    /**
+     * @param shape the rendered sql
+     * @param e     the measurement
+     */
+    default void executed(String shape, Execution e) {}
+
+    /**
+     * @param queue   nanos waiting for a connection, -1 for unknown
+     * @param latency nanos of execution on connection
+     * @param rows    rows returned, or rows affected of update
+     * @param bytes   estimated bytes of decoded values
+     * @param error   the failure
+     */
+    record Execution(long queue, long latency, long rows, long bytes, @Nullable Throwable error) {}
+
+    Instrument NONE = new Instrument() {};
+
+    static Instrument of(Instrument... all) {
+        return all.length == 1 ? all[0] : new Composite(List.of(all));
+    }
+
+    record Composite(List<Instrument> all) implements Instrument {
+        @Override
+        public void rendered(State.MODE mode, String shape, long nanos) {
+            for (var i : all) i.rendered(mode, shape, nanos);
+        }
+
+        @Override
+        public void executed(String shape, Execution e) {
+            for (var i : all) i.executed(shape, e);
+        }
+    }
+
+    /**
+     * @return short identity of shape for tagging, the leading 64 bits of SHA-256 of the shape
+     */
+    static String id(String shape) {
+        try {
+            var d = MessageDigest.getInstance("SHA-256").digest(shape.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(d, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * estimate decoded bytes of a row.
+     */
+    static long bytes(Row row) {
+        var n = 0L;
+        for (int i = 0, s = row.size(); i < s; i++) {
+            var v = row.getValue(i);
+            if (v == null) continue;
+            if (v instanceof CharSequence x) n += x.length();
+            else if (v instanceof Buffer x) n += x.length();
+            else if (v instanceof byte[] x) n += x.length;
+            else if (v instanceof Number || v instanceof Boolean) n += 8;
+            else n += 16;
+        }
+        return n;
+    }
+
+    /**
+     * wrap a collector to count rows and bytes into meter
+     *
+     * @param meter rows at 0, bytes at 1
+     */
+    static <A, R> Collector<Row, A, R> counting(Collector<Row, A, R> c, long[] meter) {
+        var acc = c.accumulator();
+        return Collector.of(c.supplier(),
+                            (a, r) -> {
+                                meter[0]++;
+                                meter[1] += bytes(r);
+                                acc.accept(a, r);
+                            },
+                            c.combiner(),
+                            c.finisher(),
+                            c.characteristics().toArray(Collector.Characteristics[]::new));
+    }
+
+    /**
+     * logs sampled slow statements with rendered sql.
+     *
+     * @param threshold the min latency (queue included) of slow statement
+     * @param rate      the sample rate of slow statements, 1 for all
+     */
+    record Sampler(Duration threshold, double rate, Logger log) implements Instrument {
+        @Override
+        public void executed(String shape, Execution e) {
+            var total = Math.max(0, e.queue()) + e.latency();
+            if (total < threshold.toNanos()) return;
+            if (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate) return;
+            log.warn("slow query [{}] {}ms (queue {}ms) rows {} bytes {}{}: {}",
+                     id(shape),
+                     TimeUnit.NANOSECONDS.toMillis(e.latency()),
+                     TimeUnit.NANOSECONDS.toMillis(Math.max(0, e.queue())),
+                     e.rows(),
+                     e.bytes(),
+                     e.error() == null ? "" : " failed " + e.error(),
+                     shape);
+        }
+    }
+
+    /**
+     * Micrometer binding, meters are tagged with shape id:
+     * <ul>
+     *     <li>{prefix}.render: timer of render</li>
+     *     <li>{prefix}.queue: timer of waiting connection</li>
+     *     <li>{prefix}.execute: timer of execution with percentile histogram, tagged with outcome</li>
+     *     <li>{prefix}.rows: summary of rows</li>
+     *     <li>{prefix}.bytes: summary of decoded bytes</li>
+     * </ul>
+     * meters of at most max shapes are kept, the least used are evicted and removed from the registry.
+     * requires micrometer-core in classpath.
+     */
+    record Micrometer(MeterRegistry registry, String prefix, Cache<String, Meters> meters) implements Instrument {
+        public Micrometer(MeterRegistry registry, String prefix, int max) {
+            this(registry, prefix, Caffeine.newBuilder()
+                                           .maximumSize(max)
+                                           //!! runs atomically with the eviction, a shape measured again registers after the removal
+                                           .<String, Meters>evictionListener((k, m, c) -> {
+                                               if (m != null) m.remove(registry);
+                                           })
+                                           .build());
+        }
+
+        public Micrometer(MeterRegistry registry) {
+            this(registry, "vax.query", 1000);
+        }
+
+        record Meters(Timer render, Timer queue, Timer success, Timer failure, DistributionSummary rows,
+                      DistributionSummary bytes) {
+            void remove(MeterRegistry registry) {
+                registry.remove(render);
+                registry.remove(queue);
+                registry.remove(success);
+                registry.remove(failure);
+                registry.remove(rows);
+                registry.remove(bytes);
+            }
+        }
+
+        Meters meters(String shape) {
+            var m = meters.getIfPresent(shape);
+            if (m != null) return m;
+            var id = id(shape);
+            return meters.get(shape, k -> new Meters(
+                    Timer.builder(prefix + ".render").tag("shape", id).register(registry),
+                    Timer.builder(prefix + ".queue").tag("shape", id).register(registry),
+                    Timer.builder(prefix + ".execute").tag("shape", id).tag("outcome", "success")
+                         .publishPercentileHistogram().register(registry),
+                    Timer.builder(prefix + ".execute").tag("shape", id).tag("outcome", "failure")
+                         .publishPercentileHistogram().register(registry),
+                    DistributionSummary.builder(prefix + ".rows").tag("shape", id).register(registry),
+                    DistributionSummary.builder(prefix + ".bytes").tag("shape", id).baseUnit("bytes")
+                                       .register(registry)));
+        }
+
+        @Override
+        public void rendered(State.MODE mode, String shape, long nanos) {
+            meters(shape).render.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void executed(String shape, Execution e) {
+            var m = meters(shape);
+            if (e.queue() >= 0) m.queue.record(e.queue(), TimeUnit.NANOSECONDS);
+            (e.error() == null ? m.success : m.failure).record(e.latency(), TimeUnit.NANOSECONDS);
+            m.rows.record(e.rows());
+            m.bytes.record(e.bytes());
+        }
+    }
+}
@@ -18,6 +18,12 @@ public interface Model<E> {
      */
     List<String> $order();
 
+    /**
+     * a sub query as derived table, fields are {@link Field.Derived} of the columns selected by original status.
+     *
+     * @param original the status of sub query
+     * @param name     the alias of derived table
+     */
     record Virtual<T>(List<String> $order, Map<String, Field<?>> $fields, State.Status original, String name) implements
                                                                                                               Model<T> {}
 
@@ -28,5 +34,14 @@ public interface Model<E> {
 
     interface Field<T> extends Value<T> {
         record Virtual<T>(Value<T> v, String name) implements Field<T> {}
+
+        /**
+         * column of a derived table, referenced as {@code table.name}.
+         *
+         * @param table  the alias of derived table
+         * @param name   the column name in derived table
+         * @param render the render of original column
+         */
+        record Derived<T>(String table, String name, Render<T> render) implements Field<T> {}
     }
 }
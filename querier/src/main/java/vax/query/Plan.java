@@ -0,0 +1,385 @@
+package vax.query;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * A rendered statement.
+ *
+ * @param mode       the mode
+ * @param sql        the rendered sql
+ * @param parameters the named parameters
+ * @param holders    the parameter placeholders
+ * @param arguments  the positional argument rows
+ * @param renders    the renders of output columns
+ * @param slots      for each argument, the index of bound {@link Value.param} in {@link Shape#params()},
+ *                   -1 for fixed arguments. null for a plan can't be reused by binding.
+ * @author Zen.Liu
+ * @since 2025-03-08
+ */
+public record Plan(State.MODE mode,
+                   String sql,
+                   Map<String, Object> parameters,
+                   Map<String, Value.hold<?>> holders,
+                   List<List<Object>> arguments,
+                   List<Render<?>> renders,
+                   int @Nullable [][] slots) {
+    /**
+     * the marker of shapes which can't be reused.
+     */
+    static final Plan OPAQUE = new Plan(null, null, Map.of(), Map.of(), List.of(), List.of(), null);
+
+    /**
+     * @param b      the builder after rendered
+     * @param params the params of the shape which rendered by the builder
+     */
+    static Plan of(Dialect.Builder b, List<Value.param<?>> params) {
+        var reusable = b.parameters().isEmpty();
+        //!! a padded IN list repeats its last param, each occurrence is bound to its own index in order
+        var index = new IdentityHashMap<Value.param<?>, ArrayDeque<Integer>>(params.size());
+        for (int i = 0; i < params.size(); i++) index.computeIfAbsent(params.get(i), k -> new ArrayDeque<>(1)).add(i);
+        var sources = b.sources();
+        var slots = new int[sources.size()][];
+        for (int r = 0; r < slots.length && reusable; r++) {
+            var src = sources.get(r);
+            var slot = slots[r] = new int[src.size()];
+            for (int i = 0; i < slot.length; i++) {
+                var o = src.get(i);
+                var n = o instanceof Value.param<?> p ? index.get(p) : null;
+                if (n != null) {
+                    slot[i] = n.size() > 1 ? n.poll() : n.peek();
+                } else if (o instanceof Value.hold<?>) {
+                    slot[i] = -1;
+                } else {
+                    reusable = false;
+                    break;
+                }
+            }
+        }
+        return new Plan(b.mode(), b.sql(), b.parameters(), b.holders(), b.arguments(), b.renders(),
+                        reusable ? slots : null);
+    }
+
+    public boolean reusable() {
+        return slots != null;
+    }
+
+    /**
+     * @param params the params of current shape
+     * @return plan with arguments of current params
+     */
+    Plan bind(List<Value.param<?>> params) {
+        assert slots != null : "plan is not reusable";
+        var args = new ArrayList<List<Object>>(arguments.size());
+        for (int r = 0; r < slots.length; r++) {
+            var slot = slots[r];
+            var row = new ArrayList<>(arguments.get(r));
+            for (int i = 0; i < slot.length; i++) {
+                if (slot[i] >= 0) row.set(i, params.get(slot[i]).value());
+            }
+            args.add(row);
+        }
+        return new Plan(mode, sql, parameters, holders, args, renders, slots);
+    }
+
+    /**
+     * Structural fingerprint of a {@link State.Status}, with all {@link Value.param} abstracted.
+     *
+     * @param key    the fingerprint
+     * @param params the abstracted params in walk order
+     */
+    public record Shape(List<Object> key, List<Value.param<?>> params) {
+        public static Shape of(State.Status s) {
+            var w = new Walker();
+            w.status(s);
+            return new Shape(w.key, w.params);
+        }
+    }
+
+    /**
+     * bounded and evicting cache of plans.
+     */
+    public static final class Cache {
+        private final com.github.benmanes.caffeine.cache.Cache<List<Object>, Plan> cache;
+
+        public Cache(int size) {
+            cache = Caffeine.newBuilder()
+                            .maximumSize(size)
+                            .recordStats()
+                            .build();
+        }
+
+        /**
+         * @param shape  the shape of current status
+         * @param render render the status when missing
+         */
+        Plan plan(Shape shape, Supplier<Plan> render) {
+            var fresh = new Plan[1];
+            var p = cache.get(shape.key(), k -> {
+                var x = fresh[0] = render.get();
+                return x.reusable() ? x : OPAQUE;
+            });
+            if (fresh[0] != null) return fresh[0];
+            if (p == OPAQUE) return render.get();
+            return p.bind(shape.params());
+        }
+
+        public long hits() {
+            return cache.stats().hitCount();
+        }
+
+        public long misses() {
+            return cache.stats().missCount();
+        }
+
+        public long evictions() {
+            return cache.stats().evictionCount();
+        }
+
+        public long size() {
+            return cache.estimatedSize();
+        }
+
+        public void clear() {
+            cache.invalidateAll();
+        }
+    }
+
+    static final class Walker {
+        final List<Object> key = new ArrayList<>();
+        final List<Value.param<?>> params = new ArrayList<>();
+        /**
+         * the first index of each param value, as the interning of {@link Dialect.Builder#argument(Object)}.
+         */
+        final Map<Object, Integer> seen = new HashMap<>();
+        /**
+         * referenced columns of derived tables.
+         */
+        final List<Model.Field.Derived<?>> derived = new ArrayList<>();
+        /**
+         * models of current status, a field is identified by the model index and its name.
+         */
+        List<Model<?>> models = new ArrayList<>();
+
+        void status(State.Status s) {
+            var outer = models;
+            models = new ArrayList<>();
+            models.add(s.primary);
+            key.add(s.mode);
+            model(s.primary);
+            if (s.join != null) {
+                for (var j : s.join) {
+                    key.add(j.mode());
+                    store(j.target());
+                }
+                for (var j : s.join) value(j.cond());
+            }
+            key.add('W');
+            value(s.filter);
+            key.add('G');
+            if (s.group != null) values(s.group);
+            key.add('H');
+            value(s.having);
+            key.add('S');
+            if (s.sort != null) {
+                for (var x : s.sort) {
+                    value(x.v());
+                    key.add(x.desc());
+                }
+            }
+            key.add('K');
+            if (s.seek != null) {
+                for (var x : s.seek.keys()) {
+                    value(x.v());
+                    key.add(x.desc());
+                }
+                values(s.seek.after());
+            }
+            key.add(s.skip);
+            key.add(s.limit);
+            key.add('P');
+            if (s.pick != null) for (var f : s.pick) value(f);
+            key.add('C');
+            value(s.count);
+            key.add('M');
+            assigns(s.modified);
+            key.add('I');
+            assigns(s.into);
+            models = outer;
+        }
+
+        void assigns(@Nullable List<Expr.Assign> a) {
+            if (a == null) return;
+            for (var x : a) {
+                value(x.field());
+                value(x.val());
+            }
+        }
+
+        void store(Statement.Store<?, ?> t) {
+            if (t instanceof State st) {
+                var ts = st.status();
+                models.add(ts.primary);
+                //!! the whole status: a dialect may render any stage of a joined sub query
+                key.add(State.class);
+                status(ts);
+            } else {
+                key.add(t);
+            }
+        }
+
+        void model(Model<?> m) {
+            if (m instanceof Storage<?, ?> s) {
+                key.add(s.getClass());
+                key.add(s.name);
+                key.add(s.alias);
+            } else if (m instanceof Model.Virtual<?> v) {
+                key.add(Model.Virtual.class);
+                key.add(v.name());
+                key.add(v.$order());
+                status(v.original());
+            } else {
+                key.add(m);
+            }
+        }
+
+        void field(Storage.Field<?, ?> f) {
+            for (int i = 0; i < models.size(); i++) {
+                if (models.get(i).$fields().get(f.name) == f) {
+                    key.add(i);
+                    key.add(f.name);
+                    key.add(f.alias);
+                    return;
+                }
+            }
+            key.add(f);
+        }
+
+        void values(List<? extends Value<?>> v) {
+            key.add(v.size());
+            for (var x : v) value(x);
+        }
+
+        void value(@Nullable Value<?> v) {
+            if (v == null) {
+                key.add(null);
+                return;
+            }
+            key.add(v.getClass());
+            if (v instanceof Value.param<?> p) {
+                key.add(p.value() == null ? null : p.value().getClass());
+                if (p.value() != null) key.add(seen.putIfAbsent(p.value(), params.size()));
+                params.add(p);
+            } else if (v instanceof Value.aNum<?> a) {
+                key.add(a.op());
+                key.add(a.distinct());
+                value(a.v());
+            } else if (v instanceof Value.aVal<?> a) {
+                key.add(a.op());
+                value(a.v());
+            } else if (v instanceof Value.in<?> in) {
+                value(in.v());
+                var n = Value.in.bucket(in.items().size());
+                key.add(n);
+                for (int i = 0; i < n; i++) {
+                    var p = in.item(i);
+                    key.add(p.value() == null ? null : p.value().getClass());
+                    params.add(p);
+                }
+            } else if (v instanceof Value.hold<?> h) {
+                key.add(h.value());
+                key.add(h.key());
+            } else if (v instanceof Storage.Field<?, ?> f) {
+                field(f);
+            } else if (v instanceof Model.Field.Virtual<?> f) {
+                key.add(f.name());
+                value(f.v());
+            } else if (v instanceof Model.Field.Derived<?> f) {
+                key.add(f.table());
+                key.add(f.name());
+                derived.add(f);
+            } else if (v instanceof Value.binary<?> b) {
+                key.add(b.op());
+                value(b.v0());
+                value(b.v1());
+            } else if (v instanceof Value.unary<?> b) {
+                key.add(b.op());
+                value(b.v0());
+            } else if (v instanceof Value.triple<?> b) {
+                key.add(b.op());
+                value(b.v0());
+                value(b.v1());
+                value(b.v2());
+            } else if (v instanceof Value.concat c) {
+                values(c.v());
+            } else if (v instanceof Value.bNum<?> b) {
+                key.add(b.op());
+                value(b.left());
+                value(b.right());
+            } else if (v instanceof Value.bInt<?> b) {
+                key.add(b.op());
+                value(b.left());
+                value(b.right());
+            } else if (v instanceof Value.uNum<?> b) {
+                key.add(b.op());
+                value(b.left());
+            } else if (v instanceof Value.uInt<?> b) {
+                key.add(b.op());
+                value(b.left());
+            } else if (v instanceof Value.tNum<?> b) {
+                key.add(b.op());
+                value(b.left());
+                value(b.right());
+                value(b.right2());
+            } else if (v instanceof Value.uTime<?> t) {
+                key.add(t.amount());
+                key.add(t.unit());
+                value(t.v());
+            } else if (v instanceof Value.fTime<?> t) {
+                key.add(t.field());
+                value(t.v());
+            } else if (v instanceof Value.jText<?> j) {
+                key.add(j.n());
+                key.add(j.key());
+                value(j.v());
+            } else if (v instanceof Value.jBool<?> j) {
+                key.add(j.n());
+                key.add(j.key());
+                value(j.v());
+            } else if (v instanceof Value.jNumeric<?, ?> j) {
+                key.add(j.n());
+                key.add(j.key());
+                value(j.v());
+            } else if (v instanceof Value.jArray<?> j) {
+                key.add(j.n());
+                key.add(j.key());
+                value(j.v());
+            } else if (v instanceof Value.jObject<?> j) {
+                key.add(j.n());
+                key.add(j.key());
+                value(j.v());
+            } else if (v instanceof Value.mArray m) {
+                value(m.v0());
+                value(m.v1());
+            } else if (v instanceof Value.mObject m) {
+                value(m.v0());
+                value(m.v1());
+            } else if (v instanceof Value.bArray<?> m) {
+                key.add(m.op());
+                key.add(m.path());
+                value(m.v0());
+                value(m.v1());
+            } else if (v instanceof Value.bObject<?> m) {
+                key.add(m.op());
+                key.add(m.path());
+                value(m.v0());
+                value(m.v1());
+            } else {
+                key.add(v);
+            }
+        }
+    }
+}
@@ -44,4 +44,18 @@ public interface Render<T> {
 
     Render<Instant> INSTANT = OFFSET_DATE_TIME.map(OffsetDateTime::toInstant);
 
+    /**
+     * fallback render for fields without a declared render.
+     */
+    Render<Object> VALUE = Row::getValue;
+
+    /**
+     * @param f the picked field
+     * @return the declared render of a storage field, or {@link #VALUE}
+     */
+    static Render<?> of(Model.Field<?> f) {
+        if (f instanceof Model.Field.Derived<?> d) return d.render();
+        return f instanceof Storage.Field<?, ?> s && s.render != null ? s.render : VALUE;
+    }
+
 }
@@ -0,0 +1,180 @@
+package vax.query;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.vertx.core.Future;
+import io.vertx.sqlclient.Row;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * Opt-in result cache of read statements, bounded by size and time to live.<br/>
+ * Results are keyed by mode, rendered sql and bound arguments, and invalidated by {@link Storage#name}:
+ * each table have a generation which increased by any write statement touching it,
+ * a cached result is only valid when generations of all its tables not changed.<br/>
+ * <b>Note:</b> cached results are shared between callers, they should not be mutated.
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ * @see Dialect#results()
+ */
+public final class Results {
+    record Key(State.MODE mode, String sql, List<Object> arguments) {}
+
+    /**
+     * @param value the pending or completed result
+     * @param gens  the generations of tables when the query started
+     */
+    record Entry(Future<?> value, long[] gens) {}
+
+    private final Cache<Key, Entry> cache;
+    private final ConcurrentHashMap<String, AtomicLong> gens = new ConcurrentHashMap<>();
+
+    /**
+     * @param size the max entries
+     * @param ttl  the time to live of each entry
+     */
+    public Results(int size, Duration ttl) {
+        cache = Caffeine.newBuilder()
+                        .maximumSize(size)
+                        .expireAfterWrite(ttl)
+                        .recordStats()
+                        .build();
+    }
+
+    private AtomicLong gen(String table) {
+        return gens.computeIfAbsent(table, k -> new AtomicLong());
+    }
+
+    private long[] snapshot(List<String> tables) {
+        var g = new long[tables.size()];
+        for (int i = 0; i < g.length; i++) g[i] = gen(tables.get(i)).get();
+        return g;
+    }
+
+    private boolean valid(Entry e, List<String> tables) {
+        for (int i = 0; i < e.gens.length; i++) {
+            if (gen(tables.get(i)).get() != e.gens[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * invalidate all cached results of the table.
+     */
+    public void invalidate(String table) {
+        gen(table).incrementAndGet();
+    }
+
+    /**
+     * invalidate all cached results.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    <R> Future<R> query(Key key, List<String> tables, Function<Key, Future<R>> query) {
+        var e = cache.getIfPresent(key);
+        if (e != null && valid(e, tables)) return (Future<R>) e.value;
+        var g = snapshot(tables);
+        var fresh = new Entry(query.apply(key), g);
+        cache.put(key, fresh);
+        fresh.value.onFailure(x -> cache.asMap().remove(key, fresh));
+        return (Future<R>) fresh.value;
+    }
+
+    /**
+     * @param exec   the executor
+     * @param mode   the mode of statement
+     * @param tables the tables touched by statement
+     * @return executor caches queries and invalidates tables on updates.
+     */
+    State.Executor executor(State.Executor exec, State.MODE mode, List<String> tables) {
+        return new Caching(this, exec, mode, tables);
+    }
+
+    /**
+     * @return names of all tables touched by status, include joined and virtual stores,
+     * and the target of {@link State.MODE#INTO}.
+     */
+    static List<String> tables(State.Status s) {
+        var t = new ArrayList<String>();
+        tables(s, t);
+        return t;
+    }
+
+    private static void tables(State.Status s, List<String> t) {
+        tables(s.primary, t);
+        if (s.join != null) {
+            for (var j : s.join) {
+                if (j.target() instanceof State st) tables(st.status(), t);
+                else if (j.target() instanceof Model<?> m) tables(m, t);
+            }
+        }
+        //!! the inserted store, see Dialect#renderInto
+        if (s.into != null) {
+            for (var a : s.into) {
+                if (a.field() instanceof Storage.Field<?, ?> f && f.owner != null) tables(f.owner, t);
+            }
+        }
+    }
+
+    private static void tables(Model<?> m, List<String> t) {
+        if (m instanceof Storage<?, ?> s && s.name != null && !t.contains(s.name)) t.add(s.name);
+        else if (m instanceof Model.Virtual<?> v) tables(v.original(), t);
+    }
+
+    public long hits() {
+        return cache.stats().hitCount();
+    }
+
+    public long misses() {
+        return cache.stats().missCount();
+    }
+
+    public long evictions() {
+        return cache.stats().evictionCount();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    record Caching(Results results, State.Executor exec, State.MODE mode, List<String> tables)
+            implements State.Executor {
+        @Override
+        public <R> Future<R> query(String sql, List<Object> arguments, Collector<Row, ?, R> collector) {
+            return results.query(new Key(mode, sql, arguments), tables, k -> exec.query(sql, arguments, collector));
+        }
+
+        @Override
+        public Future<Integer> update(String sql, List<Object> arguments) {
+            return exec.update(sql, arguments).onComplete(x -> invalidate());
+        }
+
+        @Override
+        public Future<Integer> batch(String sql, List<List<Object>> arguments) {
+            return exec.batch(sql, arguments).onComplete(x -> invalidate());
+        }
+
+        @Override
+        public <R> Future<Statement.Cursor<R>> stream(String sql, List<Object> arguments, int fetch,
+                                                      Function<Row, R> mapper) {
+            return exec.stream(sql, arguments, fetch, mapper);
+        }
+
+        /**
+         * invalidate on failure too, a failed statement may have partially applied.
+         */
+        private void invalidate() {
+            for (var t : tables) results.invalidate(t);
+        }
+    }
+}
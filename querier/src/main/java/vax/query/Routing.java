@@ -0,0 +1,268 @@
+package vax.query;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.impl.ContextInternal;
+import io.vertx.sqlclient.DatabaseException;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * Executor routes queries to replicas and updates to the primary.
+ * <ul>
+ *     <li>read-your-writes: after an update, queries of the same Vert.x context (a duplicated context per request)
+ *     stay on primary for the sticky duration. Only a duplicated context is request scoped, an update outside one
+ *     (eg: on the event loop context of a verticle) is not sticky, but counted by {@link #unsticky()}.</li>
+ *     <li>replicas are chosen by weight, which decreased by replication lag.
+ *     unhealthy replicas or replicas lag behind the max lag are skipped, the primary is used when none left.</li>
+ *     <li>health and lag are updated by {@link #probe()}, or periodically by {@link #start(Vertx, Duration)}.
+ *     a query failed by connection (not by database error) marks the replica unhealthy until next probe.</li>
+ * </ul>
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+public final class Routing implements State.Executor {
+    /**
+     * probe of postgresql streaming replica, the replication lag in milliseconds.
+     * A replica has replayed all received wal is not lagging, even the primary is idle for long.
+     */
+    public static final String PG_LAG = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+                                        + " ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0)"
+                                        + " END::bigint";
+    private static final String WRITTEN = Routing.class.getName() + ".written";
+
+    /**
+     * metrics of a route.
+     */
+    public static final class Route {
+        final String name;
+        final Pool pool;
+        final State.Executor exec;
+        final int weight;
+        final LongAdder requests = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        volatile boolean healthy = true;
+        volatile long lag;
+
+        Route(String name, Pool pool, int weight, Instrument instrument) {
+            this.name = name;
+            this.pool = pool;
+            this.exec = State.Executor.of(pool, instrument);
+            this.weight = weight;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long requests() {
+            return requests.sum();
+        }
+
+        public long failures() {
+            return failures.sum();
+        }
+
+        public boolean healthy() {
+            return healthy;
+        }
+
+        /**
+         * @return last probed replication lag in milliseconds
+         */
+        public long lag() {
+            return lag;
+        }
+
+        <R> Future<R> track(Future<R> f) {
+            requests.increment();
+            return f.onFailure(e -> failures.increment());
+        }
+    }
+
+    private final Route primary;
+    private final List<Route> replicas = new ArrayList<>();
+    private final long sticky;
+    private final long maxLag;
+    private final String probe;
+    private final Instrument instrument;
+    /**
+     * queries sticky to primary by read-your-writes.
+     */
+    private final LongAdder pinned = new LongAdder();
+    /**
+     * queries fallback to primary for no replica available.
+     */
+    private final LongAdder fallback = new LongAdder();
+    /**
+     * updates not sticky for executed outside a duplicated context.
+     */
+    private final LongAdder unsticky = new LongAdder();
+
+    /**
+     * @param primary    the primary pool
+     * @param sticky     the duration of read-your-writes after an update
+     * @param maxLag     the max replication lag of usable replica
+     * @param probe      the query of replication lag in milliseconds
+     * @param instrument the instrument of all routes
+     */
+    public Routing(Pool primary, Duration sticky, Duration maxLag, String probe, Instrument instrument) {
+        this.primary = new Route("primary", primary, 0, instrument);
+        this.sticky = sticky.toNanos();
+        this.maxLag = maxLag.toMillis();
+        this.probe = probe;
+        this.instrument = instrument;
+    }
+
+    public Routing(Pool primary) {
+        this(primary, Duration.ofSeconds(2), Duration.ofSeconds(5), PG_LAG, Instrument.NONE);
+    }
+
+    /**
+     * @param weight the base weight of the replica
+     */
+    public Routing replica(String name, Pool pool, int weight) {
+        assert weight > 0 : "weight must positive";
+        replicas.add(new Route(name, pool, weight, instrument));
+        return this;
+    }
+
+    public Route primary() {
+        return primary;
+    }
+
+    public List<Route> replicas() {
+        return replicas;
+    }
+
+    public long pinned() {
+        return pinned.sum();
+    }
+
+    public long fallback() {
+        return fallback.sum();
+    }
+
+    public long unsticky() {
+        return unsticky.sum();
+    }
+
+    /**
+     * @return the current context when it is request scoped, otherwise null.
+     */
+    static ContextInternal scoped() {
+        //!! locals of a root context are shared by all requests on its event loop
+        return Vertx.currentContext() instanceof ContextInternal c && c.isDuplicate() ? c : null;
+    }
+
+    /**
+     * probe health and lag of all replicas.
+     */
+    public Future<Void> probe() {
+        var all = new ArrayList<Future<?>>(replicas.size());
+        for (var r : replicas) {
+            all.add(r.pool.query(probe)
+                          .execute()
+                          .map(rs -> {
+                              var it = rs.iterator();
+                              r.lag = it.hasNext() ? it.next().getLong(0) : 0L;
+                              r.healthy = true;
+                              return null;
+                          })
+                          .otherwise(e -> {
+                              r.healthy = false;
+                              return null;
+                          }));
+        }
+        return Future.all(all).mapEmpty();
+    }
+
+    /**
+     * @return the timer id of periodic probe
+     */
+    public long start(Vertx vertx, Duration period) {
+        probe();
+        return vertx.setPeriodic(period.toMillis(), id -> probe());
+    }
+
+    /**
+     * weighted random among usable replicas, weight is divided by (1 + lag in seconds).
+     */
+    Route read() {
+        var ctx = scoped();
+        if (ctx != null) {
+            Long at = ctx.getLocal(WRITTEN);
+            if (at != null && System.nanoTime() - at < sticky) {
+                pinned.increment();
+                return primary;
+            }
+        }
+        var total = 0D;
+        var weights = new double[replicas.size()];
+        for (int i = 0; i < weights.length; i++) {
+            var r = replicas.get(i);
+            if (!r.healthy || r.lag > maxLag) continue;
+            total += weights[i] = r.weight / (1D + r.lag / 1000D);
+        }
+        if (total <= 0) {
+            fallback.increment();
+            return primary;
+        }
+        var x = ThreadLocalRandom.current().nextDouble(total);
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] <= 0) continue;
+            x -= weights[i];
+            if (x < 0) return replicas.get(i);
+        }
+        return primary;
+    }
+
+    Route write() {
+        var ctx = scoped();
+        if (ctx != null) ctx.putLocal(WRITTEN, System.nanoTime());
+        else unsticky.increment();
+        return primary;
+    }
+
+    private <R> Future<R> read(Function<State.Executor, Future<R>> act) {
+        var r = read();
+        var f = r.track(act.apply(r.exec));
+        //!! errors reported by database (eg: bad sql) not means the replica is unhealthy
+        if (r != primary) f.onFailure(e -> {
+            if (!(e instanceof DatabaseException)) r.healthy = false;
+        });
+        return f;
+    }
+
+    @Override
+    public <R> Future<R> query(String sql, List<Object> arguments, Collector<Row, ?, R> collector) {
+        return read(x -> x.query(sql, arguments, collector));
+    }
+
+    @Override
+    public <R> Future<Statement.Cursor<R>> stream(String sql, List<Object> arguments, int fetch,
+                                                  Function<Row, R> mapper) {
+        return read(x -> x.stream(sql, arguments, fetch, mapper));
+    }
+
+    @Override
+    public Future<Integer> update(String sql, List<Object> arguments) {
+        var r = write();
+        return r.track(r.exec.update(sql, arguments));
+    }
+
+    @Override
+    public Future<Integer> batch(String sql, List<List<Object>> arguments) {
+        var r = write();
+        return r.track(r.exec.batch(sql, arguments));
+    }
+}
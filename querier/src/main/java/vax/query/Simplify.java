@@ -0,0 +1,174 @@
+package vax.query;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+import static vax.query.Value.*;
+
+/**
+ * Simplification of {@link Value.Bool} trees before rendering:
+ * <ul>
+ *     <li>fold constants of {@link Value#TRUE}, {@link Value#FALSE} and comparison between params.</li>
+ *     <li>remove double negations.</li>
+ *     <li>flatten nested AND/OR chains, remove duplicated terms.</li>
+ *     <li>order terms of AND/OR in a canonical order by structure, params are not considered.</li>
+ * </ul>
+ * All rules hold under three-valued logic, a term may be NULL.
+ * Except an empty range ({@code x BETWEEN 5 AND 1}, NULL when x is NULL) is folded to {@link Value#FALSE}
+ * only as a top level conjunct of the filter, which rejects a row of NULL same as FALSE.
+ * A filter simplified to {@link Value#FALSE} will never reach the database.
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+public final class Simplify {
+    private Simplify() {}
+
+    /**
+     * @param v the condition of a filter (WHERE, HAVING or JOIN ON)
+     * @return the simplified condition, null for null.
+     */
+    public static Value.@Nullable Bool bool(Value.@Nullable Bool v) {
+        if (v == null) return null;
+        var x = simplify(v);
+        if (x instanceof binary<?> b && b.op() == AND) {
+            var terms = new ArrayList<Value<Boolean>>();
+            flatten(AND, b, terms);
+            for (var t : terms) if (empty(t)) return FALSE;
+        } else if (empty(x)) return FALSE;
+        return asBool(x);
+    }
+
+    /**
+     * @return true for a BETWEEN of constant bounds with lower greater than upper.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static boolean empty(Value<?> v) {
+        return v instanceof triple<?> t && t.op() == BTW
+               && t.v1() instanceof param<?> lo && t.v2() instanceof param<?> hi
+               && lo.value() instanceof Comparable l && hi.value() != null && l.getClass() == hi.value().getClass()
+               && l.compareTo(hi.value()) > 0;
+    }
+
+    static boolean isTrue(Value<?> v) {
+        return v == TRUE || v instanceof param<?> p && Boolean.TRUE.equals(p.value());
+    }
+
+    static boolean isFalse(Value<?> v) {
+        return v == FALSE || v instanceof param<?> p && Boolean.FALSE.equals(p.value());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Value<Boolean> simplify(Value<Boolean> v) {
+        if (v instanceof unary<?> u && u.op() == NOT) {
+            var x = simplify((Value<Boolean>) u.v0());
+            if (isTrue(x)) return FALSE;
+            if (isFalse(x)) return TRUE;
+            if (x instanceof unary<?> n && n.op() == NOT) return (Value<Boolean>) n.v0();
+            return x == u.v0() ? v : new unary<>(x, NOT);
+        }
+        if (v instanceof binary<?> b && (b.op() == AND || b.op() == OR)) {
+            return chain(b.op(), b);
+        }
+        if (v instanceof binary<?> b && b.v0() instanceof param<?> l && b.v1() instanceof param<?> r) {
+            var c = compare(b.op(), l.value(), r.value());
+            if (c != null) return c ? TRUE : FALSE;
+        }
+        return v;
+    }
+
+    /**
+     * @return the result of constant comparison, null if can't be decided.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static @Nullable Boolean compare(int op, @Nullable Object l, @Nullable Object r) {
+        if (l == null || r == null || l.getClass() != r.getClass()) return null;
+        return switch (op) {
+            case EQ -> l.equals(r);
+            case NEQ -> !l.equals(r);
+            case GT, GTE, LT, LTE -> {
+                if (!(l instanceof Comparable c)) yield null;
+                var n = c.compareTo(r);
+                yield switch (op) {
+                    case GT -> n > 0;
+                    case GTE -> n >= 0;
+                    case LT -> n < 0;
+                    default -> n <= 0;
+                };
+            }
+            default -> null;
+        };
+    }
+
+    /**
+     * simplify a flattened chain of AND (or OR).
+     */
+    static Value<Boolean> chain(int op, binary<?> b) {
+        var and = op == AND;
+        var terms = new ArrayList<Value<Boolean>>();
+        flatten(op, b, terms);
+        var unique = new LinkedHashSet<Value<Boolean>>(terms.size());
+        for (var t : terms) {
+            var x = simplify(t);
+            //!! absorbing element: FALSE of AND, TRUE of OR
+            if (and ? isFalse(x) : isTrue(x)) return and ? FALSE : TRUE;
+            //!! identity element
+            if (and ? isTrue(x) : isFalse(x)) continue;
+            if (x instanceof binary<?> n && n.op() == op) {
+                var nested = new ArrayList<Value<Boolean>>();
+                flatten(op, n, nested);
+                unique.addAll(nested);
+            } else {
+                unique.add(x);
+            }
+        }
+        //!! complements (x AND NOT x, x OR NOT x) are kept: they are NULL when x is NULL
+        if (unique.isEmpty()) return and ? TRUE : FALSE;
+        var sorted = new ArrayList<>(unique);
+        if (sorted.size() > 1) {
+            var keys = new IdentityHashMap<Value<?>, String>(sorted.size());
+            for (var x : sorted) keys.put(x, signature(x, new StringBuilder()).toString());
+            sorted.sort(Comparator.comparing(keys::get));
+        }
+        Value<Boolean> r = sorted.get(0);
+        for (int i = 1; i < sorted.size(); i++) r = new binary<>(r, sorted.get(i), op);
+        return r;
+    }
+
+    @SuppressWarnings("unchecked")
+    static void flatten(int op, Value<?> v, List<Value<Boolean>> out) {
+        if (v instanceof binary<?> b && b.op() == op) {
+            flatten(op, b.v0(), out);
+            flatten(op, b.v1(), out);
+        } else {
+            out.add((Value<Boolean>) v);
+        }
+    }
+
+    /**
+     * structural signature used as canonical order, params are only presented by type.
+     */
+    static StringBuilder signature(@Nullable Value<?> v, StringBuilder b) {
+        if (v == null) return b.append('_');
+        if (v instanceof param<?> p) return b.append('?').append(p.value() == null ? "" : p.value().getClass().getSimpleName());
+        if (v instanceof Storage.Field<?, ?> f) return b.append(f.name).append('.').append(f.alias);
+        if (v instanceof Model.Field.Virtual<?> f) return b.append(f.name());
+        if (v instanceof Model.Field.Derived<?> f) return b.append(f.table()).append('.').append(f.name());
+        b.append(v.getClass().getSimpleName());
+        if (v instanceof Operation o) b.append(o.op());
+        b.append('(');
+        if (v instanceof binary<?> x) signature(x.v1(), signature(x.v0(), b).append(','));
+        else if (v instanceof unary<?> x) signature(x.v0(), b);
+        else if (v instanceof triple<?> x) signature(x.v2(), signature(x.v1(), signature(x.v0(), b).append(',')).append(','));
+        else if (v instanceof in<?> x) signature(x.v(), b).append(',').append(in.bucket(x.items().size()));
+        return b.append(')');
+    }
+
+    /**
+     * a non Bool value (eg: a boolean field) is compared with true.
+     */
+    static Value.Bool asBool(Value<Boolean> v) {
+        return v instanceof Value.Bool x ? x : new binary<>(v, new param<>(true), EQ);
+    }
+}
@@ -1,13 +1,24 @@
 package vax.query;
 
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowStream;
+import io.vertx.sqlclient.SqlResult;
 import org.jetbrains.annotations.Nullable;
 import org.jooq.lambda.tuple.*;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author Zen.Liu
@@ -17,17 +28,318 @@ import java.util.function.Predicate;
 public class State implements Statement.Singular,
                               Statement.Store,
                               Statement.Assigner,
+                              Statement.Having,
                               Statement.Skip,
                               Statement.Limit,
                               Statement.Query,
                               Statement.UStore2,
                               Statement.UStore16 {
+    /**
+     * the executor of rendered statements.
+     */
     public interface Executor {
+        /**
+         * execute a prepared query and collect rows
+         *
+         * @param sql       the rendered sql
+         * @param arguments the positional arguments
+         * @param collector the row collector
+         */
+        <R> Future<R> query(String sql, List<Object> arguments, Collector<Row, ?, R> collector);
+
+        /**
+         * execute a prepared update
+         *
+         * @return affected rows
+         */
+        Future<Integer> update(String sql, List<Object> arguments);
+
+        /**
+         * execute a prepared update with batch of arguments
+         *
+         * @return total affected rows
+         */
+        Future<Integer> batch(String sql, List<List<Object>> arguments);
+
+        /**
+         * execute a prepared query as a stream of mapped rows
+         *
+         * @param fetch  the rows of each fetch
+         * @param mapper the row mapper
+         */
+        <R> Future<Statement.Cursor<R>> stream(String sql, List<Object> arguments, int fetch, Function<Row, R> mapper);
+
+        /**
+         * executor of statements which provably affect nothing, eg: a filter simplified to {@link Value#FALSE}.
+         */
+        Executor NONE = new Executor() {
+            @Override
+            public <R> Future<R> query(String sql, List<Object> arguments, Collector<Row, ?, R> collector) {
+                return Future.succeededFuture(Stream.<Row>empty().collect(collector));
+            }
+
+            @Override
+            public Future<Integer> update(String sql, List<Object> arguments) {
+                return Future.succeededFuture(0);
+            }
+
+            @Override
+            public Future<Integer> batch(String sql, List<List<Object>> arguments) {
+                return Future.succeededFuture(0);
+            }
+
+            @Override
+            public <R> Future<Statement.Cursor<R>> stream(String sql, List<Object> arguments, int fetch,
+                                                          Function<Row, R> mapper) {
+                return Future.succeededFuture(new Drained<>());
+            }
+        };
+
+        static Executor of(Pool pool) {
+            return new Pooled(pool, 1024, 32768, Instrument.NONE);
+        }
 
+        static Executor of(Pool pool, Instrument instrument) {
+            return new Pooled(pool, 1024, 32768, instrument);
+        }
+
+        /**
+         * executor on a Vert.x sql client pool, with prepared queries only.
+         *
+         * @param rows       max rows of one batch chunk
+         * @param parameters max parameters of one batch chunk
+         * @param instrument the instrument of executions, connection waiting is measured when not {@link Instrument#NONE}
+         */
+        record Pooled(Pool pool, int rows, int parameters, Instrument instrument) implements Executor {
+            @Override
+            public <R> Future<R> query(String sql, List<Object> arguments, Collector<Row, ?, R> collector) {
+                if (instrument == Instrument.NONE) {
+                    return pool.preparedQuery(sql)
+                               .collecting(collector)
+                               .execute(io.vertx.sqlclient.Tuple.wrap(arguments))
+                               .map(SqlResult::value);
+                }
+                var meter = new long[2];
+                var start = System.nanoTime();
+                return pool.withConnection(c -> {
+                    var acquired = System.nanoTime();
+                    return c.preparedQuery(sql)
+                            .collecting(Instrument.counting(collector, meter))
+                            .execute(io.vertx.sqlclient.Tuple.wrap(arguments))
+                            .onComplete(r -> instrument.executed(sql, new Instrument.Execution(
+                                    acquired - start, System.nanoTime() - acquired, meter[0], meter[1], r.cause())))
+                            .map(SqlResult::value);
+                });
+            }
+
+            @Override
+            public Future<Integer> update(String sql, List<Object> arguments) {
+                if (instrument == Instrument.NONE) {
+                    return pool.preparedQuery(sql)
+                               .execute(io.vertx.sqlclient.Tuple.wrap(arguments))
+                               .map(SqlResult::rowCount);
+                }
+                var start = System.nanoTime();
+                return pool.withConnection(c -> {
+                    var acquired = System.nanoTime();
+                    return c.preparedQuery(sql)
+                            .execute(io.vertx.sqlclient.Tuple.wrap(arguments))
+                            .map(SqlResult::rowCount)
+                            .onComplete(r -> instrument.executed(sql, new Instrument.Execution(
+                                    acquired - start, System.nanoTime() - acquired,
+                                    r.succeeded() ? r.result() : 0, 0, r.cause())));
+                });
+            }
+
+            /**
+             * large batch will be split into chunks by rows and parameters limit,
+             * all chunks are pipelined over one connection inside a transaction,
+             * to keep the atomicity as one statement.
+             */
+            @Override
+            public Future<Integer> batch(String sql, List<List<Object>> arguments) {
+                if (arguments.isEmpty()) return Future.succeededFuture(0);
+                if (instrument == Instrument.NONE) return chunked(sql, arguments);
+                var start = System.nanoTime();
+                return chunked(sql, arguments)
+                        .onComplete(r -> instrument.executed(sql, new Instrument.Execution(
+                                -1, System.nanoTime() - start, r.succeeded() ? r.result() : 0, 0, r.cause())));
+            }
+
+            private Future<Integer> chunked(String sql, List<List<Object>> arguments) {
+                var width = Math.max(1, arguments.get(0).size());
+                var chunk = Math.max(1, Math.min(rows, parameters / width));
+                if (arguments.size() <= chunk) {
+                    return pool.preparedQuery(sql)
+                               .executeBatch(tuples(arguments))
+                               .map(Deferred::affected);
+                }
+                return pool.withTransaction(c -> {
+                    var q = c.preparedQuery(sql);
+                    var n = arguments.size();
+                    var all = new ArrayList<Future<Integer>>(n / chunk + 1);
+                    for (int i = 0; i < n; i += chunk) {
+                        all.add(q.executeBatch(tuples(arguments.subList(i, Math.min(n, i + chunk))))
+                                 .map(Deferred::affected));
+                    }
+                    return Future.all(all).map(x -> {
+                        var r = 0;
+                        for (var f : all) r += f.result();
+                        return r;
+                    });
+                });
+            }
+
+            /**
+             * the cursor holds a connection inside a transaction until it ended.
+             */
+            @Override
+            public <R> Future<Statement.Cursor<R>> stream(String sql, List<Object> arguments, int fetch,
+                                                          Function<Row, R> mapper) {
+                return pool.getConnection()
+                           .compose(c -> c.begin()
+                                          .compose(tx -> c.prepare(sql)
+                                                          .map(ps -> (Statement.Cursor<R>) new Streaming<>(
+                                                                  ps.createStream(fetch, io.vertx.sqlclient.Tuple.wrap(arguments)),
+                                                                  mapper,
+                                                                  () -> ps.close()
+                                                                          .eventually(() -> tx.commit())
+                                                                          .eventually(() -> c.close()))))
+                                          .onFailure(e -> c.close()));
+            }
+
+            static List<io.vertx.sqlclient.Tuple> tuples(List<List<Object>> arguments) {
+                var t = new ArrayList<io.vertx.sqlclient.Tuple>(arguments.size());
+                for (var a : arguments) t.add(io.vertx.sqlclient.Tuple.wrap(a));
+                return t;
+            }
+        }
     }
 
+    /**
+     * cursor without any row, it ends once the end handler set.
+     */
+    static final class Drained<R> implements Statement.Cursor<R> {
+        @Override
+        public Statement.Cursor<R> exceptionHandler(Handler<Throwable> handler) {
+            return this;
+        }
+
+        @Override
+        public Statement.Cursor<R> handler(Handler<R> handler) {
+            return this;
+        }
+
+        @Override
+        public Statement.Cursor<R> pause() {
+            return this;
+        }
+
+        @Override
+        public Statement.Cursor<R> resume() {
+            return this;
+        }
+
+        @Override
+        public Statement.Cursor<R> fetch(long amount) {
+            return this;
+        }
+
+        @Override
+        public Statement.Cursor<R> endHandler(Handler<Void> handler) {
+            if (handler != null) handler.handle(null);
+            return this;
+        }
+
+        @Override
+        public Future<Void> close() {
+            return Future.succeededFuture();
+        }
+    }
+
+    /**
+     * cursor over a {@link RowStream}, rows are mapped on each delivery.
+     */
+    static final class Streaming<R> implements Statement.Cursor<R> {
+        private final RowStream<Row> rows;
+        private final Function<Row, R> mapper;
+        private final Supplier<Future<Void>> release;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private Handler<Void> end;
+        private Handler<Throwable> error;
+
+        Streaming(RowStream<Row> rows, Function<Row, R> mapper, Supplier<Future<Void>> release) {
+            this.rows = rows;
+            this.mapper = mapper;
+            this.release = release;
+            rows.endHandler(v -> {
+                release();
+                if (end != null) end.handle(v);
+            });
+            rows.exceptionHandler(e -> {
+                release();
+                if (error != null) error.handle(e);
+            });
+        }
+
+        private Future<Void> release() {
+            return released.compareAndSet(false, true) ? release.get() : Future.succeededFuture();
+        }
+
+        @Override
+        public Statement.Cursor<R> exceptionHandler(Handler<Throwable> handler) {
+            error = handler;
+            return this;
+        }
+
+        @Override
+        public Statement.Cursor<R> handler(Handler<R> handler) {
+            rows.handler(handler == null ? null : r -> handler.handle(mapper.apply(r)));
+            return this;
+        }
+
+        @Override
+        public Statement.Cursor<R> pause() {
+            rows.pause();
+            return this;
+        }
+
+        @Override
+        public Statement.Cursor<R> resume() {
+            rows.resume();
+            return this;
+        }
+
+        @Override
+        public Statement.Cursor<R> fetch(long amount) {
+            rows.fetch(amount);
+            return this;
+        }
+
+        @Override
+        public Statement.Cursor<R> endHandler(Handler<Void> handler) {
+            end = handler;
+            return this;
+        }
+
+        @Override
+        public Future<Void> close() {
+            return rows.close().eventually(() -> release());
+        }
+    }
+
+    /**
+     * @param mode      the mode
+     * @param sql       the rendered sql
+     * @param arguments the argument rows, {@link Value.hold} inside will be bound on execution.
+     * @param mapper    the row mapper computed from renders
+     * @param map       the mapper that convert store value to JsonObject
+     * @param exec      the executor
+     */
     record Deferred(MODE mode, String sql, Map<String, Object> parameters, Map<String, Value.hold<?>> holders,
                     List<List<Object>> arguments,
+                    Function<Row, Object> mapper,
+                    Function<Object, JsonObject> map,
                     Executor exec)
             implements
             Statement.Deferred.Put
@@ -37,71 +349,193 @@ public class State implements Statement.Singular,
                     , Statement.Deferred.Delete
                     , Statement.Deferred.Into
                     , Statement.Deferred.Modify {
+        /**
+         * compute row mapper from renders, column by column.
+         *
+         * @param renders the renders of selected columns
+         * @param picked  the selection is picked fields or whole model
+         * @return a picked value, a tuple of picked values or a JsonObject for whole model.
+         */
+        static Function<Row, Object> mapper(List<Render<?>> renders, boolean picked) {
+            var x = renders.toArray(Render[]::new);
+            if (!picked) {
+                if (x.length == 0) return Row::toJson;
+                return r -> {
+                    var j = new JsonObject(new LinkedHashMap<>(x.length));
+                    for (int i = 0; i < x.length; i++) {
+                        j.put(r.getColumnName(i), x[i].get(r, i));
+                    }
+                    return j;
+                };
+            }
+            return switch (x.length) {
+                case 0 -> Row::toJson;
+                case 1 -> r -> x[0].get(r, 0);
+                case 2 -> r -> new Tuple2<>(x[0].get(r, 0), x[1].get(r, 1));
+                case 3 -> r -> new Tuple3<>(x[0].get(r, 0), x[1].get(r, 1), x[2].get(r, 2));
+                case 4 -> r -> new Tuple4<>(x[0].get(r, 0), x[1].get(r, 1), x[2].get(r, 2), x[3].get(r, 3));
+                case 5 -> r -> new Tuple5<>(x[0].get(r, 0), x[1].get(r, 1), x[2].get(r, 2), x[3].get(r, 3), x[4].get(r, 4));
+                case 6 -> r -> new Tuple6<>(x[0].get(r, 0), x[1].get(r, 1), x[2].get(r, 2), x[3].get(r, 3), x[4].get(r, 4), x[5].get(r, 5));
+                case 7 -> r -> new Tuple7<>(x[0].get(r, 0), x[1].get(r, 1), x[2].get(r, 2), x[3].get(r, 3), x[4].get(r, 4), x[5].get(r, 5), x[6].get(r, 6));
+                case 8 -> r -> new Tuple8<>(x[0].get(r, 0), x[1].get(r, 1), x[2].get(r, 2), x[3].get(r, 3), x[4].get(r, 4), x[5].get(r, 5), x[6].get(r, 6), x[7].get(r, 7));
+                case 9 -> r -> new Tuple9<>(x[0].get(r, 0), x[1].get(r, 1), x[2].get(r, 2), x[3].get(r, 3), x[4].get(r, 4), x[5].get(r, 5), x[6].get(r, 6), x[7].get(r, 7), x[8].get(r, 8));
+                case 10 -> r -> new Tuple10<>(x[0].get(r, 0), x[1].get(r, 1), x[2].get(r, 2), x[3].get(r, 3), x[4].get(r, 4), x[5].get(r, 5), x[6].get(r, 6), x[7].get(r, 7), x[8].get(r, 8), x[9].get(r, 9));
+                case 11 -> r -> new Tuple11<>(x[0].get(r, 0), x[1].get(r, 1), x[2].get(r, 2), x[3].get(r, 3), x[4].get(r, 4), x[5].get(r, 5), x[6].get(r, 6), x[7].get(r, 7), x[8].get(r, 8), x[9].get(r, 9), x[10].get(r, 10));
+                case 12 -> r -> new Tuple12<>(x[0].get(r, 0), x[1].get(r, 1), x[2].get(r, 2), x[3].get(r, 3), x[4].get(r, 4), x[5].get(r, 5), x[6].get(r, 6), x[7].get(r, 7), x[8].get(r, 8), x[9].get(r, 9), x[10].get(r, 10), x[11].get(r, 11));
+                case 13 -> r -> new Tuple13<>(x[0].get(r, 0), x[1].get(r, 1), x[2].get(r, 2), x[3].get(r, 3), x[4].get(r, 4), x[5].get(r, 5), x[6].get(r, 6), x[7].get(r, 7), x[8].get(r, 8), x[9].get(r, 9), x[10].get(r, 10), x[11].get(r, 11), x[12].get(r, 12));
+                case 14 -> r -> new Tuple14<>(x[0].get(r, 0), x[1].get(r, 1), x[2].get(r, 2), x[3].get(r, 3), x[4].get(r, 4), x[5].get(r, 5), x[6].get(r, 6), x[7].get(r, 7), x[8].get(r, 8), x[9].get(r, 9), x[10].get(r, 10), x[11].get(r, 11), x[12].get(r, 12), x[13].get(r, 13));
+                case 15 -> r -> new Tuple15<>(x[0].get(r, 0), x[1].get(r, 1), x[2].get(r, 2), x[3].get(r, 3), x[4].get(r, 4), x[5].get(r, 5), x[6].get(r, 6), x[7].get(r, 7), x[8].get(r, 8), x[9].get(r, 9), x[10].get(r, 10), x[11].get(r, 11), x[12].get(r, 12), x[13].get(r, 13), x[14].get(r, 14));
+                case 16 -> r -> new Tuple16<>(x[0].get(r, 0), x[1].get(r, 1), x[2].get(r, 2), x[3].get(r, 3), x[4].get(r, 4), x[5].get(r, 5), x[6].get(r, 6), x[7].get(r, 7), x[8].get(r, 8), x[9].get(r, 9), x[10].get(r, 10), x[11].get(r, 11), x[12].get(r, 12), x[13].get(r, 13), x[14].get(r, 14), x[15].get(r, 15));
+                default -> throw new IllegalStateException("overflow of picked fields. max is 16");
+            };
+        }
+
+        static int affected(SqlResult<?> r) {
+            var n = 0;
+            for (var x = r; x != null; x = x.next()) {
+                n += x.rowCount();
+            }
+            return n;
+        }
+
+        /**
+         * bind holders in argument row with parameters.
+         *
+         * @return the same row if none holder inside.
+         * @throws IllegalArgumentException if a holder is missing in parameters
+         */
+        static List<Object> bind(List<Object> row, Map<String, Object> parameters) {
+            List<Object> out = null;
+            for (int i = 0; i < row.size(); i++) {
+                if (row.get(i) instanceof Value.hold<?> h) {
+                    if (out == null) out = new ArrayList<>(row);
+                    if (!parameters.containsKey(h.key()))
+                        throw new IllegalArgumentException("missing parameter " + h.key());
+                    out.set(i, parameters.get(h.key()));
+                }
+            }
+            return out == null ? row : out;
+        }
+
+        /**
+         * @return the future of action, or a failed future if binding fails.
+         */
+        static <R> Future<R> bound(Supplier<Future<R>> act) {
+            try {
+                return act.get();
+            } catch (IllegalArgumentException e) {
+                return Future.failedFuture(e);
+            }
+        }
+
+        List<Object> argument(Map<String, Object> parameters) {
+            if (arguments.isEmpty()) return List.of();
+            assert arguments.size() == 1 : "multiple argument rows for single statement";
+            return bind(arguments.get(0), parameters);
+        }
+
+        Future<Integer> update(Map<String, Object> parameters) {
+            return bound(() -> {
+                if (arguments.size() > 1) {
+                    var rows = new ArrayList<List<Object>>(arguments.size());
+                    for (var a : arguments) rows.add(bind(a, parameters));
+                    return exec.batch(sql, rows);
+                }
+                return exec.update(sql, argument(parameters));
+            });
+        }
+
         @Override
         public Future<Integer> delete(Map parameters) {
-            return null;
+            assert mode == MODE.DELETE : "mode require DELETE";
+            return update(parameters);
         }
 
         @Override
-        public Future<List> one(Map parameters) {
-            return null;
+        public Future one(Map parameters) {
+            assert mode == MODE.ONE : "mode require ONE";
+            return bound(() -> exec.query(sql, argument((Map<String, Object>) parameters),
+                                          Collectors.mapping(mapper, Collectors.toList()))
+                                   .map(l -> l.isEmpty() ? null : l.get(0)));
+        }
+
+        @Override
+        public Future any(Map parameters) {
+            assert mode == MODE.ANY : "mode require ANY";
+            return bound(() -> exec.query(sql, argument((Map<String, Object>) parameters),
+                                          Collectors.mapping(mapper, Collectors.toList())));
+        }
+
+        @Override
+        public Future stream(int fetch, Map parameters) {
+            assert mode == MODE.ANY : "mode require ANY";
+            return bound(() -> exec.stream(sql, argument((Map<String, Object>) parameters), fetch, mapper));
         }
 
         @Override
         public Future<Integer> count(Map parameters) {
-            return null;
+            assert mode == MODE.COUNT : "mode require COUNT";
+            return bound(() -> exec.query(sql, argument((Map<String, Object>) parameters),
+                                          Collectors.mapping((Row r) -> r.getInteger(0), Collectors.toList()))
+                                   .map(l -> l.isEmpty() ? 0 : l.get(0)));
         }
 
         @Override
         public Future<Integer> into(Map parameters) {
-            return null;
+            assert mode == MODE.INTO : "mode require INTO";
+            return update(parameters);
         }
 
         @Override
         public Future<Void> putRaw(JsonObject i, JsonObject... m) {
-            return null;
+            assert mode == MODE.PUT : "mode require PUT";
+            assert arguments.size() == 1 : "deferred put require one argument row";
+            //! the row of holders keyed by field name, bound by each value.
+            var row = arguments.get(0);
+            return bound(() -> {
+                if (m.length == 0) return exec.update(sql, bind(row, i.getMap())).mapEmpty();
+                var rows = new ArrayList<List<Object>>(m.length + 1);
+                rows.add(bind(row, i.getMap()));
+                for (var x : m) rows.add(bind(row, x.getMap()));
+                return exec.batch(sql, rows).mapEmpty();
+            });
         }
 
         @Override
         public Future<Void> put(Object i, Object... m) {
-            return null;
+            var x = new JsonObject[m.length];
+            for (int j = 0; j < m.length; j++) x[j] = map.apply(m[j]);
+            return putRaw(map.apply(i), x);
         }
 
         @Override
         public Future<Integer> modify(Map parameters) {
-            return null;
+            assert mode == MODE.SET : "mode require SET";
+            return update(parameters);
         }
 
         public Future<List> any() {
-            return null;
+            return any(Map.of());
         }
 
         public Future one() {
-            return null;
+            return one(Map.of());
         }
 
         public Future delete() {
-            return null;
+            return delete(Map.of());
         }
 
         public Future count() {
-            return null;
+            return count(Map.of());
         }
 
         public Future into() {
-            return null;
-        }
-
-        public Future put() {
-            return null;
+            return into(Map.of());
         }
 
         public Future modify() {
-            return null;
-        }
-
-        public Future info() {
-            return null;
+            return modify(Map.of());
         }
     }
 
@@ -724,11 +1158,12 @@ public class State implements Statement.Singular,
 
     @Override
     public Future<Void> putRaw(JsonObject value, JsonObject... more) {
-        var x = more.length == 0 ? List.of(value) : Arrays.asList(more);
-        if (more.length != 0) x.add(value);
+        var x = new ArrayList<JsonObject>(more.length + 1);
+        x.add(value);
+        Collections.addAll(x, more);
         this.state.values = x;
         this.state.mode = MODE.PUT;
-        return deferred().put().mapEmpty();
+        return deferred().putRaw(value, more);
     }
 
     @Override
@@ -740,7 +1175,9 @@ public class State implements Statement.Singular,
 
     @Override
     public Future<Void> put(Object value, Object... more) {
-        return putRaw(map.apply(value));
+        var x = new JsonObject[more.length];
+        for (int i = 0; i < more.length; i++) x[i] = map.apply(more[i]);
+        return putRaw(map.apply(value), x);
     }
 
 
@@ -753,7 +1190,7 @@ public class State implements Statement.Singular,
 
     @Override
     public Statement.Assigner filter(Function filter) {
-        this.state.filter = ((Value.Bool) filter.apply(this));
+        this.state.filter = Simplify.bool((Value.Bool) filter.apply(this));
         return this;
     }
 
@@ -785,12 +1222,37 @@ public class State implements Statement.Singular,
         return deferred();
     }
 
+    @Override
+    public Statement.Having group(Function group) {
+        this.state.group = (List<Value<?>>) group.apply(this);
+        return this;
+    }
+
+    @Override
+    public Statement.Sort having(Function having) {
+        this.state.having = Simplify.bool((Value.Bool) having.apply(this));
+        return this;
+    }
+
     @Override
     public Statement.Skip sort(Function sort) {
         this.state.sort = ((List<Expr.Sorter>) sort.apply(this));
         return this;
     }
 
+    @Override
+    public Statement.Limit seek(Function sort, @Nullable List after) {
+        this.state.seek = Expr.Seek.of((List<Expr.Sorter>) sort.apply(this), after);
+        return this;
+    }
+
+    @Override
+    public Statement.Limit seekToken(Function sort, @Nullable Buffer token) {
+        var keys = (List<Expr.Sorter>) sort.apply(this);
+        this.state.seek = Expr.Seek.of(keys, token == null ? null : Expr.Seek.values(token, keys.size()));
+        return this;
+    }
+
     @Override
     public Statement.Limit skip(int n) {
         this.state.skip = n;
@@ -815,6 +1277,12 @@ public class State implements Statement.Singular,
         return deferred();
     }
 
+    @Override
+    public Future stream(int fetch) {
+        this.state.mode = MODE.ANY;
+        return deferred().stream(fetch, Map.of());
+    }
+
     @Override
     public Future<Integer> delete() {
         this.state.mode = MODE.DELETE;
@@ -888,6 +1356,13 @@ public class State implements Statement.Singular,
         return deferred();
     }
 
+    @Override
+    public Future stream(int fetch, Function pick) {
+        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.mode = MODE.ANY;
+        return deferred().stream(fetch, Map.of());
+    }
+
     @Override
     public Statement.Deferred.One deferredOne(Function pick) {
         this.state.pick = List.of((Model.Field<?>) pick.apply(this));
@@ -898,7 +1373,7 @@ public class State implements Statement.Singular,
 
     @Override
     public Future<List> any2(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ANY;
         return deferred().any();
     }
@@ -906,13 +1381,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.Any<List> deferredAny2(Function pick) {
         state.mode = MODE.ANY;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<Tuple2> one2(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ONE;
         return deferred().one();
     }
@@ -920,13 +1395,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.One<Tuple2> deferredOne2(Function pick) {
         state.mode = MODE.ONE;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<List> any3(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ANY;
         return deferred().any();
     }
@@ -934,13 +1409,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.Any<List> deferredAny3(Function pick) {
         state.mode = MODE.ANY;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<Tuple3> one3(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ONE;
         return deferred().one();
     }
@@ -948,13 +1423,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.One<Tuple3> deferredOne3(Function pick) {
         state.mode = MODE.ONE;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<List> any4(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ANY;
         return deferred().any();
     }
@@ -962,13 +1437,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.Any<List> deferredAny4(Function pick) {
         state.mode = MODE.ANY;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<Tuple4> one4(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ONE;
         return deferred().one();
     }
@@ -976,13 +1451,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.One<Tuple4> deferredOne4(Function pick) {
         state.mode = MODE.ONE;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<List> any5(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ANY;
         return deferred().any();
     }
@@ -990,13 +1465,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.Any<List> deferredAny5(Function pick) {
         state.mode = MODE.ANY;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<Tuple5> one5(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ONE;
         return deferred().one();
     }
@@ -1004,13 +1479,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.One<Tuple5> deferredOne5(Function pick) {
         state.mode = MODE.ONE;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<List> any6(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ANY;
         return deferred().any();
     }
@@ -1018,13 +1493,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.Any<List> deferredAny6(Function pick) {
         state.mode = MODE.ANY;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<Tuple6> one6(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ONE;
         return deferred().one();
     }
@@ -1032,13 +1507,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.One<Tuple6> deferredOne6(Function pick) {
         state.mode = MODE.ONE;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<List> any7(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ANY;
         return deferred().any();
     }
@@ -1046,13 +1521,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.Any<List> deferredAny7(Function pick) {
         state.mode = MODE.ANY;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<Tuple7> one7(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ONE;
         return deferred().one();
     }
@@ -1060,13 +1535,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.One<Tuple7> deferredOne7(Function pick) {
         state.mode = MODE.ONE;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<List> any8(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ANY;
         return deferred().any();
     }
@@ -1074,13 +1549,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.Any<List> deferredAny8(Function pick) {
         state.mode = MODE.ANY;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<Tuple8> one8(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ONE;
         return deferred().one();
     }
@@ -1088,13 +1563,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.One<Tuple8> deferredOne8(Function pick) {
         state.mode = MODE.ONE;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<List> any9(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ANY;
         return deferred().any();
     }
@@ -1102,13 +1577,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.Any<List> deferredAny9(Function pick) {
         state.mode = MODE.ANY;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<Tuple9> one9(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ONE;
         return deferred().one();
     }
@@ -1116,13 +1591,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.One<Tuple9> deferredOne9(Function pick) {
         state.mode = MODE.ONE;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<List> any10(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ANY;
         return deferred().any();
     }
@@ -1130,13 +1605,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.Any<List> deferredAny10(Function pick) {
         state.mode = MODE.ANY;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<Tuple10> one10(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ONE;
         return deferred().one();
     }
@@ -1144,13 +1619,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.One<Tuple10> deferredOne10(Function pick) {
         state.mode = MODE.ONE;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<List> any11(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ANY;
         return deferred().any();
     }
@@ -1158,13 +1633,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.Any<List> deferredAny11(Function pick) {
         state.mode = MODE.ANY;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<Tuple11> one11(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ONE;
         return deferred().one();
     }
@@ -1172,13 +1647,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.One<Tuple11> deferredOne11(Function pick) {
         state.mode = MODE.ONE;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<List> any12(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ANY;
         return deferred().any();
     }
@@ -1186,13 +1661,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.Any<List> deferredAny12(Function pick) {
         state.mode = MODE.ANY;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<Tuple12> one12(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ONE;
         return deferred().one();
     }
@@ -1200,13 +1675,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.One<Tuple12> deferredOne12(Function pick) {
         state.mode = MODE.ONE;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<List> any13(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ANY;
         return deferred().any();
     }
@@ -1214,13 +1689,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.Any<List> deferredAny13(Function pick) {
         state.mode = MODE.ANY;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<Tuple13> one13(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ONE;
         return deferred().one();
     }
@@ -1228,13 +1703,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.One<Tuple13> deferredOne13(Function pick) {
         state.mode = MODE.ONE;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<List> any14(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ANY;
         return deferred().any();
     }
@@ -1242,13 +1717,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.Any<List> deferredAny14(Function pick) {
         state.mode = MODE.ANY;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<Tuple14> one14(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ONE;
         return deferred().one();
     }
@@ -1256,13 +1731,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.One<Tuple14> deferredOne14(Function pick) {
         state.mode = MODE.ONE;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<List> any15(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ANY;
         return deferred().any();
     }
@@ -1270,13 +1745,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.Any<List> deferredAny15(Function pick) {
         state.mode = MODE.ANY;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<Tuple15> one15(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ONE;
         return deferred().one();
     }
@@ -1284,13 +1759,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.One<Tuple15> deferredOne15(Function pick) {
         state.mode = MODE.ONE;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<List> any16(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ANY;
         return deferred().any();
     }
@@ -1298,13 +1773,13 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.Any<List> deferredAny16(Function pick) {
         state.mode = MODE.ANY;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     @Override
     public Future<Tuple16> one16(Function pick) {
-        this.state.pick = List.of((Model.Field<?>) pick.apply(this));
+        this.state.pick = picks(pick.apply(this));
         this.state.mode = MODE.ONE;
         return deferred().one();
     }
@@ -1312,15 +1787,14 @@ public class State implements Statement.Singular,
     @Override
     public Statement.Deferred.One<Tuple16> deferredOne16(Function pick) {
         state.mode = MODE.ONE;
-        state.pick = (List<Model.Field<?>>) pick.apply(this);
+        state.pick = picks(pick.apply(this));
         return deferred();
     }
 
     //endregion
     @Override
     public Statement.UStore3 andJoin(Expr.JoinMode mode, Statement.Store store, Function cond) {
-        state.join.add(new Expr.Join(mode, store, (Value.Bool) cond.apply(this)));
-        state.stores.add(store);
+        state.join(new Expr.Join(mode, store, (Value.Bool) cond.apply(this)));
         return new U3(this);
     }
 
@@ -1457,6 +1931,8 @@ public class State implements Statement.Singular,
     public static final Predicate<Status> HAVE_SORT = s -> s.sort != null && !s.sort.isEmpty();
     public static final Predicate<Status> HAVE_LIMIT = s -> s.limit != null && s.limit > 0;
     public static final Predicate<Status> HAVE_SKIP = s -> s.skip != null && s.skip > 0;
+    public static final Predicate<Status> HAVE_GROUP = s -> s.group != null && !s.group.isEmpty();
+    public static final Predicate<Status> HAVE_SEEK = s -> s.seek != null;
     public static final Predicate<Status> HAVE_INTO = s -> s.into != null && !s.into.isEmpty();
     //region asserts
     //@formatter:off
@@ -1487,7 +1963,41 @@ public class State implements Statement.Singular,
 
     private Deferred deferred() {
         var d = dialect.render(state);
-        return new Deferred(d.mode(), d.sql(), d.parameters(), d.holders(), d.arguments(), dialect.executor());
+        Function<Row, ?> mapper = state.pick == null && state.join == null && state.primary instanceof Storage<?, ?> s
+                                  ? s.$mapper() : null;
+        return new Deferred(d.mode(), d.sql(), d.parameters(), d.holders(), d.arguments(),
+                            mapper != null ? (Function<Row, Object>) mapper : Deferred.mapper(d.renders(), state.pick != null),
+                            map,
+                            executor());
+    }
+
+    private Executor executor() {
+        if (state.filter == Value.FALSE && !aggregated(state)) return Executor.NONE;
+        var results = dialect.results();
+        if (results == null) return dialect.executor();
+        return results.executor(dialect.executor(), state.mode, Results.tables(state));
+    }
+
+    /**
+     * an ungrouped aggregate yields one row even nothing matched, eg: {@code SELECT MAX(x) ... WHERE FALSE}.
+     *
+     * @return whether the status counts or picks aggregates
+     */
+    static boolean aggregated(Status s) {
+        if (s.mode == MODE.COUNT || HAVE_COUNT.test(s)) return true;
+        //!! the walker keys each node by its class
+        var w = new Plan.Walker();
+        if (s.pick != null) for (var f : s.pick) w.value(f);
+        w.assigns(s.into);
+        return w.key.contains(Value.aNum.class) || w.key.contains(Value.aVal.class);
+    }
+
+    /**
+     * @param tuple the picked tuple of fields
+     * @return picked fields in order
+     */
+    private static List<Model.Field<?>> picks(Object tuple) {
+        return (List<Model.Field<?>>) ((Tuple) tuple).toList();
     }
 
     private final Dialect dialect;
@@ -1505,6 +2015,14 @@ public class State implements Statement.Singular,
 
     }
 
+    Status status() {
+        return state;
+    }
+
+    private static JsonObject readonly(Object value) {
+        throw new IllegalStateException("derived table is read only");
+    }
+
     public static final class Status {
         public Status(Model<?> primary) {this.primary = primary;}
 
@@ -1518,7 +2036,7 @@ public class State implements Statement.Singular,
                 this.join = new ArrayList<>();
             }
             assert this.join.size() <= 16 : "overflow of joined stores. max is 16";
-            this.join.add(join);
+            this.join.add(new Expr.Join(join.mode(), join.target(), Simplify.bool(join.cond())));
             this.stores.add(join.target());
         }
 
@@ -1555,11 +2073,26 @@ public class State implements Statement.Singular,
          */
         @Nullable
         public Value.Bool filter;
+        /**
+         * group by expressions
+         */
+        @Nullable
+        public List<Value<?>> group;
+        /**
+         * filter of groups
+         */
+        @Nullable
+        public Value.Bool having;
         /**
          * sort expressions
          */
         @Nullable
         public List<Expr.Sorter> sort;
+        /**
+         * keyset pagination, exclusive with sort and skip.
+         */
+        @Nullable
+        public Expr.Seek seek;
         /**
          * skip value
          */
@@ -1585,13 +2118,71 @@ public class State implements Statement.Singular,
         public List<Expr.Assign> into;
 
 
+        /**
+         * compute the derived table of current status, which is only rendered when outer query executed.
+         * columns are the picked fields, or all fields of primary model when nothing picked.
+         *
+         * @see Dialect#derived(Dialect.Builder, Model.Virtual, Status)
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
         public Statement.Singular computeVirtual(Dialect dialect, String alias) {
-            var orders = new ArrayList<>();
-            var fields = new HashMap<>();
-            Function<Object, JsonObject> mapper = null;
-            //!TODO compute from current status
-            var m = new Model.Virtual(orders, fields, this, alias);
-            return new State(dialect, mapper, m);
+            var columns = columns();
+            var order = new ArrayList<String>(columns.size());
+            var fields = new HashMap<String, Model.Field<?>>(columns.size());
+            for (var f : columns) {
+                var n = column(f);
+                if (fields.containsKey(n)) throw new IllegalStateException("duplicate column '" + n + "' of " + alias);
+                order.add(n);
+                fields.put(n, new Model.Field.Derived(alias, n, Render.of(f)));
+            }
+            var m = new Model.Virtual<>(order, fields, this, alias);
+            return new State(dialect, State::readonly, m);
+        }
+
+        /**
+         * @return a copy of this status with picked columns, used by projection of derived table.
+         */
+        Status project(List<Model.Field<?>> columns) {
+            var s = new Status(primary);
+            s.stores.addAll(stores);
+            s.mode = mode;
+            s.count = count;
+            s.values = values;
+            s.modified = modified;
+            s.join = join;
+            s.filter = filter;
+            s.group = group;
+            s.having = having;
+            s.sort = sort;
+            s.seek = seek;
+            s.skip = skip;
+            s.limit = limit;
+            s.pick = columns;
+            s.into = into;
+            return s;
+        }
+
+        /**
+         * @return the selected columns of this status as a sub query
+         */
+        List<Model.Field<?>> columns() {
+            return pick != null ? pick : fields(primary);
+        }
+
+        static List<Model.Field<?>> fields(Model<?> m) {
+            var r = new ArrayList<Model.Field<?>>(m.$order().size());
+            for (var n : m.$order()) r.add(m.$fields().get(n));
+            return r;
+        }
+
+        /**
+         * @return the column name of a field selected by sub query
+         */
+        static String column(Model.Field<?> f) {
+            if (f instanceof Storage.Field<?, ?> s) return s.alias != null ? s.alias : s.name;
+            if (f instanceof Model.Field.Virtual<?> v) return v.name();
+            if (f instanceof Model.Field.Derived<?> d) return d.name();
+            throw new IllegalStateException("unnamed column of sub query: " + f);
         }
     }
 
@@ -1,7 +1,10 @@
 package vax.query;
 
 import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
+import org.jetbrains.annotations.Nullable;
 import org.jooq.lambda.tuple.*;
 import vax.query.Expr.JoinMode;
 
@@ -18,6 +21,9 @@ import java.util.function.Function;
 public interface Statement {
     interface Deferred {
         interface Put<T> extends Deferred {
+            /**
+             * @see Singular#putRaw(JsonObject, JsonObject...)
+             */
             Future<Void> putRaw(JsonObject one, JsonObject... more);
 
             @SuppressWarnings("unchecked")
@@ -30,8 +36,14 @@ public interface Statement {
         }
 
         interface Any<E> extends Deferred {
-            Future<List<E>> one(Map<String, Object> parameters);
-
+            Future<List<E>> any(Map<String, Object> parameters);
+
+            /**
+             * @param fetch      the rows of each fetch from database cursor
+             * @param parameters the parameters
+             * @see Query#stream(int)
+             */
+            Future<Cursor<E>> stream(int fetch, Map<String, Object> parameters);
         }
 
         interface Count extends Deferred {
@@ -51,7 +63,22 @@ public interface Statement {
         }
     }
 
+    /**
+     * A stream of decoded rows backed by a database cursor, rows are fetched on demand.<br/>
+     * The underlying connection is released when the stream ended, failed or closed.
+     */
+    interface Cursor<E> extends ReadStream<E> {
+        /**
+         * close the cursor before it ends.
+         */
+        Future<Void> close();
+    }
+
     interface Singular<E, S extends Singular<E, S>> extends Store<E, Singular<E, S>> {
+        /**
+         * insert rows of all columns. every column must have a key in each value, a null value inserts NULL,
+         * database defaults are not applied. a missing key fails the future with {@link IllegalArgumentException}.
+         */
         Future<Void> putRaw(JsonObject value, JsonObject... more);
 
         @SuppressWarnings("unchecked")
@@ -622,7 +649,7 @@ public interface Statement {
         Assigner<E, ?> filter(Function<S, Value.Bool> filter);
     }
 
-    interface Assigner<E, S extends Stage<E, ?>> extends Sort<E, S> {
+    interface Assigner<E, S extends Stage<E, ?>> extends Group<E, S> {
         Future<Void> into(Function<S, List<Expr.Assign>> fn);
 
         Deferred.Into deferredInto(Function<S, List<Expr.Assign>> fn);
@@ -632,8 +659,40 @@ public interface Statement {
         Deferred.Modify deferredModify(Function<S, List<Expr.Assign>> fn);
     }
 
+    interface Group<E, S extends Stage<E, ?>> extends Sort<E, S> {
+        /**
+         * group by values, picked values should be grouped values or aggregates.
+         */
+        Having<E, ?> group(Function<S, List<Value<?>>> group);
+    }
+
+    interface Having<E, S extends Stage<E, ?>> extends Sort<E, S> {
+        /**
+         * filter of groups, usually on aggregates.
+         */
+        Sort<E, ?> having(Function<S, Value.Bool> having);
+    }
+
     interface Sort<E, S extends Stage<E, ?>> extends Query<E, S> {
         Skip<E, ?> sort(Function<S, List<Expr.Sorter>> sort);
+
+        /**
+         * keyset pagination, sort and take rows after the last seen values of sort keys.
+         *
+         * @param sort  the sort keys, should end with an unique key.
+         * @param after the last seen values of sort keys, null for first page.
+         * @see Expr.Seek
+         */
+        Limit<E, ?> seek(Function<S, List<Expr.Sorter>> sort, @Nullable List<?> after);
+
+        /**
+         * @param token the continuation token from {@link Expr.Seek#token(List)}, null for first page.
+         * @throws IllegalArgumentException for a malformed token, or a token of other sort keys
+         * @see #seek(Function, List)
+         */
+        default Limit<E, ?> seekToken(Function<S, List<Expr.Sorter>> sort, @Nullable Buffer token) {
+            return seek(sort, token == null ? null : Expr.Seek.values(token));
+        }
     }
 
     interface Skip<E, S extends Stage<E, ?>> extends Query<E, S> {
@@ -662,6 +721,13 @@ public interface Statement {
 
         Deferred.Any<E> deferredAny();
 
+        /**
+         * stream of rows with backpressure, for large results.
+         *
+         * @param fetch the rows of each fetch from database cursor
+         */
+        Future<Cursor<E>> stream(int fetch);
+
         Future<Integer> count();
 
         Deferred.Count deferredCount();
@@ -678,6 +744,12 @@ public interface Statement {
 
         <V> Deferred.Any<List<V>> deferredAny(Function<S, Model.Field<V>> pick);
 
+        /**
+         * @param fetch the rows of each fetch from database cursor
+         * @see #stream(int)
+         */
+        <V> Future<Cursor<V>> stream(int fetch, Function<S, Model.Field<V>> pick);
+
         //region Picks
         <E0, E1> Future<Tuple2<E0, E1>> one2(Function<S, Tuple2<Model.Field<E0>, Model.Field<E1>>> pick);
 
@@ -1,7 +1,11 @@
 package vax.query;
 
+import io.vertx.sqlclient.Row;
+import org.jetbrains.annotations.Nullable;
+
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * @author Zen.Liu
@@ -20,6 +24,21 @@ public abstract class Storage<T, S extends Storage<T, ?>> implements Model<T>, M
 
     protected abstract S _me();
 
+    /**
+     * the row mapper of full selected entity, used instead of column renders when present.
+     * a generated mapper resolves column indices on construction, should be created once (lazily, after fields set):
+     * <pre>{@code
+     * public Function<Row, User> $mapper() {
+     *     return mapper == null ? mapper = new UserStorageMapper(this) : mapper;
+     * }
+     * }</pre>
+     *
+     * @return the mapper generated by {@code @Vax.Mapper}, null for default.
+     */
+    public @Nullable Function<Row, T> $mapper() {
+        return null;
+    }
+
     public String name;
     public String alias;
 
@@ -34,6 +53,10 @@ public abstract class Storage<T, S extends Storage<T, ?>> implements Model<T>, M
         public String name;
         public String alias;
         public Render<T> render;
+        /**
+         * the storage declares this field, required as target of {@link Statement.Assigner#into(java.util.function.Function)}.
+         */
+        public Storage<?, ?> owner;
 
         abstract F _me();
 
@@ -8,7 +8,9 @@ import org.intellij.lang.annotations.MagicConstant;
 import java.time.Instant;
 import java.time.temporal.ChronoField;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -44,6 +46,35 @@ public interface Value<T> {
         return new unary<>(this, NULL);
     }
 
+    /**
+     * @param v the candidates, empty for always false.
+     */
+    default Bool in(Collection<T> v) {
+        if (v.isEmpty()) return FALSE;
+        var items = new ArrayList<param<T>>(v.size());
+        for (var x : v) items.add(new param<>(x));
+        return new in<>(this, items);
+    }
+
+    //region aggregates
+
+    default Value<T> min() {
+        return new aVal<>(this, MIN);
+    }
+
+    default Value<T> max() {
+        return new aVal<>(this, MAX);
+    }
+
+    default Int<Long> count() {
+        return new aNum<>(this, COUNT, false);
+    }
+
+    default Int<Long> countDistinct() {
+        return new aNum<>(this, COUNT, true);
+    }
+    //endregion
+
     default Model.Field<T> as(String name) {
         return new Model.Field.Virtual<>(this, name);
     }
@@ -89,6 +120,12 @@ public interface Value<T> {
     int JSON_DELETE = 31;
     int TIME_ADD = 32;
     int TIME_FIELD = 33;
+    int IN = 34;
+    int SUM = 35;
+    int AVG = 36;
+    int MIN = 37;
+    int MAX = 38;
+    int COUNT = 39;
 
 
     record binary<T>(Value<T> v0, Value<T> v1, @MagicConstant(valuesFromClass = Expr.class) int op) implements Bool,
@@ -103,6 +140,35 @@ public interface Value<T> {
                                                                           Operation {}
 
 
+    /**
+     * membership of a list of parameters.
+     * the list is rendered with the size of {@link #bucket(int)}, so statements of similar sized lists are the same.
+     */
+    record in<T>(Value<T> v, List<param<T>> items) implements Bool, Operation {
+        public in {
+            assert !items.isEmpty() : "empty IN list";
+        }
+
+        @Override
+        public int op() {
+            return IN;
+        }
+
+        /**
+         * @return the power-of-two bucket of list size
+         */
+        public static int bucket(int n) {
+            return n <= 1 ? n : Integer.highestOneBit(n - 1) << 1;
+        }
+
+        /**
+         * @return the item at i of the padded list, the last item is repeated as padding.
+         */
+        public param<T> item(int i) {
+            return items.get(Math.min(i, items.size() - 1));
+        }
+    }
+
     Bool TRUE = new Bool() {};
     Bool FALSE = new Bool() {};
 
@@ -149,6 +215,18 @@ public interface Value<T> {
         }
     }
 
+    /**
+     * aggregate of numeric result.
+     *
+     * @param distinct aggregate on distinct values
+     */
+    record aNum<T extends Number>(Value<?> v, int op, boolean distinct) implements Int<T>, Operation {}
+
+    /**
+     * aggregate of same type as the value.
+     */
+    record aVal<T>(Value<T> v, int op) implements Value<T>, Operation {}
+
     record bNum<T extends Number>(Value<T> left, Value<T> right, int op) implements Numeric<T>, Operation {}
 
     record bInt<T extends Number>(Value<T> left, Value<T> right, int op) implements Int<T>, Operation {}
@@ -182,6 +260,18 @@ public interface Value<T> {
 
         default Numeric<T> mode(Value<T> v) {return new bNum<>(this, v, MOD);}
 
+        default Numeric<T> sum() {return new aNum<>(this, SUM, false);}
+
+        default Numeric<T> sumDistinct() {return new aNum<>(this, SUM, true);}
+
+        default Numeric<Double> avg() {return new aNum<>(this, AVG, false);}
+
+        @Override
+        default Numeric<T> min() {return new aNum<>(this, MIN, false);}
+
+        @Override
+        default Numeric<T> max() {return new aNum<>(this, MAX, false);}
+
 
     }
 
@@ -0,0 +1,126 @@
+package vax.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static vax.query.Sample.*;
+
+/**
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+class ArgumentTest {
+    final Users users = new Users();
+
+    /**
+     * a dialect of anonymous placeholders.
+     */
+    static final class Anonymous extends Sql {
+        @Override
+        protected CharSequence placeholder(int n) {
+            return "?";
+        }
+
+        @Override
+        protected boolean intern() {
+            return false;
+        }
+    }
+
+    State ages(Sql d, List<Integer> ages) {
+        var s = d.state(users);
+        s.filter(x -> users.age.in(ages));
+        s.any();
+        return s;
+    }
+
+    @Test
+    void intern() {
+        var b = new Dialect.Builder(State.MODE.ANY, true);
+        try {
+            assertEquals(1, b.argument(p(1)));
+            assertEquals(2, b.argument(p("a")));
+            assertEquals(1, b.argument(p(1)), "equal params share a position");
+            assertEquals(3, b.argument(p(1L)), "params of other types never");
+            assertEquals(4, b.argument(p(null)), "null params never");
+            assertEquals(5, b.argument(p(null)));
+            var h = new Value.hold<>(Integer.class, "h");
+            assertEquals(6, b.argument(h));
+            assertEquals(6, b.argument(h));
+            assertEquals(7, b.argument(p(1), false));
+            assertEquals(List.of(1, "a", 1L), b.arguments().get(0).subList(0, 3));
+            assertEquals(7, b.arguments().get(0).size());
+        } finally {
+            b.release();
+        }
+        var off = new Dialect.Builder(State.MODE.ANY, false);
+        try {
+            assertEquals(1, off.argument(p(1)));
+            assertEquals(2, off.argument(p(1)));
+        } finally {
+            off.release();
+        }
+    }
+
+    @Test
+    void render() {
+        var d = new Sql();
+        var s = d.state(users);
+        s.filter(x -> users.age.gt(p(18)).and(users.age.lt(p(60))).and(users.name.eq("18")).or(users.age.eq(p(18))));
+        s.any();
+        //!! terms in canonical order
+        assertEquals(List.of(List.of(18, "18", 60)), d.recorder.arguments.get(0));
+        var sql = d.recorder.sql.get(0);
+        assertTrue(sql.contains("( users.age = $1 )") && sql.contains("( users.age > $1 )"), sql);
+        var a = new Anonymous();
+        var t = a.state(users);
+        t.filter(x -> users.age.gt(p(18)).or(users.age.eq(p(18))));
+        t.any();
+        assertEquals(List.of(List.of(18, 18)), a.recorder.arguments.get(0));
+    }
+
+    @Test
+    void internedShape() {
+        var d = new Sql();
+        //!! equal params are one placeholder, the plan is not reusable for unequal ones
+        var s = d.state(users);
+        s.filter(x -> users.age.gt(p(18)).or(users.age.lt(p(18))));
+        var t = d.state(users);
+        t.filter(x -> users.age.gt(p(18)).or(users.age.lt(p(30))));
+        assertNotEquals(Plan.Shape.of(s.status()).key(), Plan.Shape.of(t.status()).key());
+        s.any();
+        t.any();
+        assertEquals(List.of(List.of(18)), d.recorder.arguments.get(0));
+        assertEquals(List.of(List.of(18, 30)), d.recorder.arguments.get(1));
+    }
+
+    @Test
+    void bucket() {
+        var sizes = new int[]{0, 1, 2, 4, 4, 8, 8, 8, 8, 16};
+        for (int i = 0; i < sizes.length; i++) assertEquals(sizes[i], Value.in.bucket(i), "bucket of " + i);
+        assertSame(Value.FALSE, users.age.in(List.of()));
+    }
+
+    @Test
+    void inList() {
+        var d = new Sql();
+        ages(d, List.of(1, 2, 3));
+        ages(d, List.of(4, 5, 6, 7));
+        ages(d, List.of(7, 8, 9, 10, 11));
+        var r = d.recorder;
+        assertTrue(r.sql.get(0).contains("users.age IN ($1,$2,$3,$4)"), r.sql.get(0));
+        assertEquals(r.sql.get(0), r.sql.get(1), "lists of one bucket share the plan");
+        assertEquals(1, d.plans().hits());
+        assertTrue(r.sql.get(2).contains("users.age IN ($1,$2,$3,$4,$5,$6,$7,$8)"), r.sql.get(2));
+        //!! padded with the last item
+        assertEquals(List.of(List.of(1, 2, 3, 3)), r.arguments.get(0));
+        assertEquals(List.of(List.of(4, 5, 6, 7)), r.arguments.get(1));
+        assertEquals(List.of(List.of(7, 8, 9, 10, 11, 11, 11, 11)), r.arguments.get(2));
+        var s = d.state(users);
+        s.filter(x -> users.age.in(List.of(7, 8)).or(users.age.eq(p(7))));
+        s.any();
+        assertEquals(List.of(List.of(7, 7, 8)), r.arguments.get(3), "items are never interned");
+    }
+}
@@ -0,0 +1,60 @@
+package vax.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static vax.query.Sample.*;
+
+/**
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+class AssignTest {
+    final Users users = new Users();
+    final Orders orders = new Orders();
+
+    @Test
+    void set() {
+        var d = new Sql();
+        var s = d.state(orders);
+        s.filter(x -> orders.id.eq(p(1L)));
+        s.modify(x -> List.of(new Expr.Assign(orders.amount, p(5))));
+        assertEquals("UPDATE orders SET amount = $1 WHERE ( ( orders.id = $2 ) )", d.recorder.sql.get(0));
+        assertEquals(List.of(List.of(5, 1L)), d.recorder.arguments.get(0));
+    }
+
+    @Test
+    void setFrom() {
+        var d = new Sql();
+        var s = d.state(orders);
+        s.join(Expr.JoinMode.INNER, d.state(users), x -> orders.user.eq(users.id));
+        s.filter(x -> users.age.gt(p(18)));
+        s.modify(x -> List.of(new Expr.Assign(orders.amount, orders.amount.plus(p(1)))));
+        assertEquals("UPDATE orders SET amount = ( orders.amount + $1 ) FROM users"
+                     + " WHERE ( ( orders.user = users.id ) ) AND ( ( users.age > $2 ) )", d.recorder.sql.get(0));
+        var left = d.state(orders);
+        left.join(Expr.JoinMode.LEFT, d.state(users), x -> orders.user.eq(users.id));
+        var e = assertThrows(IllegalStateException.class,
+                             () -> left.modify(x -> List.of(new Expr.Assign(orders.amount, p(0)))));
+        assertTrue(e.getMessage().contains("INNER JOIN"), e.getMessage());
+    }
+
+    @Test
+    void into() {
+        var d = new Sql();
+        var s = d.state(orders);
+        s.filter(x -> orders.amount.gt(p(100)));
+        s.limit(5);
+        s.into(x -> List.of(new Expr.Assign(users.id, orders.user), new Expr.Assign(users.age, orders.amount)));
+        assertEquals("INSERT INTO users ( id , age ) SELECT orders.user , orders.amount FROM orders"
+                     + " WHERE ( orders.amount > $1 ) LIMIT 5", d.recorder.sql.get(0));
+        var mixed = d.state(orders);
+        assertThrows(IllegalStateException.class, () -> mixed.into(
+                x -> List.of(new Expr.Assign(users.id, orders.user), new Expr.Assign(orders.amount, orders.amount))));
+        var unowned = d.state(orders);
+        assertThrows(IllegalStateException.class, () -> unowned.into(
+                x -> List.of(new Expr.Assign(orders.amount.plus(p(1)).as("a"), orders.amount))));
+    }
+}
@@ -0,0 +1,65 @@
+package vax.query;
+
+import org.jooq.lambda.tuple.Tuple2;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static vax.query.Sample.*;
+
+/**
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+class GroupTest {
+    final Orders orders = new Orders();
+
+    @Test
+    void group() {
+        var d = new Sql();
+        var s = d.state(orders);
+        s.filter(x -> orders.amount.gt(p(0)));
+        s.group(x -> List.of(orders.user));
+        s.having(x -> orders.amount.sum().gt(p(100)));
+        s.sort(x -> List.of(new Expr.Sorter(orders.user, true)));
+        s.limit(10);
+        s.any2(x -> new Tuple2<>(orders.user, orders.amount.sum().as("total")));
+        assertEquals("SELECT orders.user , SUM( orders.amount ) AS total FROM orders WHERE ( orders.amount > $1 )"
+                     + " GROUP BY orders.user HAVING ( SUM( orders.amount ) > $2 ) ORDER BY orders.user DESC LIMIT 10",
+                     d.recorder.sql.get(0));
+        assertEquals(List.of(List.of(0, 100)), d.recorder.arguments.get(0));
+    }
+
+    @Test
+    void count() {
+        var d = new Sql();
+        var s = d.state(orders);
+        s.filter(x -> orders.amount.gt(p(0)));
+        s.count();
+        var g = d.state(orders);
+        g.group(x -> List.of(orders.user));
+        g.having(x -> orders.id.count().gt(p(2L)));
+        g.count();
+        var r = d.recorder;
+        assertEquals("SELECT COUNT(*) FROM orders WHERE ( orders.amount > $1 )", r.sql.get(0));
+        assertEquals("SELECT COUNT(*) FROM ( SELECT 1 FROM orders GROUP BY orders.user"
+                     + " HAVING ( COUNT( orders.id ) > $1 ) ) AS _g", r.sql.get(1), "counts groups");
+    }
+
+    @Test
+    void shape() {
+        var d = new Sql();
+        var count = d.state(orders);
+        count.one(x -> orders.user.count().as("n"));
+        var distinct = d.state(orders);
+        distinct.one(x -> orders.user.countDistinct().as("n"));
+        assertNotEquals(Plan.Shape.of(count.status()).key(), Plan.Shape.of(distinct.status()).key());
+        assertEquals("SELECT COUNT( DISTINCT orders.user ) AS n FROM orders LIMIT 1", d.recorder.sql.get(1));
+        var a = d.state(orders);
+        a.group(x -> List.of(orders.user));
+        var b = d.state(orders);
+        b.group(x -> List.of(orders.id));
+        assertNotEquals(Plan.Shape.of(a.status()).key(), Plan.Shape.of(b.status()).key());
+    }
+}
@@ -0,0 +1,75 @@
+package vax.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static vax.query.Sample.*;
+
+/**
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+class PlanTest {
+    final Users users = new Users();
+    final Orders orders = new Orders();
+
+    State adults(Sql d, int age, Integer limit) {
+        var s = d.state(users);
+        s.filter(x -> users.age.gt(p(age)));
+        if (limit != null) s.limit(limit);
+        return s;
+    }
+
+    State joined(Sql d, Integer limit) {
+        var o = d.state(orders);
+        o.filter(x -> orders.amount.gt(p(100)));
+        if (limit != null) o.limit(limit);
+        var s = d.state(users);
+        s.join(Expr.JoinMode.INNER, o, x -> users.id.eq(orders.user));
+        return s;
+    }
+
+    @Test
+    void shape() {
+        var d = new Sql();
+        var a = Plan.Shape.of(adults(d, 18, null).status());
+        var b = Plan.Shape.of(adults(d, 30, null).status());
+        assertEquals(a.key(), b.key(), "params are abstracted");
+        assertEquals(18, a.params().get(0).value());
+        assertEquals(30, b.params().get(0).value());
+        assertNotEquals(a.key(), Plan.Shape.of(adults(d, 18, 10).status()).key());
+        var c = d.state(users);
+        c.filter(x -> users.age.lt(p(18)));
+        assertNotEquals(a.key(), Plan.Shape.of(c.status()).key());
+        var n = d.state(users);
+        n.filter(x -> users.age.gt(p(null)));
+        assertNotEquals(a.key(), Plan.Shape.of(n.status()).key(), "a null param is not typed");
+    }
+
+    @Test
+    void bind() {
+        var d = new Sql();
+        adults(d, 18, null).any();
+        adults(d, 30, null).any();
+        assertEquals(1, d.plans().misses());
+        assertEquals(1, d.plans().hits());
+        var r = d.recorder;
+        assertEquals("SELECT users.id , users.name , users.age FROM users WHERE ( users.age > $1 )", r.sql.get(0));
+        assertEquals(r.sql.get(0), r.sql.get(1));
+        assertEquals(List.of(List.of(18)), r.arguments.get(0));
+        assertEquals(List.of(List.of(30)), r.arguments.get(1), "the cached plan is bound with current params");
+    }
+
+    @Test
+    void joinedState() {
+        var d = new Sql();
+        //!! a joined State is fingerprinted with its whole status, not only the primary and filter
+        assertEquals(Plan.Shape.of(joined(d, null).status()).key(), Plan.Shape.of(joined(d, null).status()).key());
+        assertNotEquals(Plan.Shape.of(joined(d, null).status()).key(), Plan.Shape.of(joined(d, 5).status()).key());
+        joined(d, null).any();
+        joined(d, 5).any();
+        assertEquals(2, d.plans().misses(), "never share a plan");
+    }
+}
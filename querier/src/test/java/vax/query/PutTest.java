@@ -0,0 +1,66 @@
+package vax.query;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static vax.query.Sample.*;
+
+/**
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+class PutTest {
+    static final String INSERT = "INSERT INTO users ( id,name,age ) VALUES ( $1,$2,$3 )";
+    final Users users = new Users();
+
+    static JsonObject user(long id, String name, Integer age) {
+        return new JsonObject().put("id", id).put("name", name).put("age", age);
+    }
+
+    @Test
+    void one() {
+        var d = new Sql();
+        assertTrue(d.state(users).putRaw(user(1, "a", 18)).succeeded());
+        assertEquals(List.of(INSERT), d.recorder.sql);
+        assertEquals(List.of(List.of(1L, "a", 18)), d.recorder.arguments.get(0));
+    }
+
+    @Test
+    void batch() {
+        var d = new Sql();
+        //!! keys in any order, bound by column name
+        var b = new JsonObject().put("age", 20).put("name", "b").put("id", 2L);
+        assertTrue(d.state(users).putRaw(user(1, "a", null), b, user(3, "c", 30)).succeeded());
+        assertEquals(List.of(INSERT), d.recorder.sql, "one statement of all rows");
+        assertEquals(List.of(Arrays.asList(1L, "a", null), List.of(2L, "b", 20), List.of(3L, "c", 30)),
+                     d.recorder.arguments.get(0));
+        d.state(users).putRaw(user(4, "d", 40));
+        assertEquals(1, d.plans().misses(), "the sql not varies with rows");
+        assertEquals(1, d.plans().hits());
+    }
+
+    @Test
+    void deferred() {
+        var d = new Sql();
+        var put = d.state(users).deferredPut();
+        put.putRaw(user(1, "a", 18));
+        put.putRaw(user(2, "b", 20), user(3, "c", 30));
+        assertEquals(List.of(INSERT, INSERT), d.recorder.sql);
+        assertEquals(List.of(List.of(1L, "a", 18)), d.recorder.arguments.get(0));
+        assertEquals(2, d.recorder.arguments.get(1).size());
+    }
+
+    @Test
+    void missingKey() {
+        var d = new Sql();
+        var f = d.state(users).putRaw(user(1, "a", 18), new JsonObject().put("id", 2L).put("name", "b"));
+        assertTrue(f.failed(), "fails the future instead of throwing");
+        assertInstanceOf(IllegalArgumentException.class, f.cause());
+        assertEquals("missing parameter age", f.cause().getMessage());
+        assertTrue(d.recorder.sql.isEmpty());
+    }
+}
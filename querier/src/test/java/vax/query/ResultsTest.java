@@ -0,0 +1,91 @@
+package vax.query;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static vax.query.Sample.*;
+
+/**
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+class ResultsTest {
+    final Users users = new Users();
+    final Orders orders = new Orders();
+    final Results results = new Results(100, Duration.ofMinutes(1));
+    final Sql d = new Sql(16, results);
+
+    void adults(int age) {
+        var s = d.state(users);
+        s.filter(x -> users.age.gt(p(age)));
+        s.any();
+    }
+
+    void paid() {
+        var o = d.state(orders);
+        o.filter(x -> orders.amount.gt(p(0)));
+        o.count();
+    }
+
+    int executed() {
+        return d.recorder.sql.size();
+    }
+
+    @Test
+    void cached() {
+        adults(18);
+        adults(18);
+        assertEquals(1, executed());
+        assertEquals(1, results.hits());
+        adults(30);
+        assertEquals(2, executed(), "keyed by arguments");
+        var count = d.state(users);
+        count.filter(x -> users.age.gt(p(18)));
+        count.count();
+        assertEquals(3, executed(), "keyed by mode and sql");
+    }
+
+    @Test
+    void invalidate() {
+        adults(18);
+        paid();
+        d.state(users).putRaw(new JsonObject().put("id", 1L).put("name", "a").put("age", 20));
+        adults(18);
+        paid();
+        assertEquals(4, executed(), "only results of the written table");
+        assertEquals(d.recorder.sql.get(0), d.recorder.sql.get(3));
+        results.invalidate("orders");
+        paid();
+        assertEquals(5, executed());
+    }
+
+    @Test
+    void joined() {
+        var s = d.state(users);
+        s.join(Expr.JoinMode.INNER, d.state(orders), x -> users.id.eq(orders.user));
+        assertEquals(List.of("users", "orders"), Results.tables(s.status()));
+        s.any();
+        var o = d.state(orders);
+        o.filter(x -> orders.id.eq(p(1L)));
+        o.modify(x -> List.of(new Expr.Assign(orders.amount, p(5))));
+        var t = d.state(users);
+        t.join(Expr.JoinMode.INNER, d.state(orders), x -> users.id.eq(orders.user));
+        t.any();
+        assertEquals(3, executed(), "a write of joined table invalidates");
+    }
+
+    @Test
+    void into() {
+        adults(18);
+        var o = d.state(orders);
+        o.filter(x -> orders.amount.gt(p(100)));
+        o.into(x -> List.of(new Expr.Assign(users.id, orders.user), new Expr.Assign(users.age, orders.amount)));
+        assertEquals(List.of("orders", "users"), Results.tables(o.status()), "the target is touched");
+        adults(18);
+        assertEquals(3, executed(), "the INTO target is invalidated");
+    }
+}
@@ -0,0 +1,355 @@
+package vax.query;
+
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.sqlclient.Row;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * storages and a postgresql style dialect of tests, statements are recorded instead of executed.
+ *
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+final class Sample {
+    private Sample() {}
+
+    //region storages
+    static final class Num<T extends Number> extends Storage.Field<T, Num<T>> implements Value.Int<T> {
+        Num(Storage<?, ?> owner, String name) {
+            this.owner = owner;
+            this.name = name;
+        }
+
+        @Override
+        Num<T> _me() {
+            return this;
+        }
+    }
+
+    static final class Str extends Storage.Field<CharSequence, Str> implements Value.Text {
+        Str(Storage<?, ?> owner, String name) {
+            this.owner = owner;
+            this.name = name;
+        }
+
+        @Override
+        Str _me() {
+            return this;
+        }
+    }
+
+    abstract static class Table<S extends Table<S>> extends Storage<JsonObject, S> {
+        final Map<String, Model.Field<?>> fields = new LinkedHashMap<>();
+
+        Table(String name) {
+            this.name = name;
+        }
+
+        <F extends Storage.Field<?, ?>> F add(F f) {
+            fields.put(f.name, f);
+            return f;
+        }
+
+        @Override
+        protected Storage.Field<JsonObject, ?> field(String name) {
+            return null;
+        }
+
+        @Override
+        protected List<String> fieldNames() {
+            return List.copyOf(fields.keySet());
+        }
+
+        @Override
+        protected Map<String, Model.Field<?>> fields() {
+            return fields;
+        }
+    }
+
+    static final class Users extends Table<Users> {
+        final Num<Long> id = add(new Num<>(this, "id"));
+        final Str name = add(new Str(this, "name"));
+        final Num<Integer> age = add(new Num<>(this, "age"));
+
+        Users() {
+            super("users");
+        }
+
+        @Override
+        protected Users _me() {
+            return this;
+        }
+    }
+
+    static final class Orders extends Table<Orders> {
+        final Num<Long> id = add(new Num<>(this, "id"));
+        final Num<Long> user = add(new Num<>(this, "user"));
+        final Num<Integer> amount = add(new Num<>(this, "amount"));
+
+        Orders() {
+            super("orders");
+        }
+
+        @Override
+        protected Orders _me() {
+            return this;
+        }
+    }
+
+    static <T> Value.param<T> p(T v) {
+        return new Value.param<>(v);
+    }
+    //endregion
+
+    /**
+     * records statements, queries return no rows.
+     */
+    static final class Recorder implements State.Executor {
+        final List<String> sql = new ArrayList<>();
+        final List<List<List<Object>>> arguments = new ArrayList<>();
+
+        void record(String sql, List<List<Object>> arguments) {
+            this.sql.add(sql);
+            this.arguments.add(arguments);
+        }
+
+        @Override
+        public <R> Future<R> query(String sql, List<Object> arguments, Collector<Row, ?, R> collector) {
+            record(sql, List.of(arguments));
+            return Future.succeededFuture(Stream.<Row>empty().collect(collector));
+        }
+
+        @Override
+        public Future<Integer> update(String sql, List<Object> arguments) {
+            record(sql, List.of(arguments));
+            return Future.succeededFuture(1);
+        }
+
+        @Override
+        public Future<Integer> batch(String sql, List<List<Object>> arguments) {
+            record(sql, arguments);
+            return Future.succeededFuture(arguments.size());
+        }
+
+        @Override
+        public <R> Future<Statement.Cursor<R>> stream(String sql, List<Object> arguments, int fetch,
+                                                      Function<Row, R> mapper) {
+            record(sql, List.of(arguments));
+            return Future.succeededFuture(new State.Drained<>());
+        }
+    }
+
+    /**
+     * a postgresql style dialect, operations are parenthesized.
+     */
+    static class Sql extends Dialect {
+        final Recorder recorder = new Recorder();
+
+        Sql() {
+            super(16);
+        }
+
+        Sql(int plans, Results results) {
+            super(plans, results);
+        }
+
+        @Override
+        public State.Executor executor() {
+            return recorder;
+        }
+
+        State state(Model<?> primary) {
+            return new State(this, JsonObject::mapFrom, primary);
+        }
+
+        /**
+         * @return the rendered sql of status
+         */
+        String sql(State s) {
+            var b = build(s.status());
+            try {
+                return b.sql();
+            } finally {
+                b.release();
+            }
+        }
+
+        static String operator(int op) {
+            return switch (op) {
+                case Value.EQ -> "=";
+                case Value.NEQ -> "<>";
+                case Value.GT -> ">";
+                case Value.GTE -> ">=";
+                case Value.LT -> "<";
+                case Value.LTE -> "<=";
+                case Value.AND -> "AND";
+                case Value.OR -> "OR";
+                case Value.PLUS -> "+";
+                case Value.TIMES -> "*";
+                case Value.SUM -> "SUM";
+                case Value.AVG -> "AVG";
+                case Value.MIN -> "MIN";
+                case Value.MAX -> "MAX";
+                case Value.COUNT -> "COUNT";
+                default -> throw new IllegalStateException("unsupported operation " + op);
+            };
+        }
+
+        @Override
+        protected void computePrimaryFields(Builder b, Model<?> primary) {
+            for (var n : primary.$order()) b.secondary(n);
+        }
+
+        @Override
+        protected void group(Builder b, List<Value<?>> group) {
+            for (int i = 0; i < group.size(); i++) {
+                if (i > 0) b.primary(",");
+                value(b, group.get(i));
+            }
+        }
+
+        @Override
+        protected void order(Builder b, List<Expr.Sorter> sort) {
+            for (int i = 0; i < sort.size(); i++) {
+                if (i > 0) b.primary(",");
+                value(b, sort.get(i).v());
+                b.primary(sort.get(i).desc() ? "DESC" : "ASC");
+            }
+        }
+
+        @Override
+        protected void limitation(Builder b, Integer skip, Integer limit) {
+            if (limit != null) b.primary("LIMIT").primary(limit.toString());
+            if (skip != null) b.primary("OFFSET").primary(skip.toString());
+        }
+
+        @Override
+        protected void joiner(Builder b, Model<?> primary, List<Expr.Join> join) {
+            for (var j : join) {
+                b.primary(j.mode().name()).primary("JOIN");
+                store(b, j.target());
+                b.primary("ON");
+                condition(b, j.cond());
+            }
+        }
+
+        @Override
+        protected void condition(Builder b, Value.Bool primary) {
+            value(b, primary);
+        }
+
+        @Override
+        protected void primary(Builder b, Model<?> primary) {
+            if (!(primary instanceof Storage<?, ?> s)) throw new IllegalStateException("not a table " + primary);
+            b.primary(s.name);
+            if (s.alias != null) b.primary("AS").primary(s.alias);
+        }
+
+        @Override
+        protected void selection(Builder b, Model<?> primary, List<Model.Field<?>> pick) {
+            var fields = pick != null ? pick : State.Status.fields(primary);
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) b.primary(",");
+                value(b, fields.get(i));
+                b.render(Render.of(fields.get(i)));
+            }
+        }
+
+        @Override
+        protected void parameter(Builder b, Value.param<?> v) {
+            b.primary(placeholder(b.argument(v)));
+        }
+
+        @Override
+        protected void field(Builder b, Model.Field<?> v) {
+            if (v instanceof Storage.Field<?, ?> f) {
+                var table = f.owner == null ? null : f.owner.alias != null ? f.owner.alias : f.owner.name;
+                b.primary(table == null ? f.name : table + "." + f.name);
+                if (f.alias != null) b.primary("AS").primary(f.alias);
+            } else if (v instanceof Model.Field.Derived<?> d) {
+                b.primary(d.table() + "." + d.name());
+            } else if (v instanceof Model.Field.Virtual<?> x) {
+                value(b, x.v());
+                b.primary("AS").primary(x.name());
+            } else {
+                throw new IllegalStateException("unsupported field " + v);
+            }
+        }
+
+        @Override
+        protected void column(Builder b, Model.Field<?> v) {
+            b.primary(((Storage.Field<?, ?>) v).name);
+        }
+
+        @Override
+        protected void value(Builder b, Value<?> v) {
+            if (v == Value.TRUE) b.primary("TRUE");
+            else if (v == Value.FALSE) b.primary("FALSE");
+            else if (v instanceof Value.param<?> p) parameter(b, p);
+            else if (v instanceof Value.hold<?> h) b.primary(placeholder(b.argument(h)));
+            else if (v instanceof Model.Field<?> f) field(b, f);
+            else if (v instanceof Value.in<?> in) {
+                b.primary("(");
+                value(b, in.v());
+                b.primary("IN").primary(include(b, in)).primary(")");
+            } else if (v instanceof Value.binary<?> x) {
+                b.primary("(");
+                value(b, x.v0());
+                b.primary(operator(x.op()));
+                value(b, x.v1());
+                b.primary(")");
+            } else if (v instanceof Value.unary<?> x) {
+                b.primary("(");
+                if (x.op() == Value.NOT) {
+                    b.primary("NOT");
+                    value(b, x.v0());
+                } else {
+                    value(b, x.v0());
+                    b.primary(x.op() == Value.NULL ? "IS NULL" : "IS NOT NULL");
+                }
+                b.primary(")");
+            } else if (v instanceof Value.triple<?> x && x.op() == Value.BTW) {
+                b.primary("(");
+                value(b, x.v0());
+                b.primary("BETWEEN");
+                value(b, x.v1());
+                b.primary("AND");
+                value(b, x.v2());
+                b.primary(")");
+            } else if (v instanceof Value.bNum<?> x) {
+                b.primary("(");
+                value(b, x.left());
+                b.primary(operator(x.op()));
+                value(b, x.right());
+                b.primary(")");
+            } else if (v instanceof Value.aNum<?> x) {
+                b.primary(operator(x.op()) + "(");
+                if (x.distinct()) b.primary("DISTINCT");
+                value(b, x.v());
+                b.primary(")");
+            } else if (v instanceof Value.aVal<?> x) {
+                b.primary(operator(x.op()) + "(");
+                value(b, x.v());
+                b.primary(")");
+            } else {
+                throw new IllegalStateException("unsupported value " + v);
+            }
+        }
+
+        @Override
+        protected void store(Builder b, Statement.Store<?, ?> target) {
+            if (!(target instanceof State st)) throw new IllegalStateException("unsupported store " + target);
+            var s = st.status();
+            if (s.primary instanceof Model.Virtual<?> v) derived(b, v, s);
+            else primary(b, s.primary);
+        }
+    }
+}
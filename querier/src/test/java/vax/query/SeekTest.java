@@ -0,0 +1,91 @@
+package vax.query;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.Test;
+import vax.common.units.Binary;
+
+import java.math.BigDecimal;
+import java.time.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static vax.query.Sample.*;
+
+/**
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+class SeekTest {
+    final Users users = new Users();
+
+    List<Expr.Sorter> keys(Object x) {
+        return List.of(new Expr.Sorter(users.age, false), new Expr.Sorter(users.id, false));
+    }
+
+    @Test
+    void token() {
+        var values = Arrays.asList(null, true, (short) -3, 7, 1L << 40, 1.5f, -2.25, "a", new BigDecimal("1.10"),
+                                   UUID.randomUUID(), Instant.ofEpochSecond(-1, 5), LocalDate.of(2025, 3, 10),
+                                   LocalTime.of(23, 59, 59, 999), LocalDateTime.of(2025, 3, 10, 8, 0),
+                                   OffsetDateTime.of(2025, 3, 10, 8, 0, 0, 1, ZoneOffset.ofHours(-5)));
+        assertEquals(values, Expr.Seek.values(Expr.Seek.token(values)));
+        var bytes = Expr.Seek.values(Expr.Seek.token(List.of(new byte[]{1, 2}, Buffer.buffer(new byte[]{3}))));
+        assertArrayEquals(new byte[]{1, 2}, (byte[]) bytes.get(0));
+        assertArrayEquals(new byte[]{3}, (byte[]) bytes.get(1));
+        assertEquals(List.of(), Expr.Seek.values(Expr.Seek.token(List.of())));
+        assertThrows(IllegalArgumentException.class, () -> Expr.Seek.token(List.of(new Object())));
+    }
+
+    @Test
+    void malformed() {
+        var token = Expr.Seek.token(List.of(18, 5L));
+        var bad = List.of(Buffer.buffer(),
+                          Buffer.buffer(new byte[]{2, 0}),
+                          //!! a huge count is rejected before allocating
+                          Binary.of(8, false).$i8((byte) 1).$v32(Integer.MAX_VALUE).$i8((byte) 0).$raw(),
+                          Binary.of(8, false).$i8((byte) 1).$v32(-1).$raw(),
+                          token.slice(0, token.length() - 1),
+                          token.copy().appendByte((byte) 0),
+                          Binary.of(8, false).$i8((byte) 1).$v32(1).$i8((byte) 99).$raw(),
+                          Binary.of(8, false).$i8((byte) 1).$v32(1).$i8((byte) 6).$v32(100).$raw(),
+                          Binary.of(16, false).$i8((byte) 1).$v32(1).$i8((byte) 12).$v64(Long.MAX_VALUE).$raw());
+        for (var b : bad) assertThrows(IllegalArgumentException.class, () -> Expr.Seek.values(b), b::toString);
+        assertEquals(List.of(18, 5L), Expr.Seek.values(token, 2));
+        var e = assertThrows(IllegalArgumentException.class, () -> Expr.Seek.values(token, 1));
+        assertTrue(e.getMessage().contains("sort keys"), e.getMessage());
+    }
+
+    @Test
+    void render() {
+        var d = new Sql();
+        var first = d.state(users);
+        first.seek(this::keys, null);
+        first.limit(10);
+        first.any();
+        var next = d.state(users);
+        next.seek(this::keys, List.of(18, 5L));
+        next.limit(10);
+        next.any();
+        var r = d.recorder;
+        assertEquals("SELECT users.id , users.name , users.age FROM users ORDER BY users.age ASC , users.id ASC LIMIT 10",
+                     r.sql.get(0));
+        assertEquals("SELECT users.id , users.name , users.age FROM users"
+                     + " WHERE ( ( users.age > $1 ) OR ( ( users.age = $1 ) AND ( users.id > $2 ) ) )"
+                     + " ORDER BY users.age ASC , users.id ASC LIMIT 10", r.sql.get(1));
+        assertEquals(List.of(List.of(18, 5L)), r.arguments.get(1));
+    }
+
+    @Test
+    void seekToken() {
+        var d = new Sql();
+        var s = d.state(users);
+        s.seekToken(this::keys, Expr.Seek.token(List.of(18, 5L)));
+        s.any();
+        assertEquals(List.of(List.of(18, 5L)), d.recorder.arguments.get(0));
+        var token = Expr.Seek.token(List.of(18));
+        assertThrows(IllegalArgumentException.class, () -> d.state(users).seekToken(this::keys, token));
+        assertThrows(IllegalArgumentException.class, () -> d.state(users).seek(this::keys, List.of(18)));
+    }
+}
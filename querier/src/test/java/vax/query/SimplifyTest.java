@@ -0,0 +1,111 @@
+package vax.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static vax.query.Sample.*;
+import static vax.query.Simplify.bool;
+import static vax.query.Value.*;
+
+/**
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+class SimplifyTest {
+    static Value<Integer> column(String name) {
+        return new Model.Field.Derived<>("t", name, Render.INTEGER);
+    }
+
+    static Value.Bool eq(String column, int v) {
+        return new binary<>(column(column), new param<>(v), EQ);
+    }
+
+    static Value.Bool between(String column, int lo, int hi) {
+        return new triple<>(column(column), new param<>(lo), new param<>(hi), BTW);
+    }
+
+    @Test
+    void constants() {
+        var a = eq("a", 1);
+        assertSame(a, bool(a.and(TRUE)));
+        assertSame(FALSE, bool(a.and(FALSE)));
+        assertSame(TRUE, bool(a.or(TRUE)));
+        assertSame(a, bool(a.or(FALSE)));
+        assertSame(TRUE, bool(FALSE.not()));
+        assertSame(FALSE, bool(a.and(TRUE.not())));
+        assertSame(TRUE, bool(new binary<>(new param<>(1), new param<>(2), LT)));
+        assertSame(FALSE, bool(new binary<>(new param<>("a"), new param<>("a"), NEQ)));
+        //!! NULL is never folded
+        var n = new binary<>(new param<Integer>(null), new param<>(1), EQ);
+        assertSame(n, bool(n));
+        assertNull(bool(null));
+    }
+
+    @Test
+    void negations() {
+        var a = eq("a", 1);
+        assertSame(a, bool(a.not().not()));
+        assertEquals(new unary<>(a, NOT), bool(a.not().not().not()));
+    }
+
+    @Test
+    void chains() {
+        var a = eq("a", 1);
+        var b = eq("b", 2);
+        var c = eq("c", 3);
+        var x = bool(a.and(b.and(c)).and(a));
+        var terms = new ArrayList<Value<Boolean>>();
+        Simplify.flatten(AND, x, terms);
+        assertEquals(3, terms.size(), "flattened and duplicates removed");
+        assertEquals(x, bool(c.and(a).and(b)), "canonical order");
+        assertEquals(bool(a.or(b)), bool(b.or(a)));
+        assertNotEquals(bool(a.and(b)), bool(a.or(b)));
+    }
+
+    @Test
+    void complements() {
+        //!! NULL when a is NULL, never folded
+        var a = eq("a", 1);
+        assertNotSame(FALSE, bool(a.and(a.not())));
+        assertNotSame(TRUE, bool(a.or(a.not())));
+        assertNotSame(TRUE, bool(a.and(a.not()).not()));
+    }
+
+    @Test
+    void emptyRange() {
+        var empty = between("a", 5, 1);
+        assertSame(FALSE, bool(empty));
+        assertSame(FALSE, bool(eq("b", 2).and(empty)));
+        var range = between("a", 1, 5);
+        assertSame(range, bool(range));
+        //!! NOT (NULL) is NULL: a row of NULL a is rejected, not selected
+        assertEquals(new unary<>(empty, NOT), bool(empty.not()));
+        assertNotSame(TRUE, bool(eq("b", 2).and(empty).not()));
+        assertNotSame(FALSE, bool(eq("b", 2).or(empty)));
+    }
+
+    @Test
+    void falseFilter() {
+        var users = new Users();
+        var d = new Sql();
+        var any = d.state(users);
+        any.filter(x -> users.age.in(List.of()));
+        assertEquals(List.of(), any.any().result());
+        var one = d.state(users);
+        one.filter(x -> users.age.gt(p(1)).and(FALSE));
+        assertNull(one.one().result());
+        assertTrue(d.recorder.sql.isEmpty(), "never reach the database");
+        //!! an ungrouped aggregate yields one row even nothing matched
+        var count = d.state(users);
+        count.filter(x -> FALSE);
+        count.count();
+        var max = d.state(users);
+        max.filter(x -> FALSE);
+        max.one(x -> users.age.max().as("m"));
+        assertEquals(List.of("SELECT COUNT(*) FROM users WHERE FALSE",
+                             "SELECT MAX( users.age ) AS m FROM users WHERE FALSE LIMIT 1"), d.recorder.sql);
+    }
+}
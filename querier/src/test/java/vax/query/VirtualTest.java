@@ -0,0 +1,74 @@
+package vax.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static vax.query.Sample.*;
+
+/**
+ * @author Zen.Liu
+ * @since 2025-03-10
+ */
+class VirtualTest {
+    final Users users = new Users();
+    final Orders orders = new Orders();
+
+    State big(Sql d) {
+        var s = d.state(orders);
+        s.filter(x -> orders.amount.gt(p(100)));
+        return (State) s.as("big");
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Value<T> column(State s, String name) {
+        return (Value<T>) s.status().primary.$fields().get(name);
+    }
+
+    @Test
+    void project() {
+        var d = new Sql();
+        var v = big(d);
+        assertEquals(List.of("id", "user", "amount"), v.status().primary.$order());
+        v.filter(x -> new Value.binary<>(VirtualTest.<Integer>column(v, "amount"), p(500), Value.LT));
+        v.any(x -> column(v, "user"));
+        assertEquals("SELECT big.user FROM ( SELECT orders.user , orders.amount FROM orders"
+                     + " WHERE ( orders.amount > $1 ) ) AS big WHERE ( big.amount < $2 )", d.recorder.sql.get(0),
+                     "only referenced columns");
+        assertEquals(List.of(List.of(100, 500)), d.recorder.arguments.get(0));
+    }
+
+    @Test
+    void all() {
+        var d = new Sql();
+        big(d).any();
+        big(d).count();
+        assertEquals("SELECT big.id , big.user , big.amount FROM ( SELECT orders.id , orders.user , orders.amount"
+                     + " FROM orders WHERE ( orders.amount > $1 ) ) AS big", d.recorder.sql.get(0));
+        assertEquals("SELECT COUNT(*) FROM ( SELECT orders.id FROM orders WHERE ( orders.amount > $1 ) ) AS big",
+                     d.recorder.sql.get(1), "at least one column");
+    }
+
+    @Test
+    void joined() {
+        var d = new Sql();
+        var v = big(d);
+        var s = d.state(users);
+        s.join(Expr.JoinMode.INNER, v, x -> new Value.binary<>(users.id, VirtualTest.<Long>column(v, "user"), Value.EQ));
+        s.any(x -> users.name);
+        assertEquals("SELECT users.name FROM users INNER JOIN ( SELECT orders.id , orders.user , orders.amount"
+                     + " FROM orders WHERE ( orders.amount > $1 ) ) AS big ON ( users.id = big.user )",
+                     d.recorder.sql.get(0));
+        assertEquals(List.of("users", "orders"), Results.tables(s.status()));
+    }
+
+    @Test
+    void duplicated() {
+        var d = new Sql();
+        var s = d.state(orders);
+        s.status().pick = List.of(orders.id, users.id);
+        var e = assertThrows(IllegalStateException.class, () -> s.status().computeVirtual(d, "x"));
+        assertTrue(e.getMessage().contains("duplicate column 'id'"), e.getMessage());
+    }
+}